@@ -8,6 +8,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.UUID;
 
@@ -41,23 +46,56 @@ public class  HostController {
     }
 
     /**
-     * Gets all bookings for a specific location.
+     * Gets all bookings for a specific location, or only those overlapping
+     * one day (UTC) or a time window.
      * Verifies the location belongs to the requesting host.
      * Uses JWT authentication to identify the host.
      *
-     * Example request:
+     * Example requests:
      * GET /api/host/locations/{locationId}/bookings
+     * GET /api/host/locations/{locationId}/bookings?date=2025-01-20
+     * GET /api/host/locations/{locationId}/bookings?from=2025-01-20T08:00:00Z&to=2025-01-20T20:00:00Z
      * Header: Authorization: Bearer <jwt-token>
      *
      * @param locationId The location ID
+     * @param date       Day to list bookings for (ISO 8601 date, optional)
+     * @param from       Window start (ISO 8601 format, optional, needs to)
+     * @param to         Window end (ISO 8601 format, optional, needs from)
      * @return List of bookings for the location
      */
     @GetMapping("/locations/{locationId}/bookings")
     public ResponseEntity<List<BookingResponse>> getBookingsForLocation(
-            @PathVariable UUID locationId) {
+            @PathVariable UUID locationId,
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        Instant start;
+        Instant end;
+        try {
+            if (date != null && from == null && to == null) {
+                start = LocalDate.parse(date).atStartOfDay(ZoneOffset.UTC).toInstant();
+                end = start.plus(1, ChronoUnit.DAYS);
+            } else if (date == null && from != null && to != null) {
+                start = Instant.parse(from);
+                end = Instant.parse(to);
+            } else if (date == null && from == null && to == null) {
+                start = null;
+                end = null;
+            } else {
+                return ResponseEntity.badRequest().build();
+            }
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (start != null && !end.isAfter(start)) {
+            return ResponseEntity.badRequest().build();
+        }
+
         try {
             UUID hostId = (UUID) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-            List<BookingResponse> bookings = hostService.getBookingsForLocation(locationId, hostId);
+            List<BookingResponse> bookings = start == null
+                    ? hostService.getBookingsForLocation(locationId, hostId)
+                    : hostService.getBookingsForLocation(locationId, hostId, start, end);
             return ResponseEntity.ok(bookings);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -1,36 +1,135 @@
 package com.dani.luggagebackend.Controller;
 
+import com.dani.luggagebackend.DTO.AutocompleteSuggestion;
+import com.dani.luggagebackend.DTO.AvailabilityBatchRequest;
+import com.dani.luggagebackend.DTO.AvailabilityCalendarResponse;
+import com.dani.luggagebackend.DTO.CatalogStats;
+import com.dani.luggagebackend.DTO.CitySummary;
+import com.dani.luggagebackend.DTO.CorridorLocationResponse;
+import com.dani.luggagebackend.DTO.CorridorSearchRequest;
 import com.dani.luggagebackend.DTO.CreateLocationRequest;
+import com.dani.luggagebackend.DTO.LocationAvailability;
 import com.dani.luggagebackend.DTO.LocationResponse;
+import com.dani.luggagebackend.DTO.LocationSearchRequest;
+import com.dani.luggagebackend.DTO.LocationSearchResponse;
+import com.dani.luggagebackend.DTO.MultiOriginLocationResponse;
+import com.dani.luggagebackend.DTO.MultiOriginNearbyRequest;
+import com.dani.luggagebackend.DTO.NearbyCacheStats;
 import com.dani.luggagebackend.DTO.NearbyLocationRequest;
+import com.dani.luggagebackend.DTO.ViewportResponse;
+import com.dani.luggagebackend.DTO.WalkableSearchRequest;
+import com.dani.luggagebackend.Service.AutocompleteIndex;
+import com.dani.luggagebackend.Service.AvailabilityCalendar;
+import com.dani.luggagebackend.Service.CityDirectory;
+import com.dani.luggagebackend.Service.CursorPage;
+import com.dani.luggagebackend.Service.LocationCatalog;
+import com.dani.luggagebackend.Service.LocationFilter;
+import com.dani.luggagebackend.Service.LocationMapService;
+import com.dani.luggagebackend.Service.LocationSearchIndex;
 import com.dani.luggagebackend.Service.LocationService;
+import com.dani.luggagebackend.Service.LocationSpatialIndex;
+import com.dani.luggagebackend.Service.MapTileCache;
+import com.dani.luggagebackend.Service.NearbyResultCache;
+import com.dani.luggagebackend.Service.OccupancyIndex;
+import com.dani.luggagebackend.Service.PageCursor;
+import com.dani.luggagebackend.Service.Polyline;
+import com.dani.luggagebackend.Service.PopularityWindow;
+import com.dani.luggagebackend.Service.WalkingRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @CrossOrigin
 @RestController
 @RequestMapping("/api/locations")
 public class LocationController {
 
+    private static final int MAX_K = 100;
+    private static final double DEFAULT_MAX_RADIUS_KM = 50.0;
+    private static final double MAX_RADIUS_KM = 500.0;
+    private static final int MAX_ZOOM = 22;
+    // About two 4K screens of 256 px tiles
+    private static final int MAX_VIEWPORT_TILES = 256;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_ORIGINS = 25;
+    private static final double MAX_BUFFER_KM = 5.0;
+    private static final int MAX_ROUTE_POINTS = 5000;
+    private static final double MAX_WALKING_MINUTES = 60.0;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_AVAILABILITY_LOCATIONS = 200;
+    private static final int MAX_AVAILABILITY_WINDOWS = 24;
+    private static final Duration MAX_CALENDAR_RANGE = Duration.ofDays(31);
+    private static final int MAX_CALENDAR_SLOTS = 3000;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final Pattern SLOT_PATTERN = Pattern.compile("(\\d{1,4})([mh])");
+
     @Autowired
     private LocationService locationService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NearbyResultCache nearbyResultCache;
+
+    @Autowired
+    private LocationCatalog locationCatalog;
+
+    @Autowired
+    private WalkingRouter walkingRouter;
+
+    @Autowired
+    private LocationSearchIndex searchIndex;
+
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+
+    @Autowired
+    private CityDirectory cityDirectory;
+
+    @Autowired
+    private LocationMapService locationMapService;
+
+    @Autowired
+    private MapTileCache mapTileCache;
+
     /**
      * Finds storage locations near the user's current position.
      * User can specify latitude, longitude, and search radius.
+     * When k is given, only the k closest locations are returned and the
+     * search widens automatically up to maxRadiusKm (default 50 km) instead
+     * of using a fixed radius.
      *
      * Example request body:
      * {
@@ -39,7 +138,15 @@ public class LocationController {
      * "radiusKm": 10.0
      * }
      *
-     * @param request Contains user's location and desired search radius
+     * Top-k example:
+     * {
+     * "latitude": 40.7128,
+     * "longitude": -74.0060,
+     * "k": 10,
+     * "maxRadiusKm": 25.0
+     * }
+     *
+     * @param request Contains user's location and desired search radius or k
      * @return List of nearby locations ordered by distance (closest first)
      */
     @PostMapping("/nearby")
@@ -49,8 +156,54 @@ public class LocationController {
             return ResponseEntity.badRequest().build();
         }
 
+        // Top-k mode: widen the search server-side until k locations are found
+        if (request.getK() != null) {
+            Double maxRadius = request.getMaxRadiusKm() != null ? request.getMaxRadiusKm() : DEFAULT_MAX_RADIUS_KM;
+            if (request.getK() < 1 || request.getK() > MAX_K || maxRadius <= 0 || maxRadius > MAX_RADIUS_KM) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(locationService.findNearestLocations(
+                    request.getLatitude(),
+                    request.getLongitude(),
+                    request.getK(),
+                    maxRadius));
+        }
+
         // Use default radius if not provided
         Double radius = request.getRadiusKm() != null ? request.getRadiusKm() : 5.0;
+        if (!isValidRadius(radius)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Availability mode: only locations with room during the time window
+        if (request.getStartTime() != null || request.getEndTime() != null) {
+            int bags = request.getBags() != null ? request.getBags() : 1;
+            if (!isValidWindow(request.getStartTime(), request.getEndTime(), bags)) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(locationService.findAvailableNearby(
+                    request.getLatitude(),
+                    request.getLongitude(),
+                    radius,
+                    null, null, null,
+                    request.getStartTime(),
+                    request.getEndTime(),
+                    bags));
+        }
+
+        // Cursor mode: one page at a time, next page cursor in X-Next-Cursor
+        if (request.getLimit() != null) {
+            if (!isValidPageSize(request.getLimit())) {
+                return ResponseEntity.badRequest().build();
+            }
+            return pageResponse(locationService.findNearbyPage(
+                    request.getLatitude(),
+                    request.getLongitude(),
+                    radius,
+                    null, null, null,
+                    request.getLimit(),
+                    PageCursor.decode(request.getCursor())));
+        }
 
         List<LocationResponse> locations = locationService.findNearbyLocations(
                 request.getLatitude(),
@@ -60,6 +213,128 @@ public class LocationController {
         return ResponseEntity.ok(locations);
     }
 
+    /**
+     * Gets map content for a viewport (the visible map rectangle).
+     * Zoomed in, every location is returned as an individual marker; zoomed
+     * out, locations that would overlap on screen are aggregated into
+     * clusters with their centroid, count and minimum price.
+     *
+     * Example: GET
+     * /api/locations/viewport?swLat=40.70&swLng=-74.02&neLat=40.80&neLng=-73.93&zoom=13
+     *
+     * @param swLat South-west corner latitude
+     * @param swLng South-west corner longitude
+     * @param neLat North-east corner latitude
+     * @param neLng North-east corner longitude
+     * @param zoom  Map zoom level (0-22)
+     * @return Markers and clusters inside the viewport
+     */
+    @GetMapping("/viewport")
+    public ResponseEntity<ViewportResponse> getViewport(
+            @RequestParam double swLat,
+            @RequestParam double swLng,
+            @RequestParam double neLat,
+            @RequestParam double neLng,
+            @RequestParam int zoom) {
+        if (swLat < -90 || neLat > 90 || swLat > neLat
+                || swLng < -180 || swLng > 180 || neLng < -180 || neLng > 180
+                || zoom < 0 || zoom > MAX_ZOOM
+                || LocationMapService.tilesCovered(swLat, swLng, neLat, neLng, zoom) > MAX_VIEWPORT_TILES) {
+            // A box larger than a screen at this zoom would return every location in it as a marker
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(locationMapService.getViewport(swLat, swLng, neLat, neLng, zoom));
+    }
+
+    /**
+     * Gets the current catalog version used in tile URLs.
+     * Not cacheable: clients poll it to find out when tile URLs change.
+     *
+     * Example: GET /api/locations/tiles/version
+     *
+     * @return Current version
+     */
+    @GetMapping("/tiles/version")
+    public ResponseEntity<Map<String, String>> getTileVersion() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(Map.of("version", mapTileCache.currentVersion()));
+    }
+
+    /**
+     * Redirects an unversioned tile request to the tile URL of the current
+     * catalog version.
+     *
+     * Example: GET /api/locations/tiles/12/1205/1539
+     */
+    @GetMapping("/tiles/{z}/{x}/{y}")
+    public ResponseEntity<ViewportResponse> getLatestTile(
+            @PathVariable int z,
+            @PathVariable long x,
+            @PathVariable long y) {
+        if (!isValidTile(z, x, y)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return redirectToTile(mapTileCache.currentVersion(), z, x, y);
+    }
+
+    /**
+     * Gets one map tile of location markers and clusters.
+     * The content of a tile URL never changes for a given catalog version, so
+     * responses are marked immutable and can be cached by a CDN or the app.
+     * Requests for an older version are redirected to the current one.
+     *
+     * Example: GET /api/locations/tiles/3w5e11264sgsg-42/12/1205/1539
+     *
+     * @param version Catalog version (from /tiles/version)
+     * @param z       Zoom level (0-22)
+     * @param x       Tile column
+     * @param y       Tile row
+     * @return Markers and clusters inside the tile
+     */
+    @GetMapping("/tiles/{version}/{z}/{x}/{y}")
+    public ResponseEntity<ViewportResponse> getTile(
+            @PathVariable String version,
+            @PathVariable int z,
+            @PathVariable long x,
+            @PathVariable long y) {
+        if (!isValidTile(z, x, y)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String current = mapTileCache.currentVersion();
+        if (!version.equals(current)) {
+            return redirectToTile(current, z, x, y);
+        }
+
+        ViewportResponse tile = mapTileCache.getTile(z, x, y);
+        // A write landed while the tile was looked up; it may not belong to this version
+        current = mapTileCache.currentVersion();
+        if (!version.equals(current)) {
+            return redirectToTile(current, z, x, y);
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .body(tile);
+    }
+
+    private boolean isValidTile(int z, long x, long y) {
+        if (z < 0 || z > MapTileCache.MAX_TILE_ZOOM) {
+            return false;
+        }
+        long tiles = 1L << z;
+        return x >= 0 && x < tiles && y >= 0 && y < tiles;
+    }
+
+    private ResponseEntity<ViewportResponse> redirectToTile(String version, int z, long x, long y) {
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create("/api/locations/tiles/" + version + "/" + z + "/" + x + "/" + y))
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+
     /**
      * Gets a specific location by its ID.
      *
@@ -202,37 +477,124 @@ public class LocationController {
     }
 
     /**
-     * Filter locations with multiple criteria.
+     * Autocomplete for the search box. Suggests location names, addresses
+     * and cities with a word starting with the prefix, most popular first.
+     * Served from memory without touching the database.
+     *
+     * Example: GET /api/locations/autocomplete?prefix=nav&limit=8
+     *
+     * @param prefix Typed text
+     * @param limit  Maximum number of suggestions (default 8, max 20)
+     * @return Suggestions, most popular first
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<AutocompleteSuggestion>> autocomplete(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        if (prefix.isBlank() || limit < 1 || limit > MAX_SUGGESTIONS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<AutocompleteSuggestion> suggestions = autocompleteIndex.suggest(prefix, limit).stream()
+                .map(suggestion -> new AutocompleteSuggestion(
+                        suggestion.text(), suggestion.type().name(), suggestion.locationId()))
+                .toList();
+        return ResponseEntity.ok(suggestions);
+    }
+
+    /**
+     * Combined search: free text over name, address and city (accent and
+     * typo tolerant), optional distance, price and capacity filters, and
+     * counts per price and capacity range over all matches.
+     * Responds 503 until the search index has loaded.
+     *
+     * Example: POST /api/locations/search
+     * Body: {
+     * "q": "termini",
+     * "latitude": 41.9028,
+     * "longitude": 12.4964,
+     * "radiusKm": 3.0,
+     * "maxPrice": 10.0,
+     * "sort": "distance",
+     * "limit": 20
+     * }
+     *
+     * @param request Search text, optional position and filters
+     * @return Matching locations with facet counts
+     */
+    @PostMapping("/search")
+    public ResponseEntity<LocationSearchResponse> searchLocations(@RequestBody LocationSearchRequest request) {
+        int limit = request.getLimit() != null ? request.getLimit() : 20;
+        boolean hasPosition = request.getLatitude() != null && request.getLongitude() != null;
+        String sort = request.getSort() != null ? request.getSort() : "relevance";
+        if (!isValidPageSize(limit)
+                || (request.getLatitude() == null) != (request.getLongitude() == null)
+                || (request.getRadiusKm() != null
+                        && (!hasPosition || request.getRadiusKm() <= 0 || request.getRadiusKm() > MAX_RADIUS_KM))
+                || !(sort.equals("relevance") || (sort.equals("distance") && hasPosition))) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!searchIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        return ResponseEntity.ok(locationService.searchLocations(new LocationSearchIndex.Criteria(
+                request.getQ(), request.getLatitude(), request.getLongitude(), request.getRadiusKm(),
+                request.getMinPrice(), request.getMaxPrice(), request.getMinCapacity(),
+                sort.equals("distance"), limit)));
+    }
+
+    /**
+     * Filter locations with any combination of criteria, in one query.
+     * Results are always paged in ID order: at most limit locations per
+     * response, with an X-Next-Cursor header when more exist.
      *
-     * Example: GET /api/locations/filter?minPrice=5&maxPrice=15&minCapacity=20
+     * Example: GET /api/locations/filter?city=Paris&minPrice=5&maxPrice=15&openNow=true&timeZone=Europe/Paris
      *
      * @param minPrice    Minimum price per hour (optional)
      * @param maxPrice    Maximum price per hour (optional)
      * @param minCapacity Minimum capacity (optional)
      * @param city        City filter (optional)
-     * @return List of filtered active locations
+     * @param hostId      Owning host (optional)
+     * @param active      Active or inactive locations (default true)
+     * @param openAt      Open at this local time of day, HH:mm (optional)
+     * @param openNow     Open right now in timeZone (optional)
+     * @param timeZone    IANA time zone for openNow (default server zone)
+     * @param limit       Page size (default 20, max 100)
+     * @param cursor      X-Next-Cursor of the previous page (optional)
+     * @return One page of matching locations
      */
     @GetMapping("/filter")
     public ResponseEntity<List<LocationResponse>> filterLocations(
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) Integer minCapacity,
-            @RequestParam(required = false) String city) {
-
-        List<LocationResponse> locations;
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) UUID hostId,
+            @RequestParam(defaultValue = "true") boolean active,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "HH:mm") LocalTime openAt,
+            @RequestParam(defaultValue = "false") boolean openNow,
+            @RequestParam(required = false) String timeZone,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor) {
+        if (!isValidPageSize(limit)
+                || (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0)
+                || (openNow && openAt != null)) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        // Apply filters based on provided parameters
-        if (city != null && !city.isEmpty()) {
-            locations = locationService.getLocationsByCity(city);
-        } else if (minPrice != null && maxPrice != null) {
-            locations = locationService.filterByPriceRange(minPrice, maxPrice);
-        } else if (minCapacity != null) {
-            locations = locationService.filterByCapacity(minCapacity);
-        } else {
-            locations = locationService.getAllLocations(PageRequest.of(0, Integer.MAX_VALUE)).getContent();
+        if (openNow) {
+            try {
+                openAt = LocalTime.now(timeZone != null ? ZoneId.of(timeZone) : ZoneId.systemDefault());
+            } catch (DateTimeException e) {
+                return ResponseEntity.badRequest().build();
+            }
         }
 
-        return ResponseEntity.ok(locations);
+        LocationFilter filter = new LocationFilter(
+                city != null && !city.isEmpty() ? city : null,
+                minPrice, maxPrice, minCapacity, active, hostId, openAt);
+        return pageResponse(locationService.filterLocationsPage(filter, limit, PageCursor.decode(cursor)));
     }
 
     /**
@@ -260,18 +622,304 @@ public class LocationController {
         Double latitude = ((Number) params.get("latitude")).doubleValue();
         Double longitude = ((Number) params.get("longitude")).doubleValue();
         Double radiusKm = params.containsKey("radiusKm") ? ((Number) params.get("radiusKm")).doubleValue() : 5.0;
+        if (!isValidRadius(radiusKm)) {
+            return ResponseEntity.badRequest().build();
+        }
 
         BigDecimal minPrice = params.containsKey("minPrice") ? new BigDecimal(params.get("minPrice").toString()) : null;
         BigDecimal maxPrice = params.containsKey("maxPrice") ? new BigDecimal(params.get("maxPrice").toString()) : null;
         Integer minCapacity = params.containsKey("minCapacity") ? ((Number) params.get("minCapacity")).intValue()
                 : null;
 
+        // Availability mode: only locations with room during the time window
+        if (params.containsKey("startTime") || params.containsKey("endTime")) {
+            Instant start;
+            Instant end;
+            try {
+                start = Instant.parse(params.get("startTime").toString());
+                end = Instant.parse(params.get("endTime").toString());
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().build();
+            }
+            int bags = params.containsKey("bags") ? ((Number) params.get("bags")).intValue() : 1;
+            if (!isValidWindow(start, end, bags)) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(locationService.findAvailableNearby(
+                    latitude, longitude, radiusKm, minPrice, maxPrice, minCapacity, start, end, bags));
+        }
+
+        // Cursor mode: one page at a time, next page cursor in X-Next-Cursor
+        if (params.containsKey("limit")) {
+            int limit = ((Number) params.get("limit")).intValue();
+            if (!isValidPageSize(limit)) {
+                return ResponseEntity.badRequest().build();
+            }
+            String cursor = params.containsKey("cursor") ? params.get("cursor").toString() : null;
+            return pageResponse(locationService.findNearbyPage(
+                    latitude, longitude, radiusKm, minPrice, maxPrice, minCapacity, limit, PageCursor.decode(cursor)));
+        }
+
         List<LocationResponse> locations = locationService.findNearbyWithFilters(
                 latitude, longitude, radiusKm, minPrice, maxPrice, minCapacity);
 
         return ResponseEntity.ok(locations);
     }
 
+    /**
+     * Find locations near several points at once, e.g. the stops of an
+     * itinerary. Each origin has its own radius; a location near several
+     * origins is listed once with its distance to each of them.
+     *
+     * Example: POST /api/locations/nearby/batch
+     * Body: {
+     * "origins": [
+     * { "latitude": 48.8443, "longitude": 2.3744, "radiusKm": 1.0 },
+     * { "latitude": 48.8606, "longitude": 2.3376, "radiusKm": 2.0 }
+     * ],
+     * "minCapacity": 10
+     * }
+     *
+     * @param request Origins and optional filters
+     * @return Locations ordered by distance to their nearest origin
+     */
+    @PostMapping("/nearby/batch")
+    public ResponseEntity<List<MultiOriginLocationResponse>> findNearAnyOrigin(
+            @RequestBody MultiOriginNearbyRequest request) {
+        if (request.getOrigins() == null || request.getOrigins().isEmpty()
+                || request.getOrigins().size() > MAX_ORIGINS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<LocationSpatialIndex.Origin> origins = new ArrayList<>(request.getOrigins().size());
+        for (MultiOriginNearbyRequest.Origin origin : request.getOrigins()) {
+            Double radius = origin.getRadiusKm() != null ? origin.getRadiusKm() : 5.0;
+            if (origin.getLatitude() == null || origin.getLongitude() == null
+                    || radius <= 0 || radius > MAX_RADIUS_KM) {
+                return ResponseEntity.badRequest().build();
+            }
+            origins.add(new LocationSpatialIndex.Origin(origin.getLatitude(), origin.getLongitude(), radius));
+        }
+
+        return ResponseEntity.ok(locationService.findNearAnyOrigin(
+                origins, request.getMinPrice(), request.getMaxPrice(), request.getMinCapacity()));
+    }
+
+    /**
+     * Find locations along a route, e.g. "on my way from the station to the
+     * old town". The route is an encoded polyline as returned by common
+     * directions APIs.
+     *
+     * Example: POST /api/locations/corridor
+     * Body: {
+     * "polyline": "_p~iF~ps|U_ulLnnqC_mqNvxq`@",
+     * "bufferKm": 0.3,
+     * "minCapacity": 5
+     * }
+     *
+     * @param request Route, buffer width and optional filters
+     * @return Locations within the buffer, ordered by distance along the route
+     */
+    @PostMapping("/corridor")
+    public ResponseEntity<List<CorridorLocationResponse>> findAlongRoute(@RequestBody CorridorSearchRequest request) {
+        double buffer = request.getBufferKm() != null ? request.getBufferKm() : 0.3;
+        if (request.getPolyline() == null || buffer <= 0 || buffer > MAX_BUFFER_KM) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Polyline.Point> route;
+        try {
+            route = Polyline.decode(request.getPolyline());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (route.size() < 2 || route.size() > MAX_ROUTE_POINTS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(locationService.findAlongRoute(
+                route, buffer, request.getMinPrice(), request.getMaxPrice(), request.getMinCapacity()));
+    }
+
+    /**
+     * Find locations within a walking time of the user, using the offline
+     * road graph. Responds 503 if no graph is loaded.
+     *
+     * Example: POST /api/locations/walkable
+     * Body: {
+     * "latitude": 41.9028,
+     * "longitude": 12.4964,
+     * "maxMinutes": 10,
+     * "minCapacity": 5
+     * }
+     *
+     * @param request Start point, time budget and optional filters
+     * @return Reachable locations ordered by walking time
+     */
+    @PostMapping("/walkable")
+    public ResponseEntity<List<LocationResponse>> findWalkable(@RequestBody WalkableSearchRequest request) {
+        double maxMinutes = request.getMaxMinutes() != null ? request.getMaxMinutes() : 10.0;
+        if (request.getLatitude() == null || request.getLongitude() == null
+                || maxMinutes <= 0 || maxMinutes > MAX_WALKING_MINUTES) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!walkingRouter.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        return ResponseEntity.ok(locationService.findWithinWalkingTime(
+                request.getLatitude(), request.getLongitude(), maxMinutes,
+                request.getMinPrice(), request.getMaxPrice(), request.getMinCapacity()));
+    }
+
+    /**
+     * Stream nearby locations with optional filters, closest first.
+     * Results are written while the search is still running, as
+     * newline-delimited JSON by default or as Server-Sent Events when the
+     * client accepts text/event-stream.
+     *
+     * Example: POST /api/locations/nearby/stream
+     * Body: {
+     * "latitude": 40.7128,
+     * "longitude": -74.0060,
+     * "radiusKm": 25.0,
+     * "minPrice": 5.0,
+     * "minCapacity": 20
+     * }
+     *
+     * @param request Search origin, radius and optional filters
+     * @param accept  Accept header of the request
+     * @return Stream of locations ordered by distance
+     */
+    @PostMapping("/nearby/stream")
+    public ResponseEntity<StreamingResponseBody> streamNearbyLocations(
+            @RequestBody NearbyLocationRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (request.getLatitude() == null || request.getLongitude() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        Double radius = request.getRadiusKm() != null ? request.getRadiusKm() : 5.0;
+        if (radius <= 0 || radius > MAX_RADIUS_KM) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+        StreamingResponseBody body = out -> {
+            try {
+                locationService.streamNearbyWithFilters(
+                        request.getLatitude(),
+                        request.getLongitude(),
+                        radius,
+                        request.getMinPrice(),
+                        request.getMaxPrice(),
+                        request.getMinCapacity(),
+                        batch -> writeBatch(out, batch, sse));
+                if (sse) {
+                    out.write("event: end\ndata: {}\n\n".getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (UncheckedIOException e) {
+                // Client went away, stop searching
+                throw e.getCause();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(sse ? MediaType.TEXT_EVENT_STREAM : NDJSON)
+                .cacheControl(CacheControl.noStore())
+                .body(body);
+    }
+
+    private static boolean isValidRadius(double radiusKm) {
+        return radiusKm > 0 && radiusKm <= MAX_RADIUS_KM;
+    }
+
+    private static boolean isValidWindow(Instant start, Instant end, int bags) {
+        return start != null && end != null && end.isAfter(start) && bags >= 1;
+    }
+
+    private static boolean isValidPageSize(int limit) {
+        return limit >= 1 && limit <= MAX_PAGE_SIZE;
+    }
+
+    /**
+     * Parses a slot length such as 15m or 2h.
+     *
+     * @return The length, or null if malformed
+     */
+    private static Duration parseSlot(String slot) {
+        Matcher matcher = SLOT_PATTERN.matcher(slot.strip());
+        if (!matcher.matches()) {
+            return null;
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return matcher.group(2).equals("h") ? Duration.ofHours(amount) : Duration.ofMinutes(amount);
+    }
+
+    /**
+     * Returns the page items as the body and the next page cursor, if any,
+     * in the X-Next-Cursor header.
+     */
+    private static ResponseEntity<List<LocationResponse>> pageResponse(CursorPage<LocationResponse> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * Writes one batch of streamed results and flushes it to the client.
+     */
+    private void writeBatch(OutputStream out, List<LocationResponse> batch, boolean sse) {
+        try {
+            for (LocationResponse location : batch) {
+                if (sse) {
+                    out.write("data: ".getBytes(StandardCharsets.UTF_8));
+                    out.write(objectMapper.writeValueAsBytes(location));
+                    out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+                } else {
+                    out.write(objectMapper.writeValueAsBytes(location));
+                    out.write('\n');
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get hit, miss and eviction counters of the nearby search cache.
+     *
+     * Example: GET /api/locations/nearby/cache-stats
+     *
+     * @return Cache counters since startup
+     */
+    @GetMapping("/nearby/cache-stats")
+    public ResponseEntity<NearbyCacheStats> getNearbyCacheStats() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(nearbyResultCache.stats());
+    }
+
+    /**
+     * Get the size of the in-memory location catalog, including its
+     * estimated memory footprint per location.
+     *
+     * Example: GET /api/locations/catalog/stats
+     *
+     * @return Catalog size
+     */
+    @GetMapping("/catalog/stats")
+    public ResponseEntity<CatalogStats> getCatalogStats() {
+        if (!locationCatalog.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(locationCatalog.stats());
+    }
+
     /**
      * Get all unique cities with locations.
      *
@@ -285,6 +933,22 @@ public class LocationController {
         return ResponseEntity.ok(cities);
     }
 
+    /**
+     * Get the cities with active locations, with how many there are and
+     * the area they cover, for jumping the map to a city.
+     *
+     * Example: GET /api/locations/cities/summary
+     *
+     * @return Cities in alphabetical order
+     */
+    @GetMapping("/cities/summary")
+    public ResponseEntity<List<CitySummary>> getCitySummaries() {
+        if (!cityDirectory.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(cityDirectory.citySummaries());
+    }
+
     /**
      * Get locations by city.
      *
@@ -300,17 +964,24 @@ public class LocationController {
     }
 
     /**
-     * Get popular locations based on booking count.
+     * Get popular locations based on booking count over the last 24 hours,
+     * the last 7 days or all time.
      *
-     * Example: GET /api/locations/popular?limit=10
+     * Example: GET /api/locations/popular?limit=10&window=7d
      *
-     * @param limit Maximum number of locations to return (default: 10)
+     * @param limit  Maximum number of locations to return (default: 10)
+     * @param window "24h", "7d" or "all" (default: all)
      * @return List of popular locations
      */
     @GetMapping("/popular")
     public ResponseEntity<List<LocationResponse>> getPopularLocations(
-            @RequestParam(required = false, defaultValue = "10") Integer limit) {
-        List<LocationResponse> locations = locationService.getPopularLocations(limit);
+            @RequestParam(required = false, defaultValue = "10") Integer limit,
+            @RequestParam(required = false, defaultValue = "all") String window) {
+        PopularityWindow popularityWindow = PopularityWindow.fromParam(window);
+        if (popularityWindow == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<LocationResponse> locations = locationService.getPopularLocations(limit, popularityWindow);
         return ResponseEntity.ok(locations);
     }
 
@@ -343,6 +1014,83 @@ public class LocationController {
         }
     }
 
+    /**
+     * Free bag capacity per time slot of a location, for a calendar or
+     * heatmap over a day or a week. Slots follow a grid starting at
+     * midnight UTC; from and to are widened to it.
+     *
+     * Example: GET /api/locations/{id}/calendar?from=2025-01-20T00:00:00Z&to=2025-01-27T00:00:00Z&slot=1h
+     *
+     * @param id   Location ID
+     * @param from Calendar start (ISO 8601 format)
+     * @param to   Calendar end (ISO 8601 format)
+     * @param slot Slot length in minutes or hours, e.g. 15m or 1h; must divide a day
+     * @return Free bags per slot
+     */
+    @GetMapping("/{id}/calendar")
+    public ResponseEntity<AvailabilityCalendarResponse> getAvailabilityCalendar(
+            @PathVariable UUID id,
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(defaultValue = "15m") String slot) {
+        Instant start;
+        Instant end;
+        try {
+            start = Instant.parse(from);
+            end = Instant.parse(to);
+        } catch (DateTimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Duration slotLength = parseSlot(slot);
+        if (slotLength == null || !AvailabilityCalendar.isValidSlot(slotLength) || !end.isAfter(start)
+                || Duration.between(start, end).compareTo(MAX_CALENDAR_RANGE) > 0
+                || Duration.between(start, end).toMillis() / slotLength.toMillis() > MAX_CALENDAR_SLOTS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(locationService.getAvailabilityCalendar(id, start, end, slotLength));
+    }
+
+    /**
+     * Check many locations for room for some bags over one or more time
+     * windows at once, e.g. every pin shown on the map, in one round trip.
+     *
+     * Example: POST /api/locations/availability
+     * Body: {
+     * "locationIds": ["aaaaaaaa-aaaa-aaaa-aaaa-aaaaaaaaaaaa", "bbbbbbbb-bbbb-bbbb-bbbb-bbbbbbbbbbbb"],
+     * "windows": [
+     * { "startTime": "2025-01-20T10:00:00Z", "endTime": "2025-01-20T16:00:00Z" },
+     * { "startTime": "2025-01-21T10:00:00Z", "endTime": "2025-01-21T16:00:00Z" }
+     * ],
+     * "bags": 2
+     * }
+     *
+     * @param request Location IDs, time windows and bags
+     * @return Availability per location and window, in request order
+     */
+    @PostMapping("/availability")
+    public ResponseEntity<List<LocationAvailability>> checkAvailabilityBatch(
+            @RequestBody AvailabilityBatchRequest request) {
+        int bags = request.getBags() != null ? request.getBags() : 1;
+        if (request.getLocationIds() == null || request.getLocationIds().isEmpty()
+                || request.getLocationIds().size() > MAX_AVAILABILITY_LOCATIONS
+                || request.getLocationIds().contains(null)
+                || request.getWindows() == null || request.getWindows().isEmpty()
+                || request.getWindows().size() > MAX_AVAILABILITY_WINDOWS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<OccupancyIndex.Window> windows = new ArrayList<>(request.getWindows().size());
+        for (AvailabilityBatchRequest.Window window : request.getWindows()) {
+            if (window == null || !isValidWindow(window.getStartTime(), window.getEndTime(), bags)) {
+                return ResponseEntity.badRequest().build();
+            }
+            windows.add(new OccupancyIndex.Window(window.getStartTime(), window.getEndTime()));
+        }
+
+        return ResponseEntity.ok(locationService.checkAvailability(request.getLocationIds(), windows, bags));
+    }
+
     /**
      * Toggle location active/inactive status.
      * Only the host who owns the location can toggle its status.
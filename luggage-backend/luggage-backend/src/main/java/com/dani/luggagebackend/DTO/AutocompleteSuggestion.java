@@ -0,0 +1,21 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One search box suggestion.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AutocompleteSuggestion {
+    private String text; // Name, address or city as stored
+    private String type; // LOCATION, ADDRESS or CITY
+    private UUID locationId; // Location to open; null for cities
+}
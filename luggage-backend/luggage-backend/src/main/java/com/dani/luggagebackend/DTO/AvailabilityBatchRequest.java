@@ -0,0 +1,29 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Availability check for several locations over several time windows at once.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailabilityBatchRequest {
+    private List<UUID> locationIds;
+    private List<Window> windows;
+    private Integer bags = 1; // Bags to store, checked in every window
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Window {
+        private Instant startTime;
+        private Instant endTime;
+    }
+}
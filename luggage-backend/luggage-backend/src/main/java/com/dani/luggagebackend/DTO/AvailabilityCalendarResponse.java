@@ -0,0 +1,27 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Free bags per time slot at a location, e.g. for a calendar or heatmap.
+ * Slot i covers [from + i * slotMinutes, from + (i + 1) * slotMinutes).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AvailabilityCalendarResponse {
+    private UUID locationId;
+    private Integer capacity;
+    private Instant from; // Start of the first slot
+    private Instant to; // End of the last slot
+    private Integer slotMinutes;
+    private List<Integer> remainingBags; // Per slot, in time order; 0 throughout for inactive locations
+}
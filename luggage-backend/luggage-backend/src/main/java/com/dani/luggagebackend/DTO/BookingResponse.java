@@ -20,7 +20,9 @@ public class BookingResponse {
     private Instant startTime;
     private Instant endTime;
     private Long priceCents;
+    private Integer bags;
     private Booking.BookingStatus status;
+    private Instant expiresAt; // PENDING bookings are cancelled at this time unless confirmed first
 
     @Data
     @AllArgsConstructor
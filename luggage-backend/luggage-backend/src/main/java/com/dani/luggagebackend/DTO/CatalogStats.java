@@ -0,0 +1,20 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Size of the in-memory location catalog.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CatalogStats {
+    private Integer locations;
+    private Integer cities;         // Entries in the city dictionary
+    private Long bytes;             // Estimated heap footprint
+    private Long bytesPerLocation;
+}
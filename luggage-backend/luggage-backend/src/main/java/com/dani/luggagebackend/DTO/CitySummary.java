@@ -0,0 +1,22 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A city with active locations and the area they cover.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CitySummary {
+    private String name;
+    private Integer activeLocations;
+    private Double south;
+    private Double west;
+    private Double north;
+    private Double east;
+}
@@ -0,0 +1,18 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A location found along a route.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CorridorLocationResponse {
+    private LocationResponse location; // distanceKm is the distance from the route
+    private Double alongRouteKm; // Route distance from the start to where the location is passed
+}
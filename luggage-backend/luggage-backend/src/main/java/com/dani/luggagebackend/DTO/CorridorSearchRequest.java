@@ -0,0 +1,21 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Search for locations along a route given as an encoded polyline.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CorridorSearchRequest {
+    private String polyline; // Encoded polyline (precision 5), e.g. from a directions API
+    private Double bufferKm = 0.3; // Maximum distance from the route
+    private BigDecimal minPrice; // Optional filters
+    private BigDecimal maxPrice;
+    private Integer minCapacity;
+}
@@ -0,0 +1,23 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One row of a batch availability check: whether a location has room for
+ * the bags in each requested window.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LocationAvailability {
+    private UUID locationId;
+    private List<Boolean> available; // Per window, in request order
+    private List<Long> remainingBags; // Per window, in request order; null for unknown or inactive locations
+}
@@ -24,6 +24,7 @@ public class LocationResponse {
     private String hours;
     private Boolean isActive;
     private Double distanceKm; // Distance from user's location
+    private Double walkingMinutes; // Walking time from user's location (only with the offline router)
     private HostInfo host; // Information about the host
     private Double rating;
     private java.util.List<ReviewResponse> reviews;
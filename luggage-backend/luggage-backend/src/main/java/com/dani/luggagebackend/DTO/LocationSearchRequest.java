@@ -0,0 +1,25 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Combined text, distance and filter search.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LocationSearchRequest {
+    private String q; // Free text matched against name, address and city; blank matches everything
+    private Double latitude; // Optional search origin
+    private Double longitude;
+    private Double radiusKm; // Optional, needs latitude and longitude
+    private BigDecimal minPrice; // Optional filters
+    private BigDecimal maxPrice;
+    private Integer minCapacity;
+    private String sort = "relevance"; // "relevance" or "distance"
+    private Integer limit = 20; // Maximum number of results
+}
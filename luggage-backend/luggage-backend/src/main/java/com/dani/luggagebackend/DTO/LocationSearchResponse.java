@@ -0,0 +1,32 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Results of a combined search with price and capacity counts over all
+ * matches.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LocationSearchResponse {
+    private List<LocationResponse> results; // Best matches, up to the requested limit
+    private Long totalHits; // Number of matching locations
+    private List<FacetCount> priceFacets; // Matches per price-per-hour range
+    private List<FacetCount> capacityFacets; // Matches per capacity range
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    public static class FacetCount {
+        private String label;
+        private Long count;
+    }
+}
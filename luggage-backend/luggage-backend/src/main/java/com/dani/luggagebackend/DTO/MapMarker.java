@@ -0,0 +1,26 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Compact representation of a single location on the map.
+ * Carries only what a pin needs; full details come from /api/locations/{id}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MapMarker {
+    private UUID id;
+    private String name;
+    private Double latitude;
+    private Double longitude;
+    private BigDecimal pricePerHour;
+    private Integer capacity;
+}
@@ -0,0 +1,22 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Group of nearby locations drawn as one marker when the map is zoomed out.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MarkerCluster {
+    private Double latitude; // Centroid of the clustered locations
+    private Double longitude;
+    private Integer count;
+    private BigDecimal minPricePerHour;
+}
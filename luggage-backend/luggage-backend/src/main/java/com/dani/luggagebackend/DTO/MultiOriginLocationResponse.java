@@ -0,0 +1,22 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A location found by a multi-origin search, listed once even when it is
+ * near several origins.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MultiOriginLocationResponse {
+    private LocationResponse location; // distanceKm is the distance to the nearest origin
+    private Integer nearestOrigin; // Index of the nearest origin in the request
+    private List<Double> distancesKm; // Per origin, in request order; null when out of that origin's radius
+}
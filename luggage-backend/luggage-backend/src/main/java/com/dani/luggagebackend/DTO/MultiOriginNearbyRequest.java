@@ -0,0 +1,30 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Nearby search around several points of an itinerary at once.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MultiOriginNearbyRequest {
+    private List<Origin> origins;
+    private BigDecimal minPrice; // Optional filters, applied to all origins
+    private BigDecimal maxPrice;
+    private Integer minCapacity;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Origin {
+        private Double latitude;
+        private Double longitude;
+        private Double radiusKm = 5.0; // Default radius of 5 km
+    }
+}
@@ -0,0 +1,22 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counters of the nearby search result cache since startup.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NearbyCacheStats {
+    private Integer size;
+    private Long hits;
+    private Long misses;
+    private Double hitRate;
+    private Long evictions;
+    private Long invalidations;
+}
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -11,4 +14,14 @@ public class NearbyLocationRequest {
     private Double latitude;
     private Double longitude;
     private Double radiusKm = 5.0; // Default radius of 5 km
+    private Integer k; // Optional: return only the k closest locations
+    private Double maxRadiusKm; // Optional: how far a k search may widen
+    private BigDecimal minPrice; // Optional: only used by /nearby/stream
+    private BigDecimal maxPrice; // Optional: only used by /nearby/stream
+    private Integer minCapacity; // Optional: only used by /nearby/stream
+    private Integer limit; // Optional: page size, enables cursor pagination
+    private String cursor; // Optional: X-Next-Cursor of the previous page
+    private Instant startTime; // Optional: only return locations free from startTime...
+    private Instant endTime; // ...to endTime
+    private Integer bags; // Optional: bags to store in that window (default 1)
 }
\ No newline at end of file
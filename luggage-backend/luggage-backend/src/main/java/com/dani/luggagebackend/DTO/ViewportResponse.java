@@ -0,0 +1,22 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Map content for a viewport: individual markers where locations are far
+ * enough apart, clusters where they would overlap at the requested zoom.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ViewportResponse {
+    private Integer zoom;
+    private List<MapMarker> locations;
+    private List<MarkerCluster> clusters;
+}
@@ -0,0 +1,22 @@
+package com.dani.luggagebackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Search for locations within a walking time of the user.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WalkableSearchRequest {
+    private Double latitude;
+    private Double longitude;
+    private Double maxMinutes = 10.0; // Walking time budget
+    private BigDecimal minPrice; // Optional filters
+    private BigDecimal maxPrice;
+    private Integer minCapacity;
+}
@@ -2,8 +2,10 @@ package com.dani.luggagebackend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class    LuggageBackendApplication {
 
     public static void main(String[] args) {
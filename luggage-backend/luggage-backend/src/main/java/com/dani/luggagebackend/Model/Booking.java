@@ -17,7 +17,9 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_location_time", columnList = "location_id, start_time, end_time")
+})
 
 public class Booking {
 
@@ -46,6 +48,25 @@ public class Booking {
     @Builder.Default
     private BookingStatus status = BookingStatus.PENDING;
 
+    // Number of bags stored, counted against the location's capacity
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer bags = 1;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    // PENDING bookings are cancelled at this time unless acted on first
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+
     public enum BookingStatus {
         PENDING,
         CONFIRMED,
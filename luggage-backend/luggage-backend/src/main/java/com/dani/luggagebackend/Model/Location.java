@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.LocalTime;
 import java.util.UUID;
 
 @Data
@@ -37,6 +38,12 @@ public class Location {
 
     private String hours;
 
+    // Daily window parsed from hours, for "open now" filtering (null if not understood)
+    @Column(name = "opens_at")
+    private LocalTime opensAt;
+    @Column(name = "closes_at")
+    private LocalTime closesAt;
+
     @Column(name = "is_active")
     @Builder.Default
     private Boolean isActive = true;
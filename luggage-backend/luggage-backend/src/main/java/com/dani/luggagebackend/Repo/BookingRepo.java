@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -29,4 +31,229 @@ public interface BookingRepo extends JpaRepository<Booking, UUID> {
      */
     @Query("SELECT b FROM Booking b WHERE b.location.host.id = :hostId ORDER BY b.startTime DESC")
     List<Booking> findByLocationHostId(@Param("hostId") UUID hostId);
+
+    /**
+     * Finds the bookings of one location overlapping a half-open time
+     * window, earliest first. Answered by a range scan over the
+     * (location_id, period) GiST index.
+     *
+     * @param locationId Location ID
+     * @param startTime  Window start
+     * @param endTime    Window end
+     * @return Overlapping bookings in any status
+     */
+    @Query(value = """
+        SELECT b.* FROM bookings b
+        WHERE b.location_id = :locationId
+        AND b.period && tstzrange(CAST(:startTime AS timestamptz), CAST(:endTime AS timestamptz), '[)')
+        ORDER BY b.start_time
+        """, nativeQuery = true)
+    List<Booking> findOverlappingByLocation(
+        @Param("locationId") UUID locationId,
+        @Param("startTime") Instant startTime,
+        @Param("endTime") Instant endTime
+    );
+
+    /**
+     * Finds the time intervals and bag counts of one location's bookings
+     * in the given statuses that end after a point in time, without
+     * loading the bookings themselves.
+     *
+     * @param locationId Location ID
+     * @param statuses   Names of the booking statuses to include
+     * @param since      Bookings ending at or before this are left out
+     * @return One row per booking
+     */
+    @Query(value = """
+        SELECT b.id AS "id", b.start_time AS "startTime", b.end_time AS "endTime", b.bags AS "bags"
+        FROM bookings b
+        WHERE b.location_id = :locationId
+        AND b.status IN (:statuses)
+        AND b.period && tstzrange(CAST(:since AS timestamptz), NULL, '()')
+        """, nativeQuery = true)
+    List<BookingInterval> findIntervalsByLocation(
+        @Param("locationId") UUID locationId,
+        @Param("statuses") Collection<String> statuses,
+        @Param("since") Instant since
+    );
+
+    /**
+     * Finds the time intervals and bag counts of one location's bookings
+     * in the given statuses overlapping a half-open time window.
+     *
+     * @param locationId Location ID
+     * @param statuses   Names of the booking statuses to include
+     * @param startTime  Window start
+     * @param endTime    Window end
+     * @return One row per booking
+     */
+    @Query(value = """
+        SELECT b.id AS "id", b.start_time AS "startTime", b.end_time AS "endTime", b.bags AS "bags"
+        FROM bookings b
+        WHERE b.location_id = :locationId
+        AND b.status IN (:statuses)
+        AND b.period && tstzrange(CAST(:startTime AS timestamptz), CAST(:endTime AS timestamptz), '[)')
+        """, nativeQuery = true)
+    List<BookingInterval> findIntervalsOverlapping(
+        @Param("locationId") UUID locationId,
+        @Param("statuses") Collection<String> statuses,
+        @Param("startTime") Instant startTime,
+        @Param("endTime") Instant endTime
+    );
+
+    /**
+     * Finds the time intervals and bag counts of several locations'
+     * bookings in the given statuses that end after a point in time, in
+     * one query.
+     *
+     * @param locationIds Location IDs
+     * @param statuses    Names of the booking statuses to include
+     * @param since       Bookings ending at or before this are left out
+     * @return One row per booking
+     */
+    @Query(value = """
+        SELECT b.location_id AS "locationId", b.id AS "id", b.start_time AS "startTime",
+            b.end_time AS "endTime", b.bags AS "bags"
+        FROM bookings b
+        WHERE b.location_id IN (:locationIds)
+        AND b.status IN (:statuses)
+        AND b.period && tstzrange(CAST(:since AS timestamptz), NULL, '()')
+        """, nativeQuery = true)
+    List<LocatedBookingInterval> findIntervalsByLocationIn(
+        @Param("locationIds") Collection<UUID> locationIds,
+        @Param("statuses") Collection<String> statuses,
+        @Param("since") Instant since
+    );
+
+    /**
+     * Counts all bookings per location, as a popularity signal.
+     *
+     * @return Booking count per location (locations without any are omitted)
+     */
+    @Query("SELECT b.location.id AS locationId, COUNT(b) AS bookings FROM Booking b GROUP BY b.location.id")
+    List<LocationBookingCount> countByLocation();
+
+    /**
+     * Counts bookings in the given statuses per location.
+     *
+     * @param statuses Booking statuses to count
+     * @return Booking count per location (locations without any are omitted)
+     */
+    @Query("""
+        SELECT b.location.id AS locationId, COUNT(b) AS bookings FROM Booking b
+        WHERE b.status IN :statuses
+        GROUP BY b.location.id
+        """)
+    List<LocationBookingCount> countByLocationAndStatusIn(
+        @Param("statuses") Collection<Booking.BookingStatus> statuses
+    );
+
+    /**
+     * Finds the location and creation time of bookings made since a point
+     * in time.
+     *
+     * @param since    Earliest creation time
+     * @param statuses Booking statuses to include
+     * @return One row per booking
+     */
+    @Query("""
+        SELECT b.location.id AS locationId, b.createdAt AS createdAt FROM Booking b
+        WHERE b.createdAt >= :since
+        AND b.status IN :statuses
+        """)
+    List<BookingCreation> findCreatedSince(
+        @Param("since") Instant since,
+        @Param("statuses") Collection<Booking.BookingStatus> statuses
+    );
+
+    /**
+     * Finds the expiry deadlines of PENDING bookings that have one, from
+     * the partial index on them rather than the bookings table.
+     *
+     * @return One row per booking
+     */
+    @Query(value = """
+        SELECT b.id AS "id", b.expires_at AS "expiresAt" FROM bookings b
+        WHERE b.status = 'PENDING' AND b.expires_at IS NOT NULL
+        """, nativeQuery = true)
+    List<PendingDeadline> findPendingDeadlines();
+
+    /**
+     * Cancels the given bookings that are still PENDING past their expiry
+     * deadline, in one statement, and returns the ones it cancelled.
+     *
+     * @param bookingIds Booking IDs due to expire
+     * @param now        Current time; later deadlines are left alone
+     * @return One row per cancelled booking, as it is now
+     */
+    @Query(value = """
+        UPDATE bookings SET status = 'CANCELLED', expires_at = NULL
+        WHERE id IN (:bookingIds)
+        AND status = 'PENDING'
+        AND expires_at <= CAST(:now AS timestamptz)
+        RETURNING id AS "id", location_id AS "locationId", user_id AS "userId",
+            start_time AS "startTime", end_time AS "endTime", bags AS "bags", created_at AS "createdAt"
+        """, nativeQuery = true)
+    List<ExpiredBooking> expirePending(
+        @Param("bookingIds") Collection<UUID> bookingIds,
+        @Param("now") Instant now
+    );
+
+    /**
+     * Total booking count of one location.
+     */
+    interface LocationBookingCount {
+        UUID getLocationId();
+
+        long getBookings();
+    }
+
+    /**
+     * Time interval and bag count of one booking.
+     */
+    interface BookingInterval {
+        UUID getId();
+
+        Instant getStartTime();
+
+        Instant getEndTime();
+
+        int getBags();
+    }
+
+    /**
+     * Time interval and bag count of one booking, with its location.
+     */
+    interface LocatedBookingInterval extends BookingInterval {
+        UUID getLocationId();
+    }
+
+    /**
+     * Expiry deadline of one PENDING booking.
+     */
+    interface PendingDeadline {
+        UUID getId();
+
+        Instant getExpiresAt();
+    }
+
+    /**
+     * A booking cancelled on expiry.
+     */
+    interface ExpiredBooking extends BookingInterval {
+        UUID getLocationId();
+
+        UUID getUserId();
+
+        Instant getCreatedAt();
+    }
+
+    /**
+     * When a booking for a location was made.
+     */
+    interface BookingCreation {
+        UUID getLocationId();
+
+        Instant getCreatedAt();
+    }
 }
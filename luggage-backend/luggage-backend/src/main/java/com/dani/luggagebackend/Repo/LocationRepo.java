@@ -1,17 +1,38 @@
 package com.dani.luggagebackend.Repo;
 
 import com.dani.luggagebackend.Model.Location;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * Location queries. Every query whose results are turned into responses
+ * loads the host in the same statement, since each response includes
+ * the host's name and email.
+ */
 @Repository
-public interface LocationRepo extends JpaRepository<Location, UUID> {
+public interface LocationRepo extends JpaRepository<Location, UUID>, JpaSpecificationExecutor<Location> {
+
+    /**
+     * Gets one page of locations with their hosts.
+     *
+     * @param pageable Pagination information
+     * @return Page of locations
+     */
+    @Override
+    @EntityGraph(attributePaths = "host")
+    Page<Location> findAll(Pageable pageable);
 
     /**
      * Finds all locations within a given radius using the Haversine formula.
@@ -41,12 +62,22 @@ public interface LocationRepo extends JpaRepository<Location, UUID> {
         @Param("radiusKm") Double radiusKm
     );
 
+    /**
+     * Loads locations by ID together with their host in a single query.
+     *
+     * @param ids Location IDs
+     * @return Locations found, in no particular order
+     */
+    @Query("SELECT l FROM Location l LEFT JOIN FETCH l.host WHERE l.id IN :ids")
+    List<Location> findAllWithHostByIdIn(@Param("ids") Collection<UUID> ids);
+
     /**
      * Finds all locations owned by a specific host.
      *
      * @param hostId The host's user ID
      * @return List of locations owned by the host
      */
+    @EntityGraph(attributePaths = "host")
     List<Location> findByHostId(UUID hostId);
 
     /**
@@ -56,6 +87,17 @@ public interface LocationRepo extends JpaRepository<Location, UUID> {
      */
     List<Location> findByIsActiveTrue();
 
+    /**
+     * Finds active locations inside a lat/lng bounding box.
+     *
+     * @param south Southern latitude
+     * @param north Northern latitude
+     * @param west Western longitude
+     * @param east Eastern longitude
+     * @return List of active locations inside the box
+     */
+    List<Location> findByIsActiveTrueAndLatBetweenAndLngBetween(Double south, Double north, Double west, Double east);
+
     /**
      * Search locations by name or address (case-insensitive).
      *
@@ -67,12 +109,18 @@ public interface LocationRepo extends JpaRepository<Location, UUID> {
 
     /**
      * Search active locations by name or address (case-insensitive).
+     * Used until the search index has loaded.
      *
-     * @param name Keyword to search in name
-     * @param address Keyword to search in address
+     * @param keyword Keyword to search in name and address
      * @return List of active locations matching the search
      */
-    List<Location> findByIsActiveTrueAndNameContainingIgnoreCaseOrAddressContainingIgnoreCase(String name, String address);
+    @Query("""
+        SELECT l FROM Location l LEFT JOIN FETCH l.host
+        WHERE l.isActive = true
+        AND (LOWER(l.name) LIKE LOWER(CONCAT('%', :keyword, '%'))
+            OR LOWER(l.address) LIKE LOWER(CONCAT('%', :keyword, '%')))
+        """)
+    List<Location> searchActiveByKeyword(@Param("keyword") String keyword);
 
     /**
      * Filter locations by price range.
@@ -105,8 +153,16 @@ public interface LocationRepo extends JpaRepository<Location, UUID> {
      * @param city City name
      * @return List of active locations in the city
      */
+    @EntityGraph(attributePaths = "host")
     List<Location> findByIsActiveTrueAndCityIgnoreCase(String city);
 
+    /**
+     * Find locations whose opening window has not been derived from their hours.
+     *
+     * @return Locations with hours text but no opening time
+     */
+    List<Location> findByHoursIsNotNullAndOpensAtIsNull();
+
     /**
      * Get all unique cities.
      *
@@ -116,18 +172,19 @@ public interface LocationRepo extends JpaRepository<Location, UUID> {
     List<String> findAllCities();
 
     /**
-     * Find most popular locations based on booking count.
+     * Find the IDs of the most popular active locations based on booking count.
      *
-     * @return List of locations ordered by popularity
+     * @param limit Maximum number of IDs
+     * @return Location IDs ordered by popularity
      */
     @Query("""
-        SELECT l FROM Location l
+        SELECT l.id FROM Location l
         LEFT JOIN Booking b ON b.location.id = l.id
         WHERE l.isActive = true
         GROUP BY l.id
         ORDER BY COUNT(b.id) DESC
         """)
-    List<Location> findMostPopularLocations();
+    List<UUID> findMostPopularLocationIds(Limit limit);
 
     /**
      * Find active locations within radius with filters.
@@ -0,0 +1,84 @@
+package com.dani.luggagebackend.Repo;
+
+import com.dani.luggagebackend.Model.Location;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Composable predicates over locations for {@link LocationRepo}. Each one
+ * maps to a plain column comparison, so any combination runs as a single
+ * query that the location indexes can serve.
+ */
+public final class LocationSpecifications {
+
+    private LocationSpecifications() {
+    }
+
+    public static Specification<Location> isActive(boolean active) {
+        return (root, query, cb) -> cb.equal(root.get("isActive"), active);
+    }
+
+    public static Specification<Location> inCity(String city) {
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("city")), city.toLowerCase(Locale.ROOT));
+    }
+
+    public static Specification<Location> priceAtLeast(BigDecimal minPrice) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.<BigDecimal>get("pricePerHour"), minPrice);
+    }
+
+    public static Specification<Location> priceAtMost(BigDecimal maxPrice) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.<BigDecimal>get("pricePerHour"), maxPrice);
+    }
+
+    public static Specification<Location> capacityAtLeast(int minCapacity) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.<Integer>get("capacity"), minCapacity);
+    }
+
+    public static Specification<Location> ownedBy(UUID hostId) {
+        return (root, query, cb) -> cb.equal(root.get("host").get("id"), hostId);
+    }
+
+    /**
+     * Open at a wall-clock time of day. Equal opening and closing times mean
+     * open all day; a closing time before the opening time wraps past
+     * midnight. Locations with unknown hours never match.
+     */
+    public static Specification<Location> openAt(LocalTime time) {
+        return (root, query, cb) -> {
+            Path<LocalTime> opens = root.get("opensAt");
+            Path<LocalTime> closes = root.get("closesAt");
+            return cb.or(
+                    cb.equal(opens, closes),
+                    cb.and(cb.lessThan(opens, closes),
+                            cb.lessThanOrEqualTo(opens, time), cb.greaterThan(closes, time)),
+                    cb.and(cb.greaterThan(opens, closes),
+                            cb.or(cb.lessThanOrEqualTo(opens, time), cb.greaterThan(closes, time))));
+        };
+    }
+
+    /**
+     * Keyset condition for paging in ID order.
+     */
+    public static Specification<Location> idAfter(UUID afterId) {
+        return (root, query, cb) -> cb.greaterThan(root.<UUID>get("id"), afterId);
+    }
+
+    /**
+     * Loads the host in the same query. Skipped for count queries, which
+     * cannot fetch.
+     */
+    public static Specification<Location> fetchHost() {
+        return (root, query, cb) -> {
+            if (query != null && query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("host", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+}
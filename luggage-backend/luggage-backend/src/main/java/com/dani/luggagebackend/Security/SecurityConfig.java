@@ -114,7 +114,7 @@ public class SecurityConfig {
 
                 configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
                 configuration.setAllowedHeaders(Arrays.asList("*"));
-                configuration.setExposedHeaders(Arrays.asList("Authorization"));
+                configuration.setExposedHeaders(Arrays.asList("Authorization", "X-Next-Cursor"));
                 configuration.setAllowCredentials(true);
                 configuration.setMaxAge(3600L);
 
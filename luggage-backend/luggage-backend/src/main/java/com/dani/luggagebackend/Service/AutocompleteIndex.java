@@ -0,0 +1,251 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Repo.BookingRepo;
+import com.dani.luggagebackend.Repo.LocationRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Node-local autocomplete over location names, addresses and cities, held
+ * in a {@link SuggestionTrie}. Typing any word of a name or address
+ * suggests it ("navona" suggests "Café Navona Storage"), ignoring case and
+ * accents. Suggestions are ranked by popularity: a location weighs one
+ * plus its booking count, and a city one plus the weight of its active
+ * locations.
+ *
+ * Rebuilt from the database at startup and kept up to date from
+ * {@link LocationChangedEvent}s once the surrounding transaction commits.
+ */
+@Component
+public class AutocompleteIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AutocompleteIndex.class);
+
+    // Keys are cut to this length; longer prefixes are matched on their start
+    static final int MAX_KEY_LENGTH = 32;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Autowired
+    private LocationRepo locationRepo;
+
+    @Autowired
+    private BookingRepo bookingRepo;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+
+    /**
+     * Loads every active location, all known cities and booking counts once
+     * the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        long started = System.nanoTime();
+        List<LocationSnapshot> snapshots = locationRepo.findByIsActiveTrue().stream()
+                .map(LocationSnapshot::of)
+                .toList();
+        Map<UUID, Long> bookings = new HashMap<>();
+        bookingRepo.countByLocation().forEach(count -> bookings.put(count.getLocationId(), count.getBookings()));
+        rebuild(snapshots, locationRepo.findAllCities(), bookings);
+        log.info("Autocomplete loaded {} active locations in {} ms",
+                snapshots.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Replaces the whole content. Inactive locations are ignored.
+     *
+     * @param locations Locations to suggest
+     * @param cities    Cities to suggest, including ones without active locations
+     * @param bookings  Booking count per location ID
+     */
+    public void rebuild(Collection<LocationSnapshot> locations, Collection<String> cities, Map<UUID, Long> bookings) {
+        State rebuilt = new State();
+        rebuilt.bookings.putAll(bookings);
+        cities.forEach(rebuilt::addCity);
+        locations.forEach(rebuilt::upsert);
+
+        lock.writeLock().lock();
+        try {
+            state = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps suggestions in sync with committed location writes.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(LocationChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.current() == null) {
+                state.remove(event.previous().id());
+            } else {
+                state.upsert(event.current());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Most popular suggestions containing a word that starts with the prefix.
+     *
+     * @param prefix Typed text
+     * @param limit  Maximum number of suggestions
+     * @return Suggestions, most popular first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int[] entries = state.trie.top(truncate(key), limit);
+            List<Suggestion> suggestions = new ArrayList<>(entries.length);
+            for (int entry : entries) {
+                suggestions.add(state.suggestions.get(entry));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cases, strips accents and collapses everything that is not a
+     * letter or digit into single spaces.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    /**
+     * Kind of thing a suggestion completes to.
+     */
+    public enum Type {
+        LOCATION,
+        ADDRESS,
+        CITY
+    }
+
+    /**
+     * One autocomplete suggestion. locationId is null for cities.
+     */
+    public record Suggestion(String text, Type type, UUID locationId) {
+    }
+
+    /**
+     * Trie plus the bookkeeping needed to update it; guarded by the lock.
+     */
+    private static final class State {
+
+        private final SuggestionTrie trie = new SuggestionTrie();
+        private final List<Suggestion> suggestions = new ArrayList<>();
+        private final Map<UUID, Long> bookings = new HashMap<>();
+        private final Map<UUID, IndexedLocation> locations = new HashMap<>();
+        private final Map<String, Integer> cityEntries = new HashMap<>();
+
+        void upsert(LocationSnapshot location) {
+            remove(location.id());
+            if (!location.active()) {
+                return;
+            }
+            long weight = 1 + bookings.getOrDefault(location.id(), 0L);
+            int nameEntry = add(new Suggestion(location.name(), Type.LOCATION, location.id()), weight);
+            int addressEntry = add(new Suggestion(location.address(), Type.ADDRESS, location.id()), weight);
+            String cityKey = normalize(location.city());
+            if (!cityKey.isEmpty()) {
+                int cityEntry = addCity(location.city());
+                trie.setWeight(cityEntry, trie.weight(cityEntry) + weight);
+            }
+            locations.put(location.id(), new IndexedLocation(nameEntry, addressEntry, cityKey, weight));
+        }
+
+        void remove(UUID locationId) {
+            IndexedLocation indexed = locations.remove(locationId);
+            if (indexed == null) {
+                return;
+            }
+            for (int entry : new int[] {indexed.nameEntry(), indexed.addressEntry()}) {
+                if (entry >= 0) {
+                    trie.removeEntry(entry);
+                    suggestions.set(entry, null);
+                }
+            }
+            Integer cityEntry = cityEntries.get(indexed.cityKey());
+            if (cityEntry != null) {
+                trie.setWeight(cityEntry, trie.weight(cityEntry) - indexed.weight());
+            }
+        }
+
+        int addCity(String city) {
+            String key = normalize(city);
+            Integer existing = cityEntries.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            int entry = add(new Suggestion(city, Type.CITY, null), 1);
+            if (entry >= 0) {
+                cityEntries.put(key, entry);
+            }
+            return entry;
+        }
+
+        /**
+         * Adds a suggestion reachable from the start of each of its words.
+         */
+        private int add(Suggestion suggestion, long weight) {
+            String text = normalize(suggestion.text());
+            if (text.isEmpty()) {
+                return -1;
+            }
+            int entry = trie.addEntry(weight);
+            while (suggestions.size() <= entry) {
+                suggestions.add(null);
+            }
+            suggestions.set(entry, suggestion);
+            int start = 0;
+            while (true) {
+                trie.link(truncate(text.substring(start)), entry);
+                int space = text.indexOf(' ', start);
+                if (space < 0) {
+                    return entry;
+                }
+                start = space + 1;
+            }
+        }
+    }
+
+    private record IndexedLocation(int nameEntry, int addressEntry, String cityKey, long weight) {
+    }
+}
@@ -0,0 +1,190 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Repo.BookingRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bags taken up per time slot at a location, for calendars of free
+ * capacity over a day or a week.
+ *
+ * Slots follow a grid starting at midnight UTC, and a booking takes up
+ * every slot it touches, as in {@link OccupancyIndex}. Each day is computed
+ * in one sweep: every booking adds its bags at its first slot and takes
+ * them off after its last, and a running sum over the slots gives the bags
+ * in each, whatever the number of bookings or slots.
+ *
+ * Days are cached per (location, day) in an LRU cache and dropped when a
+ * committed booking write touches them.
+ */
+@Component
+public class AvailabilityCalendar {
+
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+    private static final List<String> OCCUPYING_STATUS_NAMES =
+            OccupancyIndex.OCCUPYING_STATUSES.stream().map(Enum::name).toList();
+
+    @Autowired
+    private BookingRepo bookingRepo;
+
+    // Bags per slot of one day, per slot length in minutes
+    private final Map<DayKey, Map<Integer, int[]>> days;
+
+    /**
+     * Bumped on every invalidation so a day computed while a write was
+     * being applied is returned but not cached.
+     */
+    private long invalidations;
+
+    public AvailabilityCalendar(@Value("${locations.calendar.cache-size:10000}") int maxDays) {
+        this.days = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DayKey, Map<Integer, int[]>> eldest) {
+                return size() > maxDays;
+            }
+        };
+    }
+
+    /**
+     * Whether slots of the given length tile a day.
+     */
+    public static boolean isValidSlot(Duration slot) {
+        long millis = slot.toMillis();
+        return millis > 0 && millis % Duration.ofMinutes(1).toMillis() == 0 && DAY_MILLIS % millis == 0;
+    }
+
+    /**
+     * Bags taken up by PENDING and CONFIRMED bookings in each slot of the
+     * grid between two slot boundaries.
+     *
+     * @param locationId Location ID
+     * @param from       First slot start, on the slot grid
+     * @param to         End of the last slot, on the slot grid
+     * @param slot       Slot length; must tile a day
+     * @return Bags per slot, in time order
+     */
+    public int[] usedBags(UUID locationId, Instant from, Instant to, Duration slot) {
+        long slotMillis = slot.toMillis();
+        int slotMinutes = (int) slot.toMinutes();
+        int slotsPerDay = (int) (DAY_MILLIS / slotMillis);
+        long firstDay = Math.floorDiv(from.toEpochMilli(), DAY_MILLIS);
+        long lastDay = Math.floorDiv(to.toEpochMilli() - 1, DAY_MILLIS);
+
+        Map<Long, int[]> found = new HashMap<>();
+        long firstMissing = Long.MAX_VALUE;
+        long lastMissing = Long.MIN_VALUE;
+        long invalidationsBefore;
+        synchronized (this) {
+            for (long day = firstDay; day <= lastDay; day++) {
+                Map<Integer, int[]> cached = days.get(new DayKey(locationId, day));
+                int[] slots = cached != null ? cached.get(slotMinutes) : null;
+                if (slots != null) {
+                    found.put(day, slots);
+                } else {
+                    firstMissing = Math.min(firstMissing, day);
+                    lastMissing = Math.max(lastMissing, day);
+                }
+            }
+            invalidationsBefore = invalidations;
+        }
+
+        if (firstMissing <= lastMissing) {
+            // One query and one sweep over every day from the first to the last missing one
+            Instant start = Instant.ofEpochMilli(firstMissing * DAY_MILLIS);
+            Instant end = Instant.ofEpochMilli((lastMissing + 1) * DAY_MILLIS);
+            int[] swept = sweep(bookingRepo.findIntervalsOverlapping(locationId, OCCUPYING_STATUS_NAMES, start, end),
+                    start.toEpochMilli(), slotMillis, (int) (lastMissing - firstMissing + 1) * slotsPerDay);
+            Map<Long, int[]> computed = new HashMap<>();
+            for (long day = firstMissing; day <= lastMissing; day++) {
+                int offset = (int) (day - firstMissing) * slotsPerDay;
+                int[] slots = new int[slotsPerDay];
+                System.arraycopy(swept, offset, slots, 0, slotsPerDay);
+                computed.put(day, slots);
+                found.putIfAbsent(day, slots);
+            }
+            synchronized (this) {
+                if (invalidations == invalidationsBefore) {
+                    computed.forEach((day, slots) -> days
+                            .computeIfAbsent(new DayKey(locationId, day), key -> new HashMap<>())
+                            .put(slotMinutes, slots));
+                }
+            }
+        }
+
+        int first = (int) Math.floorDiv(from.toEpochMilli() - firstDay * DAY_MILLIS, slotMillis);
+        int[] used = new int[(int) ((to.toEpochMilli() - from.toEpochMilli()) / slotMillis)];
+        for (int i = 0; i < used.length; i++) {
+            int slotOfRange = first + i;
+            used[i] = found.get(firstDay + slotOfRange / slotsPerDay)[slotOfRange % slotsPerDay];
+        }
+        return used;
+    }
+
+    /**
+     * Drops the days a committed booking write touched, before and after.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        synchronized (this) {
+            invalidations++;
+            for (BookingSnapshot booking : new BookingSnapshot[] {event.previous(), event.current()}) {
+                if (booking == null || booking.locationId() == null) {
+                    continue;
+                }
+                long firstDay = Math.floorDiv(booking.startTime().toEpochMilli(), DAY_MILLIS);
+                long lastDay = Math.floorDiv(booking.endTime().toEpochMilli() - 1, DAY_MILLIS);
+                for (long day = firstDay; day <= lastDay; day++) {
+                    days.remove(new DayKey(booking.locationId(), day));
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of (location, day) entries currently cached.
+     */
+    public synchronized int size() {
+        return days.size();
+    }
+
+    /**
+     * Bags per slot over consecutive slots from a start time: a difference
+     * array over the bookings' first and past-the-end slots, then a running
+     * sum.
+     */
+    static int[] sweep(List<? extends BookingRepo.BookingInterval> bookings, long startMillis, long slotMillis,
+                       int slots) {
+        int[] delta = new int[slots + 1];
+        for (BookingRepo.BookingInterval booking : bookings) {
+            long first = Math.floorDiv(booking.getStartTime().toEpochMilli() - startMillis, slotMillis);
+            long end = Math.floorDiv(booking.getEndTime().toEpochMilli() - 1 - startMillis, slotMillis) + 1;
+            first = Math.max(first, 0);
+            end = Math.min(end, slots);
+            if (first < end) {
+                delta[(int) first] += booking.getBags();
+                delta[(int) end] -= booking.getBags();
+            }
+        }
+        int[] used = new int[slots];
+        int running = 0;
+        for (int i = 0; i < slots; i++) {
+            running += delta[i];
+            used[i] = running;
+        }
+        return used;
+    }
+
+    private record DayKey(UUID locationId, long day) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.dani.luggagebackend.Service;
+
+import java.util.UUID;
+
+/**
+ * Published by {@link BookingsService} whenever a booking is created, has
+ * its times changed or changes status.
+ *
+ * @param previous State before the write (null when the booking was created)
+ * @param current  State after the write
+ */
+public record BookingChangedEvent(BookingSnapshot previous, BookingSnapshot current) {
+
+    public static BookingChangedEvent created(BookingSnapshot current) {
+        return new BookingChangedEvent(null, current);
+    }
+
+    public static BookingChangedEvent updated(BookingSnapshot previous, BookingSnapshot current) {
+        return new BookingChangedEvent(previous, current);
+    }
+
+    /**
+     * ID of the booking that changed.
+     */
+    public UUID bookingId() {
+        return current.id();
+    }
+}
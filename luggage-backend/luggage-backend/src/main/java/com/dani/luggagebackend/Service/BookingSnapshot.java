@@ -0,0 +1,41 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Model.Booking;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Immutable copy of the fields of a booking that in-memory structures
+ * keep track of.
+ */
+public record BookingSnapshot(
+        UUID id,
+        UUID locationId,
+        UUID userId,
+        Instant startTime,
+        Instant endTime,
+        Booking.BookingStatus status,
+        int bags,
+        Instant createdAt,
+        Instant expiresAt) {
+
+    /**
+     * Copies the current state of a booking entity.
+     *
+     * @param booking The booking entity
+     * @return Snapshot of the booking
+     */
+    public static BookingSnapshot of(Booking booking) {
+        return new BookingSnapshot(
+                booking.getId(),
+                booking.getLocation() != null ? booking.getLocation().getId() : null,
+                booking.getUser() != null ? booking.getUser().getId() : null,
+                booking.getStartTime(),
+                booking.getEndTime(),
+                booking.getStatus(),
+                booking.getBags() != null ? booking.getBags() : 1,
+                booking.getCreatedAt(),
+                booking.getExpiresAt());
+    }
+}
@@ -10,12 +10,17 @@ import com.dani.luggagebackend.Repo.BookingRepo;
 import com.dani.luggagebackend.Repo.LocationRepo;
 import com.dani.luggagebackend.Repo.UsersRepo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -33,13 +38,33 @@ public class BookingsService {
     @Autowired
     private LocationRepo locationRepo;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+
+    /**
+     * How long a new booking stays PENDING before it is cancelled and its
+     * bags released, unless confirmed or cancelled first.
+     */
+    @Value("${bookings.pending-ttl-minutes:30}")
+    private long pendingTtlMinutes;
+
+    /**
+     * Longest a booking may run.
+     */
+    @Value("${bookings.max-duration-days:30}")
+    private long maxDurationDays;
+
     /**
      * Create a new booking
      *
      * @param userId  User making the booking
      * @param request Booking details
      * @return Created booking response
-     * @throws RuntimeException if user/location not found or validation fails
+     * @throws RuntimeException if user/location not found, validation fails
+     *                          or the location has no room for the bags
      */
     @Transactional
     public BookingResponse createBooking(UUID userId, CreateBookingRequest request) {
@@ -61,11 +86,20 @@ public class BookingsService {
             throw new RuntimeException("End time must be after start time");
         }
 
+        if (Duration.between(request.getStartTime(), request.getEndTime()).compareTo(Duration.ofDays(maxDurationDays)) > 0) {
+            throw new RuntimeException("Booking must not be longer than " + maxDurationDays + " days");
+        }
+
         // Validate start time is in the future
         if (request.getStartTime().isBefore(Instant.now())) {
             throw new RuntimeException("Start time must be in the future");
         }
 
+        int bags = request.getNumberOfItems() != null ? request.getNumberOfItems() : 1;
+        if (bags < 1) {
+            throw new RuntimeException("Number of items must be at least 1");
+        }
+
         // Calculate price based on duration and location's hourly rate
         Long priceCents = calculatePrice(request.getStartTime(), request.getEndTime(),
                 location.getPricePerHour());
@@ -77,10 +111,14 @@ public class BookingsService {
                 .startTime(request.getStartTime())
                 .endTime(request.getEndTime())
                 .priceCents(priceCents)
+                .bags(bags)
                 .status(Booking.BookingStatus.PENDING)
+                .expiresAt(Instant.now().plus(Duration.ofMinutes(pendingTtlMinutes)))
                 .build();
 
         Booking savedBooking = bookingRepo.save(booking);
+        admit(savedBooking, null);
+        eventPublisher.publishEvent(BookingChangedEvent.created(BookingSnapshot.of(savedBooking)));
 
         return convertToResponse(savedBooking);
     }
@@ -138,6 +176,8 @@ public class BookingsService {
             throw new RuntimeException("Only pending bookings can be updated");
         }
 
+        BookingSnapshot previous = BookingSnapshot.of(booking);
+
         boolean timeChanged = false;
 
         // Update start time if provided
@@ -161,6 +201,20 @@ public class BookingsService {
             throw new RuntimeException("End time must be after start time");
         }
 
+        if (Duration.between(booking.getStartTime(), booking.getEndTime()).compareTo(Duration.ofDays(maxDurationDays)) > 0) {
+            throw new RuntimeException("Booking must not be longer than " + maxDurationDays + " days");
+        }
+
+        // Update number of bags if provided
+        boolean bagsChanged = false;
+        if (request.getNumberOfItems() != null) {
+            if (request.getNumberOfItems() < 1) {
+                throw new RuntimeException("Number of items must be at least 1");
+            }
+            bagsChanged = !request.getNumberOfItems().equals(booking.getBags());
+            booking.setBags(request.getNumberOfItems());
+        }
+
         // Recalculate price if time changed
         if (timeChanged) {
             Long newPrice = calculatePrice(booking.getStartTime(), booking.getEndTime(),
@@ -168,7 +222,13 @@ public class BookingsService {
             booking.setPriceCents(newPrice);
         }
 
+        // Move the held bags to the new times or count
+        if (timeChanged || bagsChanged) {
+            admit(booking, previous);
+        }
+
         Booking updatedBooking = bookingRepo.save(booking);
+        eventPublisher.publishEvent(BookingChangedEvent.updated(previous, BookingSnapshot.of(updatedBooking)));
         return convertToResponse(updatedBooking);
     }
 
@@ -200,8 +260,11 @@ public class BookingsService {
             throw new RuntimeException("Cannot cancel a completed booking");
         }
 
+        BookingSnapshot previous = BookingSnapshot.of(booking);
         booking.setStatus(Booking.BookingStatus.CANCELLED);
-        bookingRepo.save(booking);
+        booking.setExpiresAt(null);
+        Booking cancelledBooking = bookingRepo.save(booking);
+        eventPublisher.publishEvent(BookingChangedEvent.updated(previous, BookingSnapshot.of(cancelledBooking)));
     }
 
     /**
@@ -228,8 +291,11 @@ public class BookingsService {
             throw new RuntimeException("Only pending bookings can be confirmed");
         }
 
+        BookingSnapshot previous = BookingSnapshot.of(booking);
         booking.setStatus(Booking.BookingStatus.CONFIRMED);
+        booking.setExpiresAt(null);
         Booking updatedBooking = bookingRepo.save(booking);
+        eventPublisher.publishEvent(BookingChangedEvent.updated(previous, BookingSnapshot.of(updatedBooking)));
 
         return convertToResponse(updatedBooking);
     }
@@ -259,12 +325,37 @@ public class BookingsService {
             throw new RuntimeException("Only confirmed bookings can be completed");
         }
 
+        BookingSnapshot previous = BookingSnapshot.of(booking);
         booking.setStatus(Booking.BookingStatus.COMPLETED);
         Booking updatedBooking = bookingRepo.save(booking);
+        eventPublisher.publishEvent(BookingChangedEvent.updated(previous, BookingSnapshot.of(updatedBooking)));
 
         return convertToResponse(updatedBooking);
     }
 
+    /**
+     * Cancel PENDING bookings whose expiry deadline has passed
+     * Runs as a single multi-row UPDATE; bookings confirmed or cancelled
+     * in the meantime are left alone
+     *
+     * @param bookingIds Bookings due to expire
+     * @return Number of bookings cancelled
+     */
+    @Transactional
+    public int expirePendingBookings(Collection<UUID> bookingIds) {
+        List<BookingRepo.ExpiredBooking> expired = bookingRepo.expirePending(bookingIds, Instant.now());
+        for (BookingRepo.ExpiredBooking row : expired) {
+            BookingSnapshot previous = new BookingSnapshot(row.getId(), row.getLocationId(), row.getUserId(),
+                    row.getStartTime(), row.getEndTime(), Booking.BookingStatus.PENDING, row.getBags(),
+                    row.getCreatedAt(), null);
+            BookingSnapshot current = new BookingSnapshot(row.getId(), row.getLocationId(), row.getUserId(),
+                    row.getStartTime(), row.getEndTime(), Booking.BookingStatus.CANCELLED, row.getBags(),
+                    row.getCreatedAt(), null);
+            eventPublisher.publishEvent(BookingChangedEvent.updated(previous, current));
+        }
+        return expired.size();
+    }
+
     /**
      * Get all bookings (admin only - for testing)
      *
@@ -277,6 +368,40 @@ public class BookingsService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Holds the booking's bags in its location's capacity ledger, or fails
+     * the transaction when some slot of it is full. The hold is given back
+     * (or moved back to previous) if the transaction rolls back.
+     *
+     * @param booking  Saved booking
+     * @param previous State before an update (null for new bookings)
+     * @throws RuntimeException if the location has no room for the bags
+     */
+    private void admit(Booking booking, BookingSnapshot previous) {
+        UUID locationId = booking.getLocation().getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    if (previous == null) {
+                        occupancyIndex.release(locationId, booking.getId());
+                    } else {
+                        occupancyIndex.restore(locationId, new OccupancyIndex.Hold(
+                                previous.id(), previous.startTime(), previous.endTime(), previous.bags()));
+                    }
+                }
+                occupancyIndex.settle(locationId);
+            }
+        });
+
+        OccupancyIndex.Hold hold = new OccupancyIndex.Hold(
+                booking.getId(), booking.getStartTime(), booking.getEndTime(), booking.getBags());
+        if (!occupancyIndex.tryAdmit(locationId, hold, booking.getLocation().getCapacity(),
+                OccupancyIndex.loaderOf(bookingRepo))) {
+            throw new RuntimeException("Location has no room for the bags at that time");
+        }
+    }
+
     /**
      * Calculate price in cents based on duration and hourly rate
      *
@@ -314,7 +439,9 @@ public class BookingsService {
                 .startTime(booking.getStartTime())
                 .endTime(booking.getEndTime())
                 .priceCents(booking.getPriceCents())
+                .bags(booking.getBags())
                 .status(booking.getStatus())
+                .expiresAt(booking.getExpiresAt())
                 .build();
     }
 }
\ No newline at end of file
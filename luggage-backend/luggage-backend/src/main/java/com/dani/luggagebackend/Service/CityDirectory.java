@@ -0,0 +1,226 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.DTO.CitySummary;
+import com.dani.luggagebackend.Repo.LocationRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Node-local directory of the cities locations are in. City names are
+ * matched ignoring case and surrounding spaces, and each distinct name is
+ * interned to a small integer ID on first sight. Every city keeps its
+ * number of locations and its active locations, from which the count and
+ * bounding box of active locations are derived.
+ *
+ * The city list and summaries are computed once and reused until a
+ * location write changes them. Rebuilt from the database at startup and
+ * kept up to date from {@link LocationChangedEvent}s once the surrounding
+ * transaction commits.
+ */
+@Component
+public class CityDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(CityDirectory.class);
+
+    private static final Comparator<City> BY_NAME = Comparator.comparing((City city) -> city.key)
+            .thenComparing(city -> city.name);
+
+    @Autowired
+    private LocationRepo locationRepo;
+
+    private final Map<String, Integer> cityIds = new HashMap<>();
+    private final List<City> cities = new ArrayList<>();
+    // Last known state of every location with a city
+    private final Map<UUID, LocationSnapshot> locations = new HashMap<>();
+
+    private volatile List<String> names;
+    private volatile List<CitySummary> summaries;
+    private volatile boolean ready;
+
+    /**
+     * Loads every location once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        long started = System.nanoTime();
+        List<LocationSnapshot> snapshots = locationRepo.findAll().stream()
+                .map(LocationSnapshot::of)
+                .toList();
+        rebuild(snapshots);
+        log.info("City directory loaded {} cities from {} locations in {} ms",
+                cities.size(), snapshots.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Replaces the whole directory.
+     *
+     * @param all Every location, active or not
+     */
+    public synchronized void rebuild(Collection<LocationSnapshot> all) {
+        cityIds.clear();
+        cities.clear();
+        locations.clear();
+        all.forEach(this::add);
+        names = null;
+        summaries = null;
+        ready = true;
+    }
+
+    /**
+     * Moves a location between cities on committed location writes.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onLocationChanged(LocationChangedEvent event) {
+        remove(event.locationId());
+        if (event.current() != null) {
+            add(event.current());
+        }
+        names = null;
+        summaries = null;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Names of all cities with at least one location, active or not, in
+     * alphabetical order.
+     */
+    public List<String> cityNames() {
+        List<String> cached = names;
+        return cached != null ? cached : refreshNames();
+    }
+
+    /**
+     * Cities with at least one active location, in alphabetical order.
+     */
+    public List<CitySummary> citySummaries() {
+        List<CitySummary> cached = summaries;
+        return cached != null ? cached : refreshSummaries();
+    }
+
+    /**
+     * IDs of the active locations in a city, in ID order.
+     *
+     * @param city City name, in any case
+     * @return Location IDs (empty for unknown cities)
+     */
+    public synchronized List<UUID> activeLocationIds(String city) {
+        Integer id = cityIds.get(key(city));
+        return id != null ? List.copyOf(cities.get(id).active.keySet()) : List.of();
+    }
+
+    /**
+     * Normalized form under which a city name is interned.
+     */
+    static String key(String city) {
+        return city == null ? "" : city.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private synchronized List<String> refreshNames() {
+        if (names == null) {
+            names = cities.stream()
+                    .filter(city -> city.locations > 0)
+                    .sorted(BY_NAME)
+                    .map(city -> city.name)
+                    .toList();
+        }
+        return names;
+    }
+
+    private synchronized List<CitySummary> refreshSummaries() {
+        if (summaries == null) {
+            summaries = cities.stream()
+                    .filter(city -> !city.active.isEmpty())
+                    .sorted(BY_NAME)
+                    .map(City::summary)
+                    .toList();
+        }
+        return summaries;
+    }
+
+    private void add(LocationSnapshot location) {
+        String key = key(location.city());
+        if (key.isEmpty()) {
+            return;
+        }
+        Integer id = cityIds.get(key);
+        if (id == null) {
+            id = cities.size();
+            cityIds.put(key, id);
+            cities.add(new City(key));
+        }
+        City city = cities.get(id);
+        if (city.locations == 0) {
+            city.name = location.city().strip();
+        }
+        city.locations++;
+        if (location.active()) {
+            city.active.put(location.id(), location);
+        }
+        locations.put(location.id(), location);
+    }
+
+    private void remove(UUID locationId) {
+        LocationSnapshot previous = locations.remove(locationId);
+        if (previous == null) {
+            return;
+        }
+        City city = cities.get(cityIds.get(key(previous.city())));
+        city.locations--;
+        city.active.remove(locationId);
+    }
+
+    /**
+     * One interned city; guarded by the directory's monitor.
+     */
+    private static final class City {
+
+        private final String key;
+        // Spelling of the first location seen while the city was empty
+        private String name;
+        private int locations;
+        private final Map<UUID, LocationSnapshot> active = new TreeMap<>();
+
+        City(String key) {
+            this.key = key;
+        }
+
+        CitySummary summary() {
+            double south = Double.POSITIVE_INFINITY;
+            double west = Double.POSITIVE_INFINITY;
+            double north = Double.NEGATIVE_INFINITY;
+            double east = Double.NEGATIVE_INFINITY;
+            for (LocationSnapshot location : active.values()) {
+                south = Math.min(south, location.lat());
+                north = Math.max(north, location.lat());
+                west = Math.min(west, location.lng());
+                east = Math.max(east, location.lng());
+            }
+            return CitySummary.builder()
+                    .name(name)
+                    .activeLocations(active.size())
+                    .south(south)
+                    .west(west)
+                    .north(north)
+                    .east(east)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.dani.luggagebackend.Service;
+
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy over an undirected {@link RoadGraph}.
+ * Nodes are contracted one by one, least important first, adding shortcut
+ * edges wherever a shortest path ran through the contracted node. A query
+ * then only needs two small searches that each climb to more important
+ * nodes, instead of a Dijkstra search over the whole city.
+ *
+ * <p>Because the graph is undirected the upward graph serves both the
+ * forward and the backward search.
+ */
+public final class ContractionHierarchy {
+
+    // Witness searches give up after this many nodes; a missed witness only
+    // costs a superfluous shortcut, never a wrong distance
+    private static final int WITNESS_SETTLE_LIMIT = 300;
+
+    private final int[] upFirst;
+    private final int[] upTarget;
+    private final float[] upMeters;
+
+    private ContractionHierarchy(int[] upFirst, int[] upTarget, float[] upMeters) {
+        this.upFirst = upFirst;
+        this.upTarget = upTarget;
+        this.upMeters = upMeters;
+    }
+
+    /**
+     * Contracts the whole graph.
+     *
+     * @param graph Walking network
+     * @return Hierarchy answering shortest-path queries on it
+     */
+    public static ContractionHierarchy build(RoadGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    /**
+     * Shortest walking distance between two nodes.
+     *
+     * @return Distance in meters, or infinity if unreachable
+     */
+    public double distance(int source, int target) {
+        return distances(source, new int[] {target})[0];
+    }
+
+    /**
+     * Shortest walking distances from one node to several others. The upward
+     * search from the source is done once and reused for every target.
+     *
+     * @param source  Source node
+     * @param targets Target nodes
+     * @return Distance in meters per target, infinity where unreachable
+     */
+    public double[] distances(int source, int[] targets) {
+        NodeDistances forward = upwardSearch(source, Double.POSITIVE_INFINITY, null);
+        double[] result = new double[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            result[i] = targets[i] < 0 ? Double.POSITIVE_INFINITY : meet(forward, targets[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Runs the backward search from a target and returns the best meeting
+     * point distance with the forward search space.
+     */
+    private double meet(NodeDistances forward, int target) {
+        double[] best = {forward.get(target)};
+        upwardSearch(target, Double.POSITIVE_INFINITY, (node, distance) -> {
+            double total = distance + forward.get(node);
+            if (total < best[0]) {
+                best[0] = total;
+            }
+        });
+        return best[0];
+    }
+
+    /**
+     * Dijkstra over upward edges only.
+     */
+    private NodeDistances upwardSearch(int start, double limit, NodeDistances.Visitor onSettle) {
+        NodeDistances distances = new NodeDistances(256);
+        NodeHeap heap = new NodeHeap();
+        distances.offer(start, 0.0);
+        heap.push(0.0, start);
+        while (!heap.isEmpty()) {
+            double distance = heap.peekKey();
+            int node = heap.peekNode();
+            heap.pop();
+            if (distance > limit) {
+                break;
+            }
+            if (distances.isSettled(node)) {
+                continue;
+            }
+            distances.settle(node);
+            if (onSettle != null) {
+                onSettle.visit(node, distance);
+            }
+            for (int e = upFirst[node]; e < upFirst[node + 1]; e++) {
+                double next = distance + upMeters[e];
+                if (distances.offer(upTarget[e], next)) {
+                    heap.push(next, upTarget[e]);
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Edges kept in the upward graph, including shortcuts.
+     */
+    public int upwardEdgeCount() {
+        return upTarget.length;
+    }
+
+    /**
+     * Node-by-node contraction with lazily updated edge-difference priorities.
+     */
+    private static final class Builder {
+
+        private final int nodes;
+        private final int[][] adjacent;
+        private final float[][] adjacentMeters;
+        private final int[] degree;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbors;
+
+        private final int[][] upward;
+        private final float[][] upwardMeters;
+
+        // Reused witness search state
+        private final double[] witness;
+        private final int[] touched;
+        private int touchedCount;
+        private final NodeHeap heap = new NodeHeap();
+
+        Builder(RoadGraph graph) {
+            this.nodes = graph.nodeCount();
+            this.adjacent = new int[nodes][];
+            this.adjacentMeters = new float[nodes][];
+            this.degree = new int[nodes];
+            this.contracted = new boolean[nodes];
+            this.contractedNeighbors = new int[nodes];
+            this.upward = new int[nodes][];
+            this.upwardMeters = new float[nodes][];
+            this.witness = new double[nodes];
+            this.touched = new int[nodes];
+            Arrays.fill(witness, Double.POSITIVE_INFINITY);
+
+            for (int v = 0; v < nodes; v++) {
+                int edges = graph.firstEdge(v + 1) - graph.firstEdge(v);
+                adjacent[v] = new int[Math.max(2, edges)];
+                adjacentMeters[v] = new float[Math.max(2, edges)];
+            }
+            for (int v = 0; v < nodes; v++) {
+                for (int e = graph.firstEdge(v); e < graph.firstEdge(v + 1); e++) {
+                    int u = graph.edgeTarget(e);
+                    if (u != v) {
+                        addOrShorten(v, u, graph.edgeMeters(e));
+                    }
+                }
+            }
+        }
+
+        ContractionHierarchy build() {
+            NodeHeap queue = new NodeHeap();
+            for (int v = 0; v < nodes; v++) {
+                queue.push(priority(v), v);
+            }
+            while (!queue.isEmpty()) {
+                int v = queue.peekNode();
+                queue.pop();
+                if (contracted[v]) {
+                    continue;
+                }
+                // Lazy update: re-queue if the node became more important
+                double current = priority(v);
+                if (!queue.isEmpty() && current > queue.peekKey()) {
+                    queue.push(current, v);
+                    continue;
+                }
+                contract(v);
+            }
+
+            int[] first = new int[nodes + 1];
+            for (int v = 0; v < nodes; v++) {
+                first[v + 1] = first[v] + (upward[v] != null ? upward[v].length : 0);
+            }
+            int[] target = new int[first[nodes]];
+            float[] meters = new float[first[nodes]];
+            for (int v = 0; v < nodes; v++) {
+                if (upward[v] != null) {
+                    System.arraycopy(upward[v], 0, target, first[v], upward[v].length);
+                    System.arraycopy(upwardMeters[v], 0, meters, first[v], upward[v].length);
+                }
+            }
+            return new ContractionHierarchy(first, target, meters);
+        }
+
+        /**
+         * Edge difference plus a term that spreads contraction evenly.
+         */
+        private double priority(int v) {
+            int shortcuts = shortcutsFor(v, false);
+            return shortcuts - degree[v] + 2.0 * contractedNeighbors[v];
+        }
+
+        private void contract(int v) {
+            shortcutsFor(v, true);
+
+            // Remaining neighbours are all contracted later, so these are the
+            // upward edges of v
+            upward[v] = Arrays.copyOf(adjacent[v], degree[v]);
+            upwardMeters[v] = Arrays.copyOf(adjacentMeters[v], degree[v]);
+            contracted[v] = true;
+            for (int i = 0; i < degree[v]; i++) {
+                int u = adjacent[v][i];
+                remove(u, v);
+                contractedNeighbors[u]++;
+            }
+            degree[v] = 0;
+        }
+
+        /**
+         * Counts, and optionally adds, the shortcuts needed between the
+         * neighbours of v to keep their distances once v is removed.
+         */
+        private int shortcutsFor(int v, boolean add) {
+            int count = 0;
+            int[] neighbors = Arrays.copyOf(adjacent[v], degree[v]);
+            float[] meters = Arrays.copyOf(adjacentMeters[v], degree[v]);
+            float maxMeters = 0;
+            for (int i = 0; i < neighbors.length; i++) {
+                maxMeters = Math.max(maxMeters, meters[i]);
+            }
+            for (int i = 0; i < neighbors.length; i++) {
+                witnessSearch(neighbors[i], v, meters[i] + maxMeters);
+                for (int j = i + 1; j < neighbors.length; j++) {
+                    float viaV = meters[i] + meters[j];
+                    if (witness[neighbors[j]] > viaV) {
+                        count++;
+                        if (add) {
+                            addOrShorten(neighbors[i], neighbors[j], viaV);
+                            addOrShorten(neighbors[j], neighbors[i], viaV);
+                        }
+                    }
+                }
+                resetWitness();
+            }
+            return count;
+        }
+
+        /**
+         * Bounded Dijkstra from start over uncontracted nodes avoiding the
+         * node being contracted.
+         */
+        private void witnessSearch(int start, int avoid, double limit) {
+            heap.clear();
+            touch(start, 0.0);
+            heap.push(0.0, start);
+            int settled = 0;
+            while (!heap.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                double distance = heap.peekKey();
+                int node = heap.peekNode();
+                heap.pop();
+                if (distance > witness[node]) {
+                    continue;
+                }
+                if (distance > limit) {
+                    break;
+                }
+                settled++;
+                for (int i = 0; i < degree[node]; i++) {
+                    int next = adjacent[node][i];
+                    if (next == avoid) {
+                        continue;
+                    }
+                    double candidate = distance + adjacentMeters[node][i];
+                    if (candidate < witness[next]) {
+                        touch(next, candidate);
+                        heap.push(candidate, next);
+                    }
+                }
+            }
+        }
+
+        private void touch(int node, double distance) {
+            if (witness[node] == Double.POSITIVE_INFINITY) {
+                touched[touchedCount++] = node;
+            }
+            witness[node] = distance;
+        }
+
+        private void resetWitness() {
+            for (int i = 0; i < touchedCount; i++) {
+                witness[touched[i]] = Double.POSITIVE_INFINITY;
+            }
+            touchedCount = 0;
+        }
+
+        private void addOrShorten(int from, int to, float meters) {
+            for (int i = 0; i < degree[from]; i++) {
+                if (adjacent[from][i] == to) {
+                    adjacentMeters[from][i] = Math.min(adjacentMeters[from][i], meters);
+                    return;
+                }
+            }
+            if (degree[from] == adjacent[from].length) {
+                adjacent[from] = Arrays.copyOf(adjacent[from], degree[from] * 2);
+                adjacentMeters[from] = Arrays.copyOf(adjacentMeters[from], degree[from] * 2);
+            }
+            adjacent[from][degree[from]] = to;
+            adjacentMeters[from][degree[from]++] = meters;
+        }
+
+        private void remove(int from, int to) {
+            for (int i = 0; i < degree[from]; i++) {
+                if (adjacent[from][i] == to) {
+                    int last = --degree[from];
+                    adjacent[from][i] = adjacent[from][last];
+                    adjacentMeters[from][i] = adjacentMeters[from][last];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.dani.luggagebackend.Service;
+
+import java.util.Arrays;
+
+/**
+ * Growable struct-of-arrays of coordinates prepared for {@link DistanceEngine}:
+ * latitude and longitude in radians plus the cosine of the latitude, so batch
+ * distance computations do no per-point setup work.
+ */
+public final class CoordinateColumns {
+
+    private double[] latRad;
+    private double[] lngRad;
+    private double[] cosLat;
+    private int size;
+
+    public CoordinateColumns(int capacity) {
+        int initial = Math.max(capacity, 4);
+        this.latRad = new double[initial];
+        this.lngRad = new double[initial];
+        this.cosLat = new double[initial];
+    }
+
+    /**
+     * Appends a point given in degrees.
+     */
+    public void add(double latDeg, double lngDeg) {
+        ensureCapacity(size + 1);
+        double lat = Math.toRadians(latDeg);
+        latRad[size] = lat;
+        lngRad[size] = Math.toRadians(lngDeg);
+        cosLat[size] = Math.cos(lat);
+        size++;
+    }
+
+    /**
+     * Appends every point of another column set.
+     */
+    public void addAll(CoordinateColumns other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.latRad, 0, latRad, size, other.size);
+        System.arraycopy(other.lngRad, 0, lngRad, size, other.size);
+        System.arraycopy(other.cosLat, 0, cosLat, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Copy without the point at an index.
+     */
+    public CoordinateColumns without(int index) {
+        CoordinateColumns copy = new CoordinateColumns(size - 1);
+        for (int i = 0; i < size; i++) {
+            if (i != index) {
+                copy.latRad[copy.size] = latRad[i];
+                copy.lngRad[copy.size] = lngRad[i];
+                copy.cosLat[copy.size] = cosLat[i];
+                copy.size++;
+            }
+        }
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    double[] latRad() {
+        return latRad;
+    }
+
+    double[] lngRad() {
+        return lngRad;
+    }
+
+    double[] cosLat() {
+        return cosLat;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > latRad.length) {
+            int grown = Math.max(required, latRad.length * 2);
+            latRad = Arrays.copyOf(latRad, grown);
+            lngRad = Arrays.copyOf(lngRad, grown);
+            cosLat = Arrays.copyOf(cosLat, grown);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.dani.luggagebackend.Service;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated result.
+ *
+ * @param items      Items of this page
+ * @param nextCursor Cursor for the next page, or null on the last page
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,124 @@
+package com.dani.luggagebackend.Service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Batch great-circle distance kernel over {@link CoordinateColumns}.
+ * Computes the Haversine distance from one origin to every point of a batch.
+ * Uses the Vector API (jdk.incubator.vector) when the module is present at
+ * runtime and falls back to a scalar loop otherwise. Batches larger than
+ * PARALLEL_THRESHOLD are split across the common fork-join pool.
+ */
+public final class DistanceEngine {
+
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int PARALLEL_CHUNK = 1 << 14;
+
+    private static final double DIAMETER_KM = 2 * Geo.EARTH_RADIUS_KM;
+
+    /**
+     * Whether the Vector API kernel is used. Disable with
+     * -Dlocations.distance.vector=false.
+     */
+    public static final boolean VECTOR_ENABLED =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                    && Boolean.parseBoolean(System.getProperty("locations.distance.vector", "true"));
+
+    private DistanceEngine() {
+    }
+
+    /**
+     * Distances in km from an origin to every point in the columns.
+     *
+     * @param latitude  Origin latitude in degrees
+     * @param longitude Origin longitude in degrees
+     * @param points    Destination points
+     * @return Distances, index-aligned with the points
+     */
+    public static double[] distancesKm(double latitude, double longitude, CoordinateColumns points) {
+        double[] out = new double[points.size()];
+        distancesKm(latitude, longitude, points, out);
+        return out;
+    }
+
+    /**
+     * Writes the distance in km from an origin to every point into out.
+     */
+    public static void distancesKm(double latitude, double longitude, CoordinateColumns points, double[] out) {
+        int size = points.size();
+        if (size >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new Chunk(latitude, longitude, points, out, 0, size));
+        } else {
+            compute(latitude, longitude, points, out, 0, size, VECTOR_ENABLED);
+        }
+    }
+
+    /**
+     * Single-threaded scalar kernel. Exposed for benchmarks and tests.
+     */
+    public static void scalarKm(double latitude, double longitude, CoordinateColumns points, double[] out) {
+        compute(latitude, longitude, points, out, 0, points.size(), false);
+    }
+
+    /**
+     * Single-threaded Vector API kernel. Exposed for benchmarks and tests;
+     * only call when VECTOR_ENABLED is true.
+     */
+    public static void vectorKm(double latitude, double longitude, CoordinateColumns points, double[] out) {
+        compute(latitude, longitude, points, out, 0, points.size(), true);
+    }
+
+    private static void compute(double latitude, double longitude, CoordinateColumns points, double[] out,
+            int from, int to, boolean vector) {
+        double originLat = Math.toRadians(latitude);
+        double originLng = Math.toRadians(longitude);
+        double originCos = Math.cos(originLat);
+        int done = from;
+        if (vector) {
+            done = VectorDistanceKernel.haversineKm(originLat, originLng, originCos,
+                    points.latRad(), points.lngRad(), points.cosLat(), out, from, to);
+        }
+        scalar(originLat, originLng, originCos, points.latRad(), points.lngRad(), points.cosLat(), out, done, to);
+    }
+
+    static void scalar(double originLat, double originLng, double originCos,
+            double[] latRad, double[] lngRad, double[] cosLat, double[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double sinLat = Math.sin((latRad[i] - originLat) * 0.5);
+            double sinLng = Math.sin((lngRad[i] - originLng) * 0.5);
+            double a = sinLat * sinLat + originCos * cosLat[i] * sinLng * sinLng;
+            out[i] = DIAMETER_KM * Math.asin(Math.sqrt(Math.min(1.0, a)));
+        }
+    }
+
+    private static final class Chunk extends RecursiveAction {
+
+        private final double latitude;
+        private final double longitude;
+        private final CoordinateColumns points;
+        private final double[] out;
+        private final int from;
+        private final int to;
+
+        Chunk(double latitude, double longitude, CoordinateColumns points, double[] out, int from, int to) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.points = points;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_CHUNK) {
+                DistanceEngine.compute(latitude, longitude, points, out, from, to, VECTOR_ENABLED);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Chunk(latitude, longitude, points, out, from, middle),
+                    new Chunk(latitude, longitude, points, out, middle, to));
+        }
+    }
+}
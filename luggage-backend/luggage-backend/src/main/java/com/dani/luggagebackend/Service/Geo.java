@@ -0,0 +1,89 @@
+package com.dani.luggagebackend.Service;
+
+/**
+ * Shared great-circle helpers for the location search paths.
+ */
+public final class Geo {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    /**
+     * Length of one degree of latitude (and of longitude at the equator) in km.
+     */
+    public static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180.0;
+
+    /**
+     * Latitude limit of the Web Mercator projection used by map tiles.
+     */
+    public static final double MAX_MERCATOR_LAT = 85.05112878;
+
+    private Geo() {
+    }
+
+    /**
+     * Calculates the distance between two points on Earth using the Haversine
+     * formula.
+     *
+     * @return Distance in kilometers
+     */
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lngDistance = Math.toRadians(lng2 - lng1);
+
+        double sinLat = Math.sin(latDistance / 2);
+        double sinLng = Math.sin(lngDistance / 2);
+        double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLng * sinLng;
+
+        return 2 * EARTH_RADIUS_KM * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Web Mercator x coordinate of a longitude, normalized to [0, 1).
+     */
+    public static double mercatorX(double lng) {
+        double x = (lng + 180.0) / 360.0;
+        return x - Math.floor(x);
+    }
+
+    /**
+     * Web Mercator y coordinate of a latitude, normalized to [0, 1] with 0 at
+     * the top (north) edge of the map.
+     */
+    public static double mercatorY(double lat) {
+        double clamped = Math.max(-MAX_MERCATOR_LAT, Math.min(MAX_MERCATOR_LAT, lat));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    /**
+     * Longitude of the west edge of tile column x at a zoom level.
+     */
+    public static double tileWestLng(int zoom, long x) {
+        return x / (double) (1L << zoom) * 360.0 - 180.0;
+    }
+
+    /**
+     * Latitude of the north edge of tile row y at a zoom level.
+     */
+    public static double tileNorthLat(int zoom, long y) {
+        double n = Math.PI * (1 - 2.0 * y / (1L << zoom));
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    /**
+     * Tile column holding a longitude at a zoom level.
+     */
+    public static long tileX(int zoom, double lng) {
+        long tiles = 1L << zoom;
+        return Math.min(tiles - 1, (long) (mercatorX(lng) * tiles));
+    }
+
+    /**
+     * Tile row holding a latitude at a zoom level.
+     */
+    public static long tileY(int zoom, double lat) {
+        long tiles = 1L << zoom;
+        return Math.min(tiles - 1, (long) (mercatorY(lat) * tiles));
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -43,8 +44,33 @@ public class HostService {
          */
         @Transactional(readOnly = true)
         public List<BookingResponse> getBookingsForLocation(UUID locationId, UUID hostId) {
-                List<Booking> bookings = bookingRepo.findByLocationId(locationId);
+                return toVerifiedResponses(bookingRepo.findByLocationId(locationId), hostId);
+        }
 
+        /**
+         * Gets the bookings of a specific location overlapping a time window,
+         * e.g. one day, earliest first. Found with a range scan on the
+         * bookings' time ranges rather than by loading every booking.
+         * Verifies that the location belongs to the requesting host.
+         *
+         * @param locationId Location ID
+         * @param hostId     Host's user ID
+         * @param startTime  Window start
+         * @param endTime    Window end (exclusive)
+         * @return List of bookings for the location overlapping the window
+         * @throws RuntimeException if location doesn't belong to the host
+         */
+        @Transactional(readOnly = true)
+        public List<BookingResponse> getBookingsForLocation(UUID locationId, UUID hostId,
+                        Instant startTime, Instant endTime) {
+                return toVerifiedResponses(
+                                bookingRepo.findOverlappingByLocation(locationId, startTime, endTime), hostId);
+        }
+
+        /**
+         * Converts a location's bookings after checking the host owns it.
+         */
+        private List<BookingResponse> toVerifiedResponses(List<Booking> bookings, UUID hostId) {
                 // Verify the first booking's location belongs to this host
                 // (if there are no bookings, return empty list)
                 if (!bookings.isEmpty()) {
@@ -110,7 +136,9 @@ public class HostService {
                                 .startTime(booking.getStartTime())
                                 .endTime(booking.getEndTime())
                                 .priceCents(booking.getPriceCents())
+                                .bags(booking.getBags())
                                 .status(booking.getStatus())
+                                .expiresAt(booking.getExpiresAt())
                                 .build();
         }
 
@@ -0,0 +1,503 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.DTO.CatalogStats;
+import com.dani.luggagebackend.Repo.LocationRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Read-only, column-oriented copy of the active catalog for queries that
+ * scan every location. Each field lives in its own primitive array (IDs as
+ * two longs, prices in cents, cities as IDs into a dictionary, flags in
+ * bitsets), so a scan reads a few contiguous arrays instead of chasing
+ * entities and boxed fields.
+ *
+ * Rows are sorted by ID in the database's UUID order (unsigned, byte by
+ * byte), so keyset cursors are interchangeable with the SQL queries.
+ *
+ * Copy-on-write: every committed location write publishes a new
+ * {@link Columns} instance and readers scan whichever one they picked up,
+ * without locks. Writes are serialized.
+ */
+@Component
+public class LocationCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationCatalog.class);
+
+    // Sorts ID pairs the way Postgres compares UUIDs
+    private static final Comparator<LocationSnapshot> BY_ID = Comparator
+            .comparing((LocationSnapshot location) -> location.id().getMostSignificantBits(), Long::compareUnsigned)
+            .thenComparing(location -> location.id().getLeastSignificantBits(), Long::compareUnsigned);
+
+    @Autowired
+    private LocationRepo locationRepo;
+
+    private volatile Columns columns = Columns.EMPTY;
+    private volatile boolean ready;
+
+    /**
+     * Loads every active location once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        long started = System.nanoTime();
+        List<LocationSnapshot> snapshots = locationRepo.findByIsActiveTrue().stream()
+                .map(LocationSnapshot::of)
+                .toList();
+        rebuild(snapshots);
+        CatalogStats stats = stats();
+        log.info("Location catalog loaded {} active locations in {} ms ({} bytes per location)",
+                stats.getLocations(), (System.nanoTime() - started) / 1_000_000, stats.getBytesPerLocation());
+    }
+
+    /**
+     * Replaces the whole catalog. Inactive locations are ignored.
+     *
+     * @param locations Locations to hold
+     */
+    public synchronized void rebuild(Collection<LocationSnapshot> locations) {
+        List<LocationSnapshot> active = new ArrayList<>(locations.stream().filter(LocationSnapshot::active).toList());
+        active.sort(BY_ID);
+        columns = Columns.of(active);
+        ready = true;
+    }
+
+    /**
+     * Publishes a new snapshot reflecting a committed location write.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onLocationChanged(LocationChangedEvent event) {
+        Columns current = columns;
+        if (event.current() != null && event.current().active()) {
+            columns = current.with(event.current());
+        } else {
+            columns = current.without(event.locationId());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Current snapshot. Never changes once returned.
+     */
+    Columns columns() {
+        return columns;
+    }
+
+    /**
+     * IDs of locations matching a filter, in ID order, starting after a
+     * keyset cursor. The filter's active flag is not looked at: the catalog
+     * only holds active locations.
+     *
+     * @param filter  Filters to combine
+     * @param afterId ID of the last location of the previous page (nullable)
+     * @param limit   Maximum number of IDs
+     * @return Matching IDs
+     */
+    public List<UUID> filter(LocationFilter filter, UUID afterId, int limit) {
+        Columns snapshot = columns;
+        int size = snapshot.size;
+
+        long minCents = filter.minPrice() != null ? ceilCents(filter.minPrice()) : Long.MIN_VALUE;
+        long maxCents = filter.maxPrice() != null ? floorCents(filter.maxPrice()) : Long.MAX_VALUE;
+        int minCapacity = filter.minCapacity() != null ? filter.minCapacity() : Integer.MIN_VALUE;
+        boolean[] cityMatches = filter.city() != null ? snapshot.citiesMatching(filter.city()) : null;
+        boolean byHost = filter.hostId() != null;
+        long hostMsb = byHost ? filter.hostId().getMostSignificantBits() : 0;
+        long hostLsb = byHost ? filter.hostId().getLeastSignificantBits() : 0;
+        int openAt = filter.openAt() != null ? filter.openAt().getHour() * 60 + filter.openAt().getMinute() : -1;
+
+        int row = 0;
+        if (afterId != null) {
+            int found = snapshot.indexOf(afterId.getMostSignificantBits(), afterId.getLeastSignificantBits());
+            row = found >= 0 ? found + 1 : -found - 1;
+        }
+
+        List<UUID> ids = new ArrayList<>(Math.min(limit, size));
+        for (; row < size && ids.size() < limit; row++) {
+            if (snapshot.priceCents[row] < minCents || snapshot.priceCents[row] > maxCents
+                    || snapshot.capacity[row] < minCapacity) {
+                continue;
+            }
+            if (cityMatches != null && (snapshot.cityId[row] < 0 || !cityMatches[snapshot.cityId[row]])) {
+                continue;
+            }
+            if (byHost && (snapshot.hostMsb[row] != hostMsb || snapshot.hostLsb[row] != hostLsb)) {
+                continue;
+            }
+            if (openAt >= 0 && !snapshot.isOpenAt(row, openAt)) {
+                continue;
+            }
+            ids.add(snapshot.id(row));
+        }
+        return ids;
+    }
+
+    /**
+     * IDs of the locations with the highest counts, highest first. Ties and
+     * locations without a count (zero) follow ID order.
+     *
+     * @param counts Count per location ID
+     * @param limit  Maximum number of IDs
+     * @return Location IDs
+     */
+    public List<UUID> top(Map<UUID, Long> counts, int limit) {
+        Columns snapshot = columns;
+        if (limit <= 0) {
+            return List.of();
+        }
+        // Min-heap of {count, row}; a later row loses a tie
+        PriorityQueue<long[]> heap = new PriorityQueue<>((a, b) -> a[0] != b[0]
+                ? Long.compare(a[0], b[0])
+                : Long.compare(b[1], a[1]));
+        for (int row = 0; row < snapshot.size; row++) {
+            long count = counts.isEmpty() ? 0 : counts.getOrDefault(snapshot.id(row), 0L);
+            if (heap.size() < limit) {
+                heap.add(new long[] {count, row});
+            } else if (count > heap.peek()[0]) {
+                heap.poll();
+                heap.add(new long[] {count, row});
+            }
+        }
+        long[][] best = heap.toArray(new long[0][]);
+        Arrays.sort(best, (a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+        List<UUID> ids = new ArrayList<>(best.length);
+        for (long[] entry : best) {
+            ids.add(snapshot.id((int) entry[1]));
+        }
+        return ids;
+    }
+
+    /**
+     * Size of the current snapshot.
+     */
+    public CatalogStats stats() {
+        Columns snapshot = columns;
+        long bytes = snapshot.footprintBytes();
+        return CatalogStats.builder()
+                .locations(snapshot.size)
+                .cities(snapshot.cities.length)
+                .bytes(bytes)
+                .bytesPerLocation(snapshot.size > 0 ? bytes / snapshot.size : 0L)
+                .build();
+    }
+
+    static long ceilCents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+
+    static long floorCents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValueExact();
+    }
+
+    /**
+     * One immutable snapshot of the catalog; row i of every array describes
+     * the same location.
+     */
+    static final class Columns {
+
+        static final Columns EMPTY = of(List.of());
+
+        private static final int NO_CITY = -1;
+        private static final short UNKNOWN = -1;
+
+        final int size;
+        final long[] idMsb;
+        final long[] idLsb;
+        final long[] hostMsb;
+        final long[] hostLsb;
+        final double[] lat;
+        final double[] lng;
+        final long[] priceCents;
+        final int[] capacity;
+        final int[] cityId;
+        // Opening and closing minute of the day, valid where hoursKnown is set
+        final short[] opensMinute;
+        final short[] closesMinute;
+        final BitSet hoursKnown;
+
+        // City dictionary; append-only, so IDs survive later snapshots
+        final String[] cities;
+        private final Map<String, Integer> cityIds;
+
+        private Columns(int size, long[] idMsb, long[] idLsb, long[] hostMsb, long[] hostLsb,
+                double[] lat, double[] lng, long[] priceCents, int[] capacity, int[] cityId,
+                short[] opensMinute, short[] closesMinute, BitSet hoursKnown,
+                String[] cities, Map<String, Integer> cityIds) {
+            this.size = size;
+            this.idMsb = idMsb;
+            this.idLsb = idLsb;
+            this.hostMsb = hostMsb;
+            this.hostLsb = hostLsb;
+            this.lat = lat;
+            this.lng = lng;
+            this.priceCents = priceCents;
+            this.capacity = capacity;
+            this.cityId = cityId;
+            this.opensMinute = opensMinute;
+            this.closesMinute = closesMinute;
+            this.hoursKnown = hoursKnown;
+            this.cities = cities;
+            this.cityIds = cityIds;
+        }
+
+        /**
+         * Builds a snapshot from locations already sorted by ID.
+         */
+        static Columns of(List<LocationSnapshot> sorted) {
+            int size = sorted.size();
+            Columns columns = new Columns(size, new long[size], new long[size], new long[size], new long[size],
+                    new double[size], new double[size], new long[size], new int[size], new int[size],
+                    new short[size], new short[size], new BitSet(size), new String[0], new HashMap<>());
+            List<String> cities = new ArrayList<>();
+            for (int row = 0; row < size; row++) {
+                columns.set(row, sorted.get(row), cities);
+            }
+            return columns.withCities(cities.toArray(String[]::new));
+        }
+
+        UUID id(int row) {
+            return new UUID(idMsb[row], idLsb[row]);
+        }
+
+        /**
+         * Binary search by ID.
+         *
+         * @return Row of the ID, or (-(insertion point) - 1) if absent
+         */
+        int indexOf(long msb, long lsb) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = Long.compareUnsigned(idMsb[mid], msb);
+                if (cmp == 0) {
+                    cmp = Long.compareUnsigned(idLsb[mid], lsb);
+                }
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        /**
+         * Same rule as {@link OpeningHours#isOpenAt}, on minutes of the day.
+         */
+        boolean isOpenAt(int row, int minute) {
+            if (!hoursKnown.get(row)) {
+                return false;
+            }
+            int opens = opensMinute[row];
+            int closes = closesMinute[row];
+            if (opens == closes) {
+                return true;
+            }
+            if (opens < closes) {
+                return minute >= opens && minute < closes;
+            }
+            return minute >= opens || minute < closes;
+        }
+
+        /**
+         * Which dictionary entries equal a city, ignoring case.
+         */
+        boolean[] citiesMatching(String city) {
+            String wanted = city.toLowerCase(Locale.ROOT);
+            boolean[] matches = new boolean[cities.length];
+            for (int i = 0; i < cities.length; i++) {
+                matches[i] = cities[i].toLowerCase(Locale.ROOT).equals(wanted);
+            }
+            return matches;
+        }
+
+        /**
+         * Copy with a location inserted or replaced.
+         */
+        Columns with(LocationSnapshot location) {
+            int found = indexOf(location.id().getMostSignificantBits(), location.id().getLeastSignificantBits());
+            int row = found >= 0 ? found : -found - 1;
+            int newSize = found >= 0 ? size : size + 1;
+            int gap = found >= 0 ? 0 : 1;
+
+            Columns copy = new Columns(newSize,
+                    spread(idMsb, row, gap), spread(idLsb, row, gap),
+                    spread(hostMsb, row, gap), spread(hostLsb, row, gap),
+                    spread(lat, row, gap), spread(lng, row, gap),
+                    spread(priceCents, row, gap), spread(capacity, row, gap), spread(cityId, row, gap),
+                    spread(opensMinute, row, gap), spread(closesMinute, row, gap),
+                    spread(hoursKnown, size, row, gap),
+                    cities, cityIds);
+            List<String> added = new ArrayList<>();
+            copy.set(row, location, added);
+            return added.isEmpty() ? copy : copy.withCities(added.toArray(String[]::new));
+        }
+
+        /**
+         * Copy without a location; this snapshot if it is not held.
+         */
+        Columns without(UUID locationId) {
+            int row = indexOf(locationId.getMostSignificantBits(), locationId.getLeastSignificantBits());
+            if (row < 0) {
+                return this;
+            }
+            return new Columns(size - 1,
+                    spread(idMsb, row, -1), spread(idLsb, row, -1),
+                    spread(hostMsb, row, -1), spread(hostLsb, row, -1),
+                    spread(lat, row, -1), spread(lng, row, -1),
+                    spread(priceCents, row, -1), spread(capacity, row, -1), spread(cityId, row, -1),
+                    spread(opensMinute, row, -1), spread(closesMinute, row, -1),
+                    spread(hoursKnown, size, row, -1),
+                    cities, cityIds);
+        }
+
+        /**
+         * Estimated heap size: array headers and elements, plus the city
+         * dictionary strings.
+         */
+        long footprintBytes() {
+            long bytes = 6 * array(size, Long.BYTES)
+                    + 2 * array(size, Double.BYTES)
+                    + 2 * array(size, Integer.BYTES)
+                    + 2 * array(size, Short.BYTES)
+                    + 24 + array((size + 63) / 64, Long.BYTES)
+                    + array(cities.length, Integer.BYTES);
+            for (String city : cities) {
+                // String object plus its Latin-1 or UTF-16 byte array
+                boolean latin1 = city.chars().allMatch(c -> c < 256);
+                bytes += 24 + array(city.length(), latin1 ? 1 : 2);
+                // Dictionary map entry and boxed ID
+                bytes += 32 + 16;
+            }
+            return bytes;
+        }
+
+        /**
+         * Fills one row in place; only used on copies nobody reads yet. Cities
+         * not in the dictionary are appended to newCities.
+         */
+        private void set(int row, LocationSnapshot location, List<String> newCities) {
+            idMsb[row] = location.id().getMostSignificantBits();
+            idLsb[row] = location.id().getLeastSignificantBits();
+            hostMsb[row] = location.hostId() != null ? location.hostId().getMostSignificantBits() : 0;
+            hostLsb[row] = location.hostId() != null ? location.hostId().getLeastSignificantBits() : 0;
+            lat[row] = location.lat();
+            lng[row] = location.lng();
+            priceCents[row] = location.pricePerHour() != null ? ceilCents(location.pricePerHour()) : 0;
+            capacity[row] = location.capacity();
+
+            if (location.city() == null) {
+                cityId[row] = NO_CITY;
+            } else {
+                Integer id = cityIds.get(location.city());
+                if (id == null) {
+                    int pending = newCities.indexOf(location.city());
+                    if (pending < 0) {
+                        pending = newCities.size();
+                        newCities.add(location.city());
+                    }
+                    id = cities.length + pending;
+                }
+                cityId[row] = id;
+            }
+
+            OpeningHours hours = OpeningHours.parse(location.hours());
+            if (hours != null) {
+                hoursKnown.set(row);
+                opensMinute[row] = (short) (hours.opens().getHour() * 60 + hours.opens().getMinute());
+                closesMinute[row] = (short) (hours.closes().getHour() * 60 + hours.closes().getMinute());
+            } else {
+                hoursKnown.clear(row);
+                opensMinute[row] = UNKNOWN;
+                closesMinute[row] = UNKNOWN;
+            }
+        }
+
+        private Columns withCities(String[] added) {
+            String[] allCities = Arrays.copyOf(cities, cities.length + added.length);
+            Map<String, Integer> allIds = new HashMap<>(cityIds);
+            for (int i = 0; i < added.length; i++) {
+                allCities[cities.length + i] = added[i];
+                allIds.put(added[i], cities.length + i);
+            }
+            return new Columns(size, idMsb, idLsb, hostMsb, hostLsb, lat, lng, priceCents, capacity, cityId,
+                    opensMinute, closesMinute, hoursKnown, allCities, allIds);
+        }
+
+        private static long array(int length, int elementBytes) {
+            // 16-byte header, rounded up to 8-byte alignment
+            return (16 + (long) length * elementBytes + 7) & ~7L;
+        }
+
+        // Copies an array opening a one-element gap at row (gap 1), keeping
+        // the length (gap 0) or dropping the element at row (gap -1)
+
+        private static long[] spread(long[] values, int row, int gap) {
+            long[] copy = new long[values.length + gap];
+            System.arraycopy(values, 0, copy, 0, row);
+            System.arraycopy(values, row + Math.max(0, -gap), copy, row + Math.max(0, gap),
+                    values.length - row - Math.max(0, -gap));
+            return copy;
+        }
+
+        private static double[] spread(double[] values, int row, int gap) {
+            double[] copy = new double[values.length + gap];
+            System.arraycopy(values, 0, copy, 0, row);
+            System.arraycopy(values, row + Math.max(0, -gap), copy, row + Math.max(0, gap),
+                    values.length - row - Math.max(0, -gap));
+            return copy;
+        }
+
+        private static int[] spread(int[] values, int row, int gap) {
+            int[] copy = new int[values.length + gap];
+            System.arraycopy(values, 0, copy, 0, row);
+            System.arraycopy(values, row + Math.max(0, -gap), copy, row + Math.max(0, gap),
+                    values.length - row - Math.max(0, -gap));
+            return copy;
+        }
+
+        private static short[] spread(short[] values, int row, int gap) {
+            short[] copy = new short[values.length + gap];
+            System.arraycopy(values, 0, copy, 0, row);
+            System.arraycopy(values, row + Math.max(0, -gap), copy, row + Math.max(0, gap),
+                    values.length - row - Math.max(0, -gap));
+            return copy;
+        }
+
+        private static BitSet spread(BitSet values, int size, int row, int gap) {
+            BitSet copy = values.get(0, row);
+            for (int bit = values.nextSetBit(row); bit >= 0 && bit < size; bit = values.nextSetBit(bit + 1)) {
+                if (gap < 0 && bit == row) {
+                    continue;
+                }
+                copy.set(bit + gap);
+            }
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.dani.luggagebackend.Service;
+
+import java.util.UUID;
+
+/**
+ * Published by {@link LocationService} whenever a location is created,
+ * updated, deleted or has its status toggled.
+ * Listeners receive the state before and after the write so they can
+ * invalidate exactly what the change touched.
+ *
+ * @param previous State before the write (null when the location was created)
+ * @param current  State after the write (null when the location was deleted)
+ */
+public record LocationChangedEvent(LocationSnapshot previous, LocationSnapshot current) {
+
+    public static LocationChangedEvent created(LocationSnapshot current) {
+        return new LocationChangedEvent(null, current);
+    }
+
+    public static LocationChangedEvent updated(LocationSnapshot previous, LocationSnapshot current) {
+        return new LocationChangedEvent(previous, current);
+    }
+
+    public static LocationChangedEvent deleted(LocationSnapshot previous) {
+        return new LocationChangedEvent(previous, null);
+    }
+
+    /**
+     * ID of the location that changed.
+     */
+    public UUID locationId() {
+        return current != null ? current.id() : previous.id();
+    }
+}
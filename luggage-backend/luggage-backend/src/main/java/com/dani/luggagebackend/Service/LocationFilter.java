@@ -0,0 +1,61 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Model.Location;
+import com.dani.luggagebackend.Repo.LocationSpecifications;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Any combination of location filters. Null fields are not filtered on.
+ *
+ * @param city        City, case-insensitive
+ * @param minPrice    Minimum price per hour
+ * @param maxPrice    Maximum price per hour
+ * @param minCapacity Minimum capacity
+ * @param active      Active or inactive locations only
+ * @param hostId      Owning host
+ * @param openAt      Open at this wall-clock time of day
+ */
+public record LocationFilter(
+        String city,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Integer minCapacity,
+        Boolean active,
+        UUID hostId,
+        LocalTime openAt) {
+
+    /**
+     * All filters as one specification.
+     */
+    public Specification<Location> toSpecification() {
+        List<Specification<Location>> specifications = new ArrayList<>();
+        if (active != null) {
+            specifications.add(LocationSpecifications.isActive(active));
+        }
+        if (city != null) {
+            specifications.add(LocationSpecifications.inCity(city));
+        }
+        if (minPrice != null) {
+            specifications.add(LocationSpecifications.priceAtLeast(minPrice));
+        }
+        if (maxPrice != null) {
+            specifications.add(LocationSpecifications.priceAtMost(maxPrice));
+        }
+        if (minCapacity != null) {
+            specifications.add(LocationSpecifications.capacityAtLeast(minCapacity));
+        }
+        if (hostId != null) {
+            specifications.add(LocationSpecifications.ownedBy(hostId));
+        }
+        if (openAt != null) {
+            specifications.add(LocationSpecifications.openAt(openAt));
+        }
+        return Specification.allOf(specifications);
+    }
+}
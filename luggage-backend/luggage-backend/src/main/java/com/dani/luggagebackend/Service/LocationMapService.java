@@ -0,0 +1,189 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.DTO.MapMarker;
+import com.dani.luggagebackend.DTO.MarkerCluster;
+import com.dani.luggagebackend.DTO.ViewportResponse;
+import com.dani.luggagebackend.Model.Location;
+import com.dani.luggagebackend.Repo.LocationRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Builds map content (markers and clusters) for the map screen.
+ * Locations are clustered on a fixed grid in Web Mercator pixel space, so
+ * the number of markers in a viewport depends on its size on screen rather
+ * than on how many locations it contains.
+ */
+@Service
+public class LocationMapService {
+
+    /**
+     * From this zoom level on every location is returned individually.
+     */
+    public static final int MAX_CLUSTER_ZOOM = 16;
+
+    /**
+     * Side of a clustering cell in screen pixels.
+     */
+    static final int CLUSTER_CELL_PX = 64;
+
+    static final int TILE_SIZE_PX = 256;
+
+    @Autowired
+    private LocationSpatialIndex spatialIndex;
+
+    @Autowired
+    private LocationRepo locationRepo;
+
+    /**
+     * Gets the markers and clusters for a map viewport.
+     *
+     * @param south SW corner latitude
+     * @param west  SW corner longitude
+     * @param north NE corner latitude
+     * @param east  NE corner longitude (less than west when crossing the antimeridian)
+     * @param zoom  Map zoom level (0-22)
+     * @return Individual markers and clusters inside the viewport
+     */
+    public ViewportResponse getViewport(double south, double west, double north, double east, int zoom) {
+        List<LocationSnapshot> locations = spatialIndex.isReady()
+                ? spatialIndex.findWithinBounds(south, west, north, east)
+                : loadFromDatabase(south, west, north, east);
+        return cluster(locations, zoom);
+    }
+
+    /**
+     * Number of z/x/y tiles a viewport covers at a zoom level, i.e. how many
+     * 256 px squares it takes up on screen.
+     *
+     * @param south SW corner latitude
+     * @param west  SW corner longitude
+     * @param north NE corner latitude
+     * @param east  NE corner longitude (less than west when crossing the antimeridian)
+     * @param zoom  Map zoom level
+     * @return Tiles covered
+     */
+    public static long tilesCovered(double south, double west, double north, double east, int zoom) {
+        long tiles = 1L << zoom;
+        // Geo.tileX wraps 180 back to column 0, so count columns on the unwrapped span
+        double span = west <= east ? east - west : east - west + 360.0;
+        long firstColumn = (long) ((west + 180.0) / 360.0 * tiles);
+        long lastColumn = (long) ((west + span + 180.0) / 360.0 * tiles);
+        long columns = Math.min(tiles, lastColumn - firstColumn + 1);
+        long rows = Geo.tileY(zoom, south) - Geo.tileY(zoom, north) + 1;
+        return columns * rows;
+    }
+
+    /**
+     * Builds the content of one z/x/y map tile. Clustering cells are aligned
+     * with tile edges, so a tile never shares a cluster with its neighbours.
+     *
+     * @param zoom Tile zoom level
+     * @param x    Tile column
+     * @param y    Tile row
+     * @return Markers and clusters inside the tile
+     */
+    public ViewportResponse buildTile(int zoom, long x, long y) {
+        double west = Geo.tileWestLng(zoom, x);
+        double east = Geo.tileWestLng(zoom, x + 1);
+        double north = y == 0 ? 90.0 : Geo.tileNorthLat(zoom, y);
+        double south = y == (1L << zoom) - 1 ? -90.0 : Geo.tileNorthLat(zoom, y + 1);
+
+        List<LocationSnapshot> candidates = spatialIndex.isReady()
+                ? spatialIndex.findWithinBounds(south, west, north, east)
+                : loadFromDatabase(south, west, north, east);
+
+        // Edges are shared with neighbouring tiles; keep only what maps to this one
+        List<LocationSnapshot> inTile = candidates.stream()
+                .filter(location -> Geo.tileX(zoom, location.lng()) == x && Geo.tileY(zoom, location.lat()) == y)
+                .toList();
+        return cluster(inTile, zoom);
+    }
+
+    /**
+     * Groups locations that fall into the same clustering cell at a zoom
+     * level. Cells holding a single location (and every location at or above
+     * MAX_CLUSTER_ZOOM) are returned as individual markers.
+     *
+     * @param locations Locations to cluster
+     * @param zoom      Map zoom level
+     * @return Markers and clusters
+     */
+    public ViewportResponse cluster(Collection<LocationSnapshot> locations, int zoom) {
+        List<MapMarker> markers = new ArrayList<>();
+        List<MarkerCluster> clusters = new ArrayList<>();
+
+        if (zoom >= MAX_CLUSTER_ZOOM) {
+            locations.stream()
+                    .sorted(Comparator.comparing(LocationSnapshot::id))
+                    .forEach(location -> markers.add(toMarker(location)));
+            return new ViewportResponse(zoom, markers, clusters);
+        }
+
+        long cellsPerAxis = (TILE_SIZE_PX / CLUSTER_CELL_PX) * (1L << zoom);
+        Map<Long, List<LocationSnapshot>> cells = new TreeMap<>();
+        for (LocationSnapshot location : locations) {
+            long cx = Math.min(cellsPerAxis - 1, (long) (Geo.mercatorX(location.lng()) * cellsPerAxis));
+            long cy = Math.min(cellsPerAxis - 1, (long) (Geo.mercatorY(location.lat()) * cellsPerAxis));
+            cells.computeIfAbsent(cy * cellsPerAxis + cx, k -> new ArrayList<>()).add(location);
+        }
+
+        for (List<LocationSnapshot> cell : cells.values()) {
+            if (cell.size() == 1) {
+                markers.add(toMarker(cell.get(0)));
+            } else {
+                clusters.add(toCluster(cell));
+            }
+        }
+        return new ViewportResponse(zoom, markers, clusters);
+    }
+
+    private List<LocationSnapshot> loadFromDatabase(double south, double west, double north, double east) {
+        Stream<Location> locations = west <= east
+                ? locationRepo.findByIsActiveTrueAndLatBetweenAndLngBetween(south, north, west, east).stream()
+                : Stream.concat(
+                        locationRepo.findByIsActiveTrueAndLatBetweenAndLngBetween(south, north, west, 180.0).stream(),
+                        locationRepo.findByIsActiveTrueAndLatBetweenAndLngBetween(south, north, -180.0, east).stream());
+        return locations.map(LocationSnapshot::of).distinct().toList();
+    }
+
+    private MapMarker toMarker(LocationSnapshot location) {
+        return MapMarker.builder()
+                .id(location.id())
+                .name(location.name())
+                .latitude(location.lat())
+                .longitude(location.lng())
+                .pricePerHour(location.pricePerHour())
+                .capacity(location.capacity())
+                .build();
+    }
+
+    private MarkerCluster toCluster(List<LocationSnapshot> cell) {
+        double latSum = 0;
+        double lngSum = 0;
+        BigDecimal minPrice = null;
+        for (LocationSnapshot location : cell) {
+            latSum += location.lat();
+            lngSum += location.lng();
+            if (location.pricePerHour() != null
+                    && (minPrice == null || location.pricePerHour().compareTo(minPrice) < 0)) {
+                minPrice = location.pricePerHour();
+            }
+        }
+        return MarkerCluster.builder()
+                .latitude(latSum / cell.size())
+                .longitude(lngSum / cell.size())
+                .count(cell.size())
+                .minPricePerHour(minPrice)
+                .build();
+    }
+}
@@ -0,0 +1,368 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Model.Booking;
+import com.dani.luggagebackend.Model.Location;
+import com.dani.luggagebackend.Repo.BookingRepo;
+import com.dani.luggagebackend.Repo.LocationRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Booking counts per location over each {@link PopularityWindow}, kept
+ * up to date as bookings are made and cancelled so the most popular
+ * locations can be read without counting bookings.
+ *
+ * Bookings are counted in the hour they were made. Each sliding window
+ * sums the hourly counts it covers; when an hour falls out of a window its
+ * counts are subtracted, so moving the window costs as much as the
+ * bookings leaving it. Every window keeps its active locations sorted by
+ * count, and reading the top k walks the first k entries.
+ *
+ * Rebuilt from the database at startup and kept up to date from
+ * {@link BookingChangedEvent}s and {@link LocationChangedEvent}s once the
+ * surrounding transaction commits.
+ */
+@Component
+public class LocationPopularity {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationPopularity.class);
+
+    // Bookings that count towards popularity
+    static final Set<Booking.BookingStatus> COUNTED_STATUSES = EnumSet.of(
+            Booking.BookingStatus.PENDING, Booking.BookingStatus.CONFIRMED, Booking.BookingStatus.COMPLETED);
+
+    private static final long BUCKET_SECONDS = 3600;
+
+    @Autowired
+    private LocationRepo locationRepo;
+
+    @Autowired
+    private BookingRepo bookingRepo;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State(hourOf(Instant.now()));
+    private volatile boolean ready;
+
+    /**
+     * Loads active locations, all-time counts and the bookings made within
+     * the longest window once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        long started = System.nanoTime();
+        Instant now = Instant.now();
+        List<UUID> active = locationRepo.findByIsActiveTrue().stream()
+                .map(Location::getId)
+                .toList();
+        Map<UUID, Long> allTime = new HashMap<>();
+        bookingRepo.countByLocationAndStatusIn(COUNTED_STATUSES)
+                .forEach(count -> allTime.put(count.getLocationId(), count.getBookings()));
+        List<Creation> recent = bookingRepo.findCreatedSince(now.minus(longestWindow()), COUNTED_STATUSES).stream()
+                .map(row -> new Creation(row.getLocationId(), row.getCreatedAt()))
+                .toList();
+        rebuild(active, allTime, recent, now);
+        log.info("Location popularity loaded {} active locations and {} recent bookings in {} ms",
+                active.size(), recent.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Replaces all counters.
+     *
+     * @param activeIds IDs of the locations that can be ranked
+     * @param allTime   All-time booking count per location ID
+     * @param recent    Bookings made within the longest window (they are
+     *                  already part of the all-time counts)
+     * @param now       Current time
+     */
+    public void rebuild(Collection<UUID> activeIds, Map<UUID, Long> allTime, Collection<Creation> recent,
+                        Instant now) {
+        State rebuilt = new State(hourOf(now));
+        activeIds.forEach(id -> rebuilt.setActive(id, true));
+        allTime.forEach((id, count) -> rebuilt.rankings.get(PopularityWindow.ALL_TIME).add(id, count));
+        recent.forEach(creation -> rebuilt.countRecent(creation.locationId(), creation.createdAt(), 1));
+
+        lock.writeLock().lock();
+        try {
+            state = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts a committed booking write when it moves the booking into or
+     * out of a counted status.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        onBookingChanged(event, Instant.now());
+    }
+
+    void onBookingChanged(BookingChangedEvent event, Instant now) {
+        boolean wasCounted = event.previous() != null && COUNTED_STATUSES.contains(event.previous().status());
+        boolean isCounted = COUNTED_STATUSES.contains(event.current().status());
+        if (wasCounted == isCounted || event.current().locationId() == null) {
+            return;
+        }
+        int delta = isCounted ? 1 : -1;
+        lock.writeLock().lock();
+        try {
+            state.advance(hourOf(now));
+            state.rankings.get(PopularityWindow.ALL_TIME).add(event.current().locationId(), delta);
+            state.countRecent(event.current().locationId(), event.current().createdAt(), delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps inactive and deleted locations out of the rankings.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(LocationChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.current() == null) {
+                state.forget(event.locationId());
+            } else {
+                state.setActive(event.locationId(), event.current().active());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * IDs of the active locations with the most bookings in a window,
+     * highest first. Ties and locations without bookings follow ID order.
+     *
+     * @param window Time window to count bookings over
+     * @param limit  Maximum number of IDs
+     * @return Location IDs
+     */
+    public List<UUID> top(PopularityWindow window, int limit) {
+        return top(window, limit, Instant.now());
+    }
+
+    List<UUID> top(PopularityWindow window, int limit, Instant now) {
+        long hour = hourOf(now);
+        lock.readLock().lock();
+        try {
+            if (state.hour >= hour) {
+                return state.rankings.get(window).top(limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            state.advance(hour);
+            return state.rankings.get(window).top(limit);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bookings of a location in a window.
+     */
+    long count(PopularityWindow window, UUID locationId, Instant now) {
+        lock.writeLock().lock();
+        try {
+            state.advance(hourOf(now));
+            return state.rankings.get(window).counts.getOrDefault(locationId, 0L);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static long hourOf(Instant time) {
+        return Math.floorDiv(time.getEpochSecond(), BUCKET_SECONDS);
+    }
+
+    private static Duration longestWindow() {
+        return PopularityWindow.WEEK.length();
+    }
+
+    private static long hoursOf(PopularityWindow window) {
+        return window.length().getSeconds() / BUCKET_SECONDS;
+    }
+
+    /**
+     * When a booking for a location was made.
+     */
+    public record Creation(UUID locationId, Instant createdAt) {
+    }
+
+    /**
+     * Counters of every window; guarded by the lock.
+     */
+    private static final class State {
+
+        private final Set<UUID> active = new HashSet<>();
+        private final Map<PopularityWindow, Ranking> rankings = new EnumMap<>(PopularityWindow.class);
+        // Bookings made per hour, for the hours still inside some window
+        private final NavigableMap<Long, Map<UUID, Integer>> buckets = new TreeMap<>();
+        // First hour each sliding window covers
+        private final Map<PopularityWindow, Long> firstHour = new EnumMap<>(PopularityWindow.class);
+        private long hour;
+
+        State(long hour) {
+            this.hour = hour;
+            for (PopularityWindow window : PopularityWindow.values()) {
+                rankings.put(window, new Ranking(active));
+                if (window.length() != null) {
+                    firstHour.put(window, hour - hoursOf(window) + 1);
+                }
+            }
+        }
+
+        /**
+         * Slides every window up to the given hour, subtracting the hours
+         * that fall out of it.
+         */
+        void advance(long now) {
+            if (now <= hour) {
+                return;
+            }
+            hour = now;
+            long oldest = Long.MAX_VALUE;
+            for (Map.Entry<PopularityWindow, Long> entry : firstHour.entrySet()) {
+                long first = now - hoursOf(entry.getKey()) + 1;
+                Ranking ranking = rankings.get(entry.getKey());
+                for (Map<UUID, Integer> bucket : buckets.subMap(entry.getValue(), first).values()) {
+                    bucket.forEach((id, count) -> ranking.add(id, -count));
+                }
+                entry.setValue(first);
+                oldest = Math.min(oldest, first);
+            }
+            buckets.headMap(oldest).clear();
+        }
+
+        /**
+         * Adds to the sliding windows that cover the hour a booking was
+         * made. Bookings without a creation time only count for all time.
+         */
+        void countRecent(UUID locationId, Instant createdAt, int delta) {
+            if (createdAt == null) {
+                return;
+            }
+            long created = hourOf(createdAt);
+            boolean covered = false;
+            for (Map.Entry<PopularityWindow, Long> entry : firstHour.entrySet()) {
+                if (created >= entry.getValue()) {
+                    rankings.get(entry.getKey()).add(locationId, delta);
+                    covered = true;
+                }
+            }
+            if (covered) {
+                Map<UUID, Integer> bucket = buckets.computeIfAbsent(created, key -> new HashMap<>());
+                if (bucket.merge(locationId, delta, Integer::sum) == 0) {
+                    bucket.remove(locationId);
+                }
+            }
+        }
+
+        void setActive(UUID locationId, boolean isActive) {
+            boolean changed = isActive ? active.add(locationId) : active.remove(locationId);
+            if (changed) {
+                rankings.values().forEach(ranking -> ranking.setRanked(locationId, isActive));
+            }
+        }
+
+        void forget(UUID locationId) {
+            setActive(locationId, false);
+            rankings.values().forEach(ranking -> ranking.counts.remove(locationId));
+            buckets.values().forEach(bucket -> bucket.remove(locationId));
+        }
+    }
+
+    /**
+     * Counts of one window plus the active locations sorted by them.
+     */
+    private static final class Ranking {
+
+        private final Set<UUID> active;
+        private final Map<UUID, Long> counts = new HashMap<>();
+        private final NavigableSet<Ranked> order = new TreeSet<>();
+
+        Ranking(Set<UUID> active) {
+            this.active = active;
+        }
+
+        void add(UUID locationId, long delta) {
+            long previous = counts.getOrDefault(locationId, 0L);
+            long updated = previous + delta;
+            if (updated == 0) {
+                counts.remove(locationId);
+            } else {
+                counts.put(locationId, updated);
+            }
+            if (active.contains(locationId)) {
+                order.remove(new Ranked(locationId, previous));
+                order.add(new Ranked(locationId, updated));
+            }
+        }
+
+        void setRanked(UUID locationId, boolean ranked) {
+            Ranked entry = new Ranked(locationId, counts.getOrDefault(locationId, 0L));
+            if (ranked) {
+                order.add(entry);
+            } else {
+                order.remove(entry);
+            }
+        }
+
+        List<UUID> top(int limit) {
+            List<UUID> ids = new ArrayList<>(Math.max(0, Math.min(limit, order.size())));
+            for (Ranked entry : order) {
+                if (ids.size() >= limit) {
+                    break;
+                }
+                ids.add(entry.locationId());
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Position of a location in a ranking: highest count first, then ID.
+     */
+    private record Ranked(UUID locationId, long count) implements Comparable<Ranked> {
+
+        @Override
+        public int compareTo(Ranked other) {
+            int byCount = Long.compare(other.count, count);
+            return byCount != 0 ? byCount : locationId.compareTo(other.locationId);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Repo.LocationRepo;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LatLonDocValuesField;
+import org.apache.lucene.document.LatLonPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.range.DoubleRange;
+import org.apache.lucene.facet.range.DoubleRangeFacetCounts;
+import org.apache.lucene.facet.range.LongRange;
+import org.apache.lucene.facet.range.LongRangeFacetCounts;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Node-local full-text index over active locations, held in memory.
+ * Name, address and city are tokenized, lower-cased and accent-folded, so
+ * "cafe" finds "Café" and small typos still match. Text, distance, price
+ * and capacity conditions run as one Lucene query, and price and capacity
+ * range counts are collected from the same pass.
+ *
+ * Rebuilt from the database at startup and kept up to date from
+ * {@link LocationChangedEvent}s once the surrounding transaction commits.
+ */
+@Component
+public class LocationSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationSearchIndex.class);
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String ADDRESS = "address";
+    private static final String CITY = "city";
+    private static final String POSITION = "position";
+    private static final String PRICE = "price";
+    private static final String CAPACITY = "capacity";
+
+    // A name match counts more than a city match, which counts more than an address match
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(NAME, 3.0f, CITY, 2.0f, ADDRESS, 1.0f);
+    private static final float FUZZY_BOOST = 0.5f;
+
+    private static final DoubleRange[] PRICE_RANGES = {
+            new DoubleRange("< 5", 0.0, true, 5.0, false),
+            new DoubleRange("5 - 10", 5.0, true, 10.0, false),
+            new DoubleRange("10 - 20", 10.0, true, 20.0, false),
+            new DoubleRange(">= 20", 20.0, true, Double.POSITIVE_INFINITY, true)
+    };
+    private static final LongRange[] CAPACITY_RANGES = {
+            new LongRange("< 10", 0, true, 10, false),
+            new LongRange("10 - 24", 10, true, 25, false),
+            new LongRange("25 - 49", 25, true, 50, false),
+            new LongRange(">= 50", 50, true, Long.MAX_VALUE, true)
+    };
+
+    @Autowired
+    private LocationRepo locationRepo;
+
+    private final Analyzer analyzer = new FoldingAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searchers;
+    private volatile boolean ready;
+
+    public LocationSearchIndex() {
+        try {
+            this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+            this.searchers = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads every active location once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        long started = System.nanoTime();
+        List<LocationSnapshot> snapshots = locationRepo.findByIsActiveTrue().stream()
+                .map(LocationSnapshot::of)
+                .toList();
+        rebuild(snapshots);
+        log.info("Search index loaded {} active locations in {} ms",
+                snapshots.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Replaces the whole index content. Inactive locations are ignored.
+     *
+     * @param locations Locations to index
+     */
+    public synchronized void rebuild(Collection<LocationSnapshot> locations) {
+        try {
+            writer.deleteAll();
+            for (LocationSnapshot location : locations) {
+                if (location.active()) {
+                    writer.addDocument(toDocument(location));
+                }
+            }
+            searchers.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ready = true;
+    }
+
+    /**
+     * Keeps the index in sync with committed location writes.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(LocationChangedEvent event) {
+        if (event.current() == null) {
+            remove(event.previous().id());
+        } else {
+            upsert(event.current());
+        }
+    }
+
+    /**
+     * Adds or replaces a location. Inactive locations are removed from the index.
+     *
+     * @param location Latest state of the location
+     */
+    public void upsert(LocationSnapshot location) {
+        if (!location.active()) {
+            remove(location.id());
+            return;
+        }
+        try {
+            writer.updateDocument(new Term(ID, location.id().toString()), toDocument(location));
+            searchers.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Removes a location from the index.
+     *
+     * @param locationId Location ID
+     */
+    public void remove(UUID locationId) {
+        try {
+            writer.deleteDocuments(new Term(ID, locationId.toString()));
+            searchers.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Whether the index has been loaded and can answer queries.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Runs a combined text, distance, price and capacity search.
+     *
+     * @param criteria Search criteria
+     * @return Best hits, total match count and facet counts over all matches
+     */
+    public Result search(Criteria criteria) {
+        Query query = buildQuery(criteria);
+        try {
+            IndexSearcher searcher = searchers.acquire();
+            try {
+                FacetsCollectorManager.FacetsResult result;
+                if (criteria.sortByDistance() && criteria.latitude() != null && criteria.longitude() != null) {
+                    Sort sort = new Sort(LatLonDocValuesField.newDistanceSort(
+                            POSITION, criteria.latitude(), criteria.longitude()));
+                    result = FacetsCollectorManager.search(searcher, query, criteria.limit(), sort,
+                            new FacetsCollectorManager());
+                } else {
+                    result = FacetsCollectorManager.search(searcher, query, criteria.limit(),
+                            new FacetsCollectorManager());
+                }
+
+                List<Hit> hits = new ArrayList<>(result.topDocs().scoreDocs.length);
+                for (ScoreDoc scoreDoc : result.topDocs().scoreDocs) {
+                    String id = searcher.storedFields().document(scoreDoc.doc).get(ID);
+                    hits.add(new Hit(UUID.fromString(id), scoreDoc.score));
+                }
+
+                FacetsCollector facets = result.facetsCollector();
+                long totalHits = 0;
+                for (FacetsCollector.MatchingDocs matching : facets.getMatchingDocs()) {
+                    totalHits += matching.totalHits;
+                }
+                return new Result(hits, totalHits,
+                        buckets(new DoubleRangeFacetCounts(PRICE, facets, PRICE_RANGES).getAllChildren(PRICE)),
+                        buckets(new LongRangeFacetCounts(CAPACITY, facets, CAPACITY_RANGES).getAllChildren(CAPACITY)));
+            } finally {
+                searchers.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searchers.close();
+        writer.close();
+    }
+
+    /**
+     * Every query word has to match name, address or city, exactly or
+     * within a small edit distance. Distance, price and capacity are
+     * filters that do not affect the score.
+     */
+    private Query buildQuery(Criteria criteria) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        List<String> words = analyze(criteria.text());
+        if (words.isEmpty()) {
+            query.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        for (String word : words) {
+            BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+            int maxEdits = word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+            FIELD_BOOSTS.forEach((field, boost) -> {
+                Term term = new Term(field, word);
+                anyField.add(new BoostQuery(new TermQuery(term), boost), BooleanClause.Occur.SHOULD);
+                if (maxEdits > 0) {
+                    anyField.add(new BoostQuery(new FuzzyQuery(term, maxEdits, 1), boost * FUZZY_BOOST),
+                            BooleanClause.Occur.SHOULD);
+                }
+            });
+            query.add(anyField.build(), BooleanClause.Occur.MUST);
+        }
+
+        if (criteria.latitude() != null && criteria.longitude() != null && criteria.radiusKm() != null) {
+            query.add(LatLonPoint.newDistanceQuery(POSITION, criteria.latitude(), criteria.longitude(),
+                    criteria.radiusKm() * 1000.0), BooleanClause.Occur.FILTER);
+        }
+        if (criteria.minPrice() != null || criteria.maxPrice() != null) {
+            double min = criteria.minPrice() != null ? criteria.minPrice().doubleValue() : Double.NEGATIVE_INFINITY;
+            double max = criteria.maxPrice() != null ? criteria.maxPrice().doubleValue() : Double.POSITIVE_INFINITY;
+            query.add(DoublePoint.newRangeQuery(PRICE, min, max), BooleanClause.Occur.FILTER);
+        }
+        if (criteria.minCapacity() != null) {
+            query.add(IntPoint.newRangeQuery(CAPACITY, criteria.minCapacity(), Integer.MAX_VALUE),
+                    BooleanClause.Occur.FILTER);
+        }
+        return query.build();
+    }
+
+    /**
+     * Splits text into the same folded terms that were indexed.
+     */
+    private List<String> analyze(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return words;
+        }
+        try (TokenStream tokens = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                words.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return words;
+    }
+
+    private static Document toDocument(LocationSnapshot location) {
+        Document document = new Document();
+        document.add(new StringField(ID, location.id().toString(), Field.Store.YES));
+        addText(document, NAME, location.name());
+        addText(document, ADDRESS, location.address());
+        addText(document, CITY, location.city());
+        document.add(new LatLonPoint(POSITION, location.lat(), location.lng()));
+        document.add(new LatLonDocValuesField(POSITION, location.lat(), location.lng()));
+        if (location.pricePerHour() != null) {
+            double price = location.pricePerHour().doubleValue();
+            document.add(new DoublePoint(PRICE, price));
+            document.add(new DoubleDocValuesField(PRICE, price));
+        }
+        document.add(new IntPoint(CAPACITY, location.capacity()));
+        document.add(new NumericDocValuesField(CAPACITY, location.capacity()));
+        return document;
+    }
+
+    private static void addText(Document document, String field, String value) {
+        if (value != null) {
+            document.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    private static List<Bucket> buckets(FacetResult result) {
+        List<Bucket> buckets = new ArrayList<>(result.labelValues.length);
+        for (LabelAndValue labelAndValue : result.labelValues) {
+            buckets.add(new Bucket(labelAndValue.label, labelAndValue.value.longValue()));
+        }
+        return buckets;
+    }
+
+    /**
+     * Standard tokenizer, lower-casing and folding accents to ASCII.
+     */
+    private static final class FoldingAnalyzer extends Analyzer {
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            StandardTokenizer source = new StandardTokenizer();
+            return new TokenStreamComponents(source, new ASCIIFoldingFilter(new LowerCaseFilter(source)));
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+
+    /**
+     * Search criteria. Every field except limit is optional; distance
+     * filtering needs latitude, longitude and radiusKm.
+     */
+    public record Criteria(
+            String text,
+            Double latitude,
+            Double longitude,
+            Double radiusKm,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Integer minCapacity,
+            boolean sortByDistance,
+            int limit) {
+    }
+
+    /**
+     * A matching location and its relevance score (NaN when sorted by distance).
+     */
+    public record Hit(UUID locationId, float score) {
+    }
+
+    /**
+     * Number of matches in one facet range.
+     */
+    public record Bucket(String label, long count) {
+    }
+
+    /**
+     * Search results.
+     */
+    public record Result(List<Hit> hits, long totalHits, List<Bucket> priceFacets, List<Bucket> capacityFacets) {
+    }
+}
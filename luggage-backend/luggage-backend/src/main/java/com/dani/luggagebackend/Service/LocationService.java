@@ -1,32 +1,78 @@
 package com.dani.luggagebackend.Service;
 
+import com.dani.luggagebackend.DTO.AvailabilityCalendarResponse;
+import com.dani.luggagebackend.DTO.CorridorLocationResponse;
 import com.dani.luggagebackend.DTO.CreateLocationRequest;
+import com.dani.luggagebackend.DTO.LocationAvailability;
 import com.dani.luggagebackend.DTO.LocationResponse;
+import com.dani.luggagebackend.DTO.LocationSearchResponse;
+import com.dani.luggagebackend.DTO.MultiOriginLocationResponse;
 import com.dani.luggagebackend.Exception.BadRequestException;
 import com.dani.luggagebackend.Exception.ForbiddenException;
 import com.dani.luggagebackend.Exception.ResourceNotFoundException;
-import com.dani.luggagebackend.Model.Booking;
 import com.dani.luggagebackend.Model.Location;
 import com.dani.luggagebackend.Model.Users;
 import com.dani.luggagebackend.Repo.BookingRepo;
 import com.dani.luggagebackend.Repo.LocationRepo;
+import com.dani.luggagebackend.Repo.LocationSpecifications;
 import com.dani.luggagebackend.Repo.UsersRepo;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 public class LocationService {
 
+    private static final Logger log = LoggerFactory.getLogger(LocationService.class);
+
+    // Streamed results are sent in batches that start small so the closest
+    // locations arrive quickly, then grow to keep the number of queries low
+    private static final int FIRST_STREAM_BATCH = 16;
+    private static final int MAX_STREAM_BATCH = 256;
+
+    private static final int MAX_IN_LIST = 10_000;
+
+    // Walking times are added to this many of the closest results
+    private static final int MAX_WALKING_TIMES = 50;
+
+    // Keyword search returns at most this many of the best matches
+    private static final int MAX_KEYWORD_RESULTS = 100;
+
     @Autowired
     private LocationRepo locationRepo;
 
@@ -36,10 +82,49 @@ public class LocationService {
     @Autowired
     private BookingRepo bookingRepo;
 
+    @Autowired
+    private LocationSpatialIndex spatialIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private NearbyResultCache nearbyResultCache;
+
+    @Autowired
+    private WalkingRouter walkingRouter;
+
+    @Autowired
+    private LocationSearchIndex searchIndex;
+
+    @Autowired
+    private LocationCatalog catalog;
+
+    @Autowired
+    private LocationPopularity popularity;
+
+    @Autowired
+    private CityDirectory cityDirectory;
+
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+
+    @Autowired
+    private AvailabilityCalendar availabilityCalendar;
+
     /**
-     * Finds all storage locations within a specified radius of the user's current
-     * position.
-     * Results are ordered by distance (closest first).
+     * Fraction of index-served nearby searches that are re-run against the
+     * database and compared, to catch the index drifting from Postgres.
+     */
+    @Value("${locations.spatial-index.consistency-check-rate:0.0}")
+    private double consistencyCheckRate;
+
+    /**
+     * Finds all active storage locations within a specified radius of the
+     * user's current position.
+     * Results are ordered by distance (closest first). Served from the
+     * in-memory spatial index, falling back to the database query until the
+     * index has been loaded.
      *
      * @param latitude  User's current latitude
      * @param longitude User's current longitude
@@ -47,11 +132,30 @@ public class LocationService {
      * @return List of LocationResponse DTOs with calculated distances
      */
     public List<LocationResponse> findNearbyLocations(Double latitude, Double longitude, Double radiusKm) {
-        List<Location> locations = locationRepo.findLocationsWithinRadius(latitude, longitude, radiusKm);
+        return findNearbyWithFilters(latitude, longitude, radiusKm, null, null, null);
+    }
 
-        return locations.stream()
-                .map(location -> convertToResponse(location, latitude, longitude))
-                .collect(Collectors.toList());
+    /**
+     * Finds the k active storage locations closest to the user's position,
+     * ordered by distance (closest first).
+     * The search widens ring by ring around the user until k locations have
+     * been found or maxRadiusKm has been covered, all in a single call.
+     *
+     * @param latitude    User's current latitude
+     * @param longitude   User's current longitude
+     * @param k           Number of locations to return
+     * @param maxRadiusKm Maximum search radius in kilometers
+     * @return Up to k closest locations with calculated distances
+     */
+    public List<LocationResponse> findNearestLocations(Double latitude, Double longitude, int k, Double maxRadiusKm) {
+        if (!spatialIndex.isReady()) {
+            List<Location> locations = locationRepo.findActiveLocationsWithinRadiusAndFilters(
+                    latitude, longitude, maxRadiusKm, null, null, null);
+            return toResponses(locations.stream().limit(k).toList(), latitude, longitude);
+        }
+
+        return withWalkingTimes(latitude, longitude,
+                toResponses(spatialIndex.findNearest(latitude, longitude, k, maxRadiusKm, null)));
     }
 
     /**
@@ -62,7 +166,7 @@ public class LocationService {
      */
     public Optional<LocationResponse> getLocationById(UUID id) {
         return locationRepo.findById(id)
-                .map(location -> convertToResponse(location, null, null));
+                .map(location -> convertToResponse(location, null));
     }
 
     /**
@@ -73,7 +177,7 @@ public class LocationService {
      */
     public Page<LocationResponse> getAllLocations(Pageable pageable) {
         return locationRepo.findAll(pageable)
-                .map(location -> convertToResponse(location, null, null));
+                .map(location -> convertToResponse(location, null));
     }
 
     /**
@@ -105,9 +209,11 @@ public class LocationService {
                 .hours(request.getHours())
                 .isActive(true)
                 .build();
+        applyOpeningHours(location);
 
         Location savedLocation = locationRepo.save(location);
-        return convertToResponse(savedLocation, null, null);
+        eventPublisher.publishEvent(LocationChangedEvent.created(LocationSnapshot.of(savedLocation)));
+        return convertToResponse(savedLocation, null);
     }
 
     /**
@@ -119,7 +225,7 @@ public class LocationService {
     public List<LocationResponse> getLocationsByHost(UUID hostId) {
         List<Location> locations = locationRepo.findByHostId(hostId);
         return locations.stream()
-                .map(location -> convertToResponse(location, null, null))
+                .map(location -> convertToResponse(location, null))
                 .collect(Collectors.toList());
     }
 
@@ -141,6 +247,7 @@ public class LocationService {
             throw new ForbiddenException("You don't have permission to update this location");
         }
 
+        LocationSnapshot previous = LocationSnapshot.of(location);
         location.setName(request.getName());
         location.setAddress(request.getAddress());
         location.setCity(request.getCity());
@@ -149,9 +256,11 @@ public class LocationService {
         location.setPricePerHour(request.getPricePerHour());
         location.setCapacity(request.getCapacity());
         location.setHours(request.getHours());
+        applyOpeningHours(location);
 
         Location updatedLocation = locationRepo.save(location);
-        return convertToResponse(updatedLocation, null, null);
+        eventPublisher.publishEvent(LocationChangedEvent.updated(previous, LocationSnapshot.of(updatedLocation)));
+        return convertToResponse(updatedLocation, null);
     }
 
     /**
@@ -170,85 +279,94 @@ public class LocationService {
             throw new ForbiddenException("You don't have permission to delete this location");
         }
 
+        LocationSnapshot previous = LocationSnapshot.of(location);
         locationRepo.delete(location);
+        eventPublisher.publishEvent(LocationChangedEvent.deleted(previous));
     }
 
     /**
-     * Search locations by keyword (searches name and address).
+     * Search locations by keyword (searches name, address and city).
+     * Once the search index has loaded, word order, accents and small typos
+     * do not matter and the best matches come first.
      *
      * @param keyword Search term
      * @return List of matching locations
      */
     public List<LocationResponse> searchLocations(String keyword) {
-        List<Location> locations = locationRepo
-                .findByIsActiveTrueAndNameContainingIgnoreCaseOrAddressContainingIgnoreCase(keyword, keyword);
-        return locations.stream()
-                .map(location -> convertToResponse(location, null, null))
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Filter locations by price range.
-     *
-     * @param minPrice Minimum price
-     * @param maxPrice Maximum price
-     * @return List of locations in price range
-     */
-    public List<LocationResponse> filterByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        List<Location> locations = locationRepo.findByPricePerHourBetween(minPrice, maxPrice);
-        return locations.stream()
-                .filter(Location::getIsActive)
-                .map(location -> convertToResponse(location, null, null))
-                .collect(Collectors.toList());
+        if (!searchIndex.isReady()) {
+            return locationRepo.searchActiveByKeyword(keyword).stream()
+                    .map(location -> convertToResponse(location, null))
+                    .collect(Collectors.toList());
+        }
+        LocationSearchIndex.Result result = searchIndex.search(new LocationSearchIndex.Criteria(
+                keyword, null, null, null, null, null, null, false, MAX_KEYWORD_RESULTS));
+        return toSearchResponses(result.hits(), null, null);
     }
 
     /**
-     * Filter locations by minimum capacity.
+     * Combined text, distance, price and capacity search with price and
+     * capacity counts over all matches. Requires the search index to be
+     * loaded.
      *
-     * @param minCapacity Minimum capacity
-     * @return List of locations with at least minCapacity
+     * @param criteria Search criteria
+     * @return Best matches, total match count and facet counts
      */
-    public List<LocationResponse> filterByCapacity(Integer minCapacity) {
-        List<Location> locations = locationRepo.findByCapacityGreaterThanEqual(minCapacity);
-        return locations.stream()
-                .filter(Location::getIsActive)
-                .map(location -> convertToResponse(location, null, null))
-                .collect(Collectors.toList());
+    public LocationSearchResponse searchLocations(LocationSearchIndex.Criteria criteria) {
+        LocationSearchIndex.Result result = searchIndex.search(criteria);
+        return LocationSearchResponse.builder()
+                .results(toSearchResponses(result.hits(), criteria.latitude(), criteria.longitude()))
+                .totalHits(result.totalHits())
+                .priceFacets(toFacetCounts(result.priceFacets()))
+                .capacityFacets(toFacetCounts(result.capacityFacets()))
+                .build();
     }
 
     /**
-     * Get all locations in a specific city.
+     * Get all active locations in a specific city (case-insensitive).
+     * Looked up in the city directory; the database is only queried for
+     * the matching locations, by ID.
      *
      * @param city City name
-     * @return List of locations in the city
+     * @return List of active locations in that city
      */
     public List<LocationResponse> getLocationsByCity(String city) {
-        List<Location> locations = locationRepo.findByIsActiveTrueAndCityIgnoreCase(city);
+        List<Location> locations = cityDirectory.isReady()
+                ? findAllInOrder(cityDirectory.activeLocationIds(city))
+                : locationRepo.findByIsActiveTrueAndCityIgnoreCase(city);
         return locations.stream()
-                .map(location -> convertToResponse(location, null, null))
+                .map(location -> convertToResponse(location, null))
                 .collect(Collectors.toList());
     }
 
     /**
      * Get all unique cities with locations.
+     * Served from the city directory once it has been loaded.
      *
      * @return List of city names
      */
     public List<String> getAllCities() {
-        return locationRepo.findAllCities();
+        return cityDirectory.isReady() ? cityDirectory.cityNames() : locationRepo.findAllCities();
     }
 
     /**
-     * Get popular locations based on booking count.
+     * Get popular locations based on booking count over a time window.
+     * Read from the maintained popularity counters; until they have been
+     * loaded, locations are ranked by all-time count in the database.
      *
-     * @param limit Maximum number of locations to return
+     * @param limit  Maximum number of locations to return
+     * @param window Time window to count bookings over
      * @return List of popular locations
      */
-    public List<LocationResponse> getPopularLocations(Integer limit) {
-        List<Location> locations = locationRepo.findMostPopularLocations();
-        return locations.stream()
-                .limit(limit != null ? limit : 10)
-                .map(location -> convertToResponse(location, null, null))
+    public List<LocationResponse> getPopularLocations(Integer limit, PopularityWindow window) {
+        int max = limit != null ? limit : 10;
+        List<UUID> ids;
+        if (popularity.isReady()) {
+            ids = popularity.top(window, max);
+        } else {
+            ids = locationRepo.findMostPopularLocationIds(Limit.of(max));
+        }
+        return findAllInOrder(ids).stream()
+                .map(location -> convertToResponse(location, null))
                 .collect(Collectors.toList());
     }
 
@@ -266,20 +384,341 @@ public class LocationService {
     public List<LocationResponse> findNearbyWithFilters(
             Double latitude, Double longitude, Double radiusKm,
             BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity) {
-        List<Location> locations = locationRepo.findActiveLocationsWithinRadiusAndFilters(
+        List<LocationSpatialIndex.Match> matches = nearbyMatches(
                 latitude, longitude, radiusKm, minPrice, maxPrice, minCapacity);
-        return locations.stream()
-                .map(location -> convertToResponse(location, latitude, longitude))
+
+        if (consistencyCheckRate > 0 && ThreadLocalRandom.current().nextDouble() < consistencyCheckRate) {
+            verifyAgainstDatabase(matches, latitude, longitude, radiusKm, minPrice, maxPrice, minCapacity);
+        }
+
+        return withWalkingTimes(latitude, longitude, toResponses(matches));
+    }
+
+    /**
+     * Find locations within a walking time of the user, using the offline
+     * walking router. Returns an empty list if the router is not loaded or
+     * the user is too far from the road graph.
+     *
+     * @param latitude    User's latitude
+     * @param longitude   User's longitude
+     * @param maxMinutes  Maximum walking time
+     * @param minPrice    Minimum price filter (optional)
+     * @param maxPrice    Maximum price filter (optional)
+     * @param minCapacity Minimum capacity filter (optional)
+     * @return Reachable locations ordered by walking time
+     */
+    public List<LocationResponse> findWithinWalkingTime(
+            Double latitude, Double longitude, Double maxMinutes,
+            BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity) {
+        WalkingRouter.Isochrone isochrone = walkingRouter.isochrone(latitude, longitude, maxMinutes);
+        if (isochrone == null) {
+            return List.of();
+        }
+
+        // Nothing reachable within the budget lies beyond walking it in a straight line
+        Map<UUID, Double> minutes = new HashMap<>();
+        List<LocationSpatialIndex.Match> reachable = new ArrayList<>();
+        for (LocationSpatialIndex.Match match : nearbyMatches(
+                latitude, longitude, isochrone.radiusKm(), minPrice, maxPrice, minCapacity)) {
+            Double walk = isochrone.minutesTo(match.location().lat(), match.location().lng());
+            if (walk != null) {
+                minutes.put(match.location().id(), walk);
+                reachable.add(match);
+            }
+        }
+
+        List<LocationResponse> responses = new ArrayList<>(toResponses(reachable));
+        responses.forEach(response -> response.setWalkingMinutes(minutes.get(response.getId())));
+        responses.sort(Comparator.comparing(LocationResponse::getWalkingMinutes));
+        return responses;
+    }
+
+    /**
+     * Find nearby locations with filters that have room for the given number
+     * of bags during a time window. Free bags come from the candidates'
+     * capacity ledgers, the same ones bookings are admitted against, and the
+     * missing ledgers are loaded in one grouped query instead of one
+     * availability check per location.
+     *
+     * @param latitude    User's latitude
+     * @param longitude   User's longitude
+     * @param radiusKm    Search radius
+     * @param minPrice    Minimum price filter (optional)
+     * @param maxPrice    Maximum price filter (optional)
+     * @param minCapacity Minimum capacity filter (optional)
+     * @param startTime   Drop-off time
+     * @param endTime     Pick-up time
+     * @param bags        Number of bags to store
+     * @return Available nearby locations ordered by distance
+     */
+    @Transactional(readOnly = true)
+    public List<LocationResponse> findAvailableNearby(
+            Double latitude, Double longitude, Double radiusKm,
+            BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity,
+            Instant startTime, Instant endTime, int bags) {
+        // A location with fewer slots than bags can never fit them
+        int requiredCapacity = minCapacity != null ? Math.max(minCapacity, bags) : bags;
+        List<LocationSpatialIndex.Match> matches = nearbyMatches(
+                latitude, longitude, radiusKm, minPrice, maxPrice, requiredCapacity);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        List<OccupancyIndex.Window> window = List.of(new OccupancyIndex.Window(startTime, endTime));
+        Map<UUID, long[]> remaining = new HashMap<>();
+        // Chunked to stay well below the bind parameter limit on huge radii
+        for (int from = 0; from < matches.size(); from += MAX_IN_LIST) {
+            Map<UUID, Integer> capacities = new HashMap<>();
+            for (LocationSpatialIndex.Match match : matches.subList(from, Math.min(from + MAX_IN_LIST, matches.size()))) {
+                capacities.put(match.location().id(), match.location().capacity());
+            }
+            remaining.putAll(occupancyIndex.remaining(capacities, window, OccupancyIndex.batchLoaderOf(bookingRepo)));
+        }
+
+        return withWalkingTimes(latitude, longitude, toResponses(matches.stream()
+                .filter(match -> remaining.get(match.location().id())[0] >= bags)
+                .toList()));
+    }
+
+    /**
+     * Finds locations near any of several origins, each with its own radius.
+     * All origins are answered from one pass over the spatial index; a
+     * location near several origins is returned once with its distance to
+     * each of them.
+     *
+     * @param origins     Search origins and radii
+     * @param minPrice    Minimum price filter (optional)
+     * @param maxPrice    Maximum price filter (optional)
+     * @param minCapacity Minimum capacity filter (optional)
+     * @return Locations ordered by distance to their nearest origin
+     */
+    public List<MultiOriginLocationResponse> findNearAnyOrigin(
+            List<LocationSpatialIndex.Origin> origins,
+            BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity) {
+        List<LocationSpatialIndex.MultiMatch> matches;
+        if (spatialIndex.isReady()) {
+            matches = spatialIndex.findNearAny(origins, priceAndCapacityFilter(minPrice, maxPrice, minCapacity));
+        } else {
+            // Before the index has loaded: one query per origin, merged
+            LocationSpatialIndex fallback = new LocationSpatialIndex(1.0);
+            Map<UUID, LocationSnapshot> found = new HashMap<>();
+            for (LocationSpatialIndex.Origin origin : origins) {
+                loadCandidates(origin.latitude(), origin.longitude(), origin.radiusKm(), minPrice, maxPrice, minCapacity)
+                        .forEach(location -> found.put(location.id(), location));
+            }
+            fallback.rebuild(found.values());
+            matches = fallback.findNearAny(origins, null);
+        }
+
+        Map<UUID, LocationResponse> responses = toResponses(matches.stream()
+                .map(match -> new LocationSpatialIndex.Match(match.location(), match.nearestDistanceKm()))
+                .toList()).stream()
+                .collect(Collectors.toMap(LocationResponse::getId, Function.identity()));
+
+        List<MultiOriginLocationResponse> results = new ArrayList<>(responses.size());
+        for (LocationSpatialIndex.MultiMatch match : matches) {
+            LocationResponse location = responses.get(match.location().id());
+            if (location == null) {
+                continue;
+            }
+            List<Double> distances = new ArrayList<>(origins.size());
+            for (double distance : match.distancesKm()) {
+                distances.add(Double.isNaN(distance) ? null : distance);
+            }
+            results.add(MultiOriginLocationResponse.builder()
+                    .location(location)
+                    .nearestOrigin(match.nearestOrigin())
+                    .distancesKm(distances)
+                    .build());
+        }
+        return results;
+    }
+
+    /**
+     * Finds active locations within bufferKm of a route, ordered by how far
+     * along the route they are.
+     *
+     * @param route       Route points in travel order
+     * @param bufferKm    Maximum distance from the route
+     * @param minPrice    Minimum price filter (optional)
+     * @param maxPrice    Maximum price filter (optional)
+     * @param minCapacity Minimum capacity filter (optional)
+     * @return Locations along the route, in route order
+     */
+    public List<CorridorLocationResponse> findAlongRoute(List<Polyline.Point> route, double bufferKm,
+            BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity) {
+        Predicate<LocationSnapshot> filter = priceAndCapacityFilter(minPrice, maxPrice, minCapacity);
+        List<LocationSpatialIndex.CorridorMatch> matches;
+        if (spatialIndex.isReady()) {
+            matches = spatialIndex.findAlongRoute(route, bufferKm, filter);
+        } else {
+            // Before the index has loaded: bounding box query, then the same corridor walk
+            double dLat = bufferKm / Geo.KM_PER_DEGREE;
+            double dLng = bufferKm / Geo.KM_PER_DEGREE
+                    / Math.cos(Math.toRadians(Math.min(89.0, route.stream()
+                            .mapToDouble(point -> Math.abs(point.latitude())).max().orElse(0) + dLat)));
+            LocationSpatialIndex fallback = new LocationSpatialIndex(0.02);
+            fallback.rebuild(locationRepo.findByIsActiveTrueAndLatBetweenAndLngBetween(
+                    route.stream().mapToDouble(Polyline.Point::latitude).min().orElse(0) - dLat,
+                    route.stream().mapToDouble(Polyline.Point::latitude).max().orElse(0) + dLat,
+                    route.stream().mapToDouble(Polyline.Point::longitude).min().orElse(0) - dLng,
+                    route.stream().mapToDouble(Polyline.Point::longitude).max().orElse(0) + dLng).stream()
+                    .map(LocationSnapshot::of)
+                    .toList());
+            matches = fallback.findAlongRoute(route, bufferKm, filter);
+        }
+
+        Map<UUID, LocationResponse> responses = toResponses(matches.stream()
+                .map(match -> new LocationSpatialIndex.Match(match.location(), match.offRouteKm()))
+                .toList()).stream()
+                .collect(Collectors.toMap(LocationResponse::getId, Function.identity()));
+
+        return matches.stream()
+                .filter(match -> responses.containsKey(match.location().id()))
+                .map(match -> CorridorLocationResponse.builder()
+                        .location(responses.get(match.location().id()))
+                        .alongRouteKm(match.alongRouteKm())
+                        .build())
                 .collect(Collectors.toList());
     }
 
     /**
-     * Check if location has available capacity for a time period.
+     * Gets one page of nearby locations with filters, ordered by distance and
+     * then ID. The cursor holds the distance and ID of the last location of
+     * the previous page, so later pages resume the search where it stopped
+     * instead of re-sorting everything before them.
+     *
+     * @param latitude    User's latitude
+     * @param longitude   User's longitude
+     * @param radiusKm    Search radius
+     * @param minPrice    Minimum price filter (optional)
+     * @param maxPrice    Maximum price filter (optional)
+     * @param minCapacity Minimum capacity filter (optional)
+     * @param limit       Page size
+     * @param after       Cursor of the previous page (null for the first page)
+     * @return Page of locations and the cursor of the next page
+     */
+    public CursorPage<LocationResponse> findNearbyPage(
+            Double latitude, Double longitude, Double radiusKm,
+            BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity,
+            int limit, PageCursor after) {
+        Iterator<LocationSpatialIndex.Match> matches;
+        if (!spatialIndex.isReady()) {
+            matches = databaseMatchesAfter(latitude, longitude, radiusKm, minPrice, maxPrice, minCapacity, after);
+        } else if (after == null) {
+            matches = spatialIndex.iterateNearest(
+                    latitude, longitude, radiusKm, priceAndCapacityFilter(minPrice, maxPrice, minCapacity));
+        } else {
+            matches = spatialIndex.iterateNearestAfter(
+                    latitude, longitude, radiusKm, priceAndCapacityFilter(minPrice, maxPrice, minCapacity),
+                    after.distanceKm(), after.id());
+        }
+
+        List<LocationSpatialIndex.Match> page = new ArrayList<>(limit);
+        while (page.size() < limit && matches.hasNext()) {
+            page.add(matches.next());
+        }
+        String nextCursor = null;
+        if (matches.hasNext() && !page.isEmpty()) {
+            LocationSpatialIndex.Match last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.distanceKm(), last.location().id()).encode();
+        }
+        return new CursorPage<>(withWalkingTimes(latitude, longitude, toResponses(page)), nextCursor);
+    }
+
+    /**
+     * Gets one page of locations matching any combination of filters,
+     * ordered by ID, in a single query. Active locations are picked from
+     * the in-memory catalog, so only the page itself is read from the
+     * database.
+     *
+     * @param filter Filters to combine
+     * @param limit  Page size
+     * @param after  Cursor of the previous page (null for the first page)
+     * @return Page of locations and the cursor of the next page
+     */
+    public CursorPage<LocationResponse> filterLocationsPage(LocationFilter filter, int limit, PageCursor after) {
+        if (catalog.isReady() && Boolean.TRUE.equals(filter.active())) {
+            List<UUID> ids = catalog.filter(filter, after != null ? after.id() : null, limit + 1);
+            String nextCursor = null;
+            if (ids.size() > limit) {
+                ids = ids.subList(0, limit);
+                nextCursor = PageCursor.afterId(ids.get(limit - 1)).encode();
+            }
+            return new CursorPage<>(
+                    findAllInOrder(ids).stream().map(location -> convertToResponse(location, null)).toList(),
+                    nextCursor);
+        }
+
+        Specification<Location> specification = filter.toSpecification().and(LocationSpecifications.fetchHost());
+        if (after != null) {
+            specification = specification.and(LocationSpecifications.idAfter(after.id()));
+        }
+        List<Location> locations = locationRepo.findBy(specification,
+                query -> query.sortBy(Sort.by("id")).limit(limit + 1).all());
+
+        String nextCursor = null;
+        if (locations.size() > limit) {
+            locations = locations.subList(0, limit);
+            nextCursor = PageCursor.afterId(locations.get(limit - 1).getId()).encode();
+        }
+        return new CursorPage<>(
+                locations.stream().map(location -> convertToResponse(location, null)).toList(),
+                nextCursor);
+    }
+
+    /**
+     * Streams nearby locations with filters to the sink in distance order.
+     * Results are handed over in batches as soon as the spatial index can
+     * guarantee their order, so the caller never holds the full result list.
+     *
+     * @param latitude    User's latitude
+     * @param longitude   User's longitude
+     * @param radiusKm    Search radius
+     * @param minPrice    Minimum price filter (optional)
+     * @param maxPrice    Maximum price filter (optional)
+     * @param minCapacity Minimum capacity filter (optional)
+     * @param sink        Receives each batch of results, closest first
+     */
+    public void streamNearbyWithFilters(
+            Double latitude, Double longitude, Double radiusKm,
+            BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity,
+            Consumer<List<LocationResponse>> sink) {
+        if (!spatialIndex.isReady()) {
+            List<Location> locations = locationRepo.findActiveLocationsWithinRadiusAndFilters(
+                    latitude, longitude, radiusKm, minPrice, maxPrice, minCapacity);
+            for (int from = 0; from < locations.size(); from += MAX_STREAM_BATCH) {
+                List<Location> batch = locations.subList(from, Math.min(from + MAX_STREAM_BATCH, locations.size()));
+                sink.accept(toResponses(batch, latitude, longitude));
+            }
+            return;
+        }
+
+        Iterator<LocationSpatialIndex.Match> matches = spatialIndex.iterateNearest(
+                latitude, longitude, radiusKm, priceAndCapacityFilter(minPrice, maxPrice, minCapacity));
+        int batchSize = FIRST_STREAM_BATCH;
+        List<LocationSpatialIndex.Match> batch = new ArrayList<>(batchSize);
+        while (matches.hasNext()) {
+            batch.add(matches.next());
+            if (batch.size() == batchSize) {
+                sink.accept(toResponses(batch));
+                batch.clear();
+                batchSize = Math.min(batchSize * 2, MAX_STREAM_BATCH);
+            }
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(toResponses(batch));
+        }
+    }
+
+    /**
+     * Check if location has room for a number of bags during a time period,
+     * in every slot of it.
      *
      * @param locationId       Location ID
      * @param startTime        Booking start time
      * @param endTime          Booking end time
-     * @param requiredCapacity Required capacity
+     * @param requiredCapacity Required capacity in bags
      * @return true if location has availability
      */
     @Transactional(readOnly = true)
@@ -291,18 +730,109 @@ public class LocationService {
             return false;
         }
 
-        // Get overlapping bookings
-        List<Booking> bookings = bookingRepo.findByLocationId(locationId);
-        long occupiedCapacity = bookings.stream()
-                .filter(b -> b.getStatus() == Booking.BookingStatus.CONFIRMED ||
-                        b.getStatus() == Booking.BookingStatus.PENDING)
-                .filter(b -> {
-                    // Check for time overlap
-                    return !(b.getEndTime().isBefore(startTime) || b.getStartTime().isAfter(endTime));
-                })
-                .count();
+        // Free bags in the fullest slot, from the location's capacity ledger
+        long remaining = occupancyIndex.remaining(locationId, startTime, endTime, location.getCapacity(),
+                OccupancyIndex.loaderOf(bookingRepo));
+
+        return remaining >= requiredCapacity;
+    }
+
+    /**
+     * Free bags per slot of a location between two times, for a calendar
+     * or heatmap. The times are widened to the slot grid, which starts at
+     * midnight UTC. Computed in one sweep per day over the day's bookings
+     * rather than one availability check per slot.
+     *
+     * @param locationId Location ID
+     * @param from       Start of the calendar
+     * @param to         End of the calendar
+     * @param slot       Slot length; must tile a day
+     * @return Free bags per slot
+     */
+    @Transactional(readOnly = true)
+    public AvailabilityCalendarResponse getAvailabilityCalendar(
+            UUID locationId, Instant from, Instant to, Duration slot) {
+        Location location = locationRepo.findById(locationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Location not found"));
+
+        long slotMillis = slot.toMillis();
+        Instant start = Instant.ofEpochMilli(Math.floorDiv(from.toEpochMilli(), slotMillis) * slotMillis);
+        Instant end = Instant.ofEpochMilli(-Math.floorDiv(-to.toEpochMilli(), slotMillis) * slotMillis);
+        int capacity = Boolean.TRUE.equals(location.getIsActive()) && location.getCapacity() != null
+                ? location.getCapacity() : 0;
+        List<Integer> remaining = Arrays.stream(availabilityCalendar.usedBags(locationId, start, end, slot))
+                .map(used -> Math.max(0, capacity - used))
+                .boxed()
+                .toList();
+
+        return AvailabilityCalendarResponse.builder()
+                .locationId(locationId)
+                .capacity(location.getCapacity())
+                .from(start)
+                .to(end)
+                .slotMinutes((int) slot.toMinutes())
+                .remainingBags(remaining)
+                .build();
+    }
+
+    /**
+     * Checks several locations for room for a number of bags over several
+     * time windows at once, e.g. every pin on the map. Capacities come from
+     * the spatial index (one query before it has loaded) and free bags from
+     * the capacity ledgers, of which the missing ones are loaded in one
+     * grouped query.
+     *
+     * @param locationIds Location IDs; repeated IDs are answered once
+     * @param windows     Time windows
+     * @param bags        Number of bags to store
+     * @return One row per distinct location ID, in request order; unknown
+     *         and inactive locations are never available
+     */
+    @Transactional(readOnly = true)
+    public List<LocationAvailability> checkAvailability(
+            List<UUID> locationIds, List<OccupancyIndex.Window> windows, int bags) {
+        Set<UUID> ids = new LinkedHashSet<>(locationIds);
+        Map<UUID, Integer> capacities = new HashMap<>();
+        if (spatialIndex.isReady()) {
+            for (UUID id : ids) {
+                LocationSnapshot location = spatialIndex.get(id);
+                if (location != null) {
+                    capacities.put(id, location.capacity());
+                }
+            }
+        } else {
+            for (Location location : locationRepo.findAllById(ids)) {
+                if (Boolean.TRUE.equals(location.getIsActive())) {
+                    capacities.put(location.getId(), location.getCapacity() != null ? location.getCapacity() : 0);
+                }
+            }
+        }
 
-        return (location.getCapacity() - occupiedCapacity) >= requiredCapacity;
+        Map<UUID, long[]> remaining = capacities.isEmpty() ? Map.of()
+                : occupancyIndex.remaining(capacities, windows, OccupancyIndex.batchLoaderOf(bookingRepo));
+        List<LocationAvailability> rows = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            long[] free = remaining.get(id);
+            if (free == null) {
+                rows.add(LocationAvailability.builder()
+                        .locationId(id)
+                        .available(Collections.nCopies(windows.size(), false))
+                        .build());
+                continue;
+            }
+            List<Boolean> available = new ArrayList<>(free.length);
+            List<Long> remainingBags = new ArrayList<>(free.length);
+            for (long bagsFree : free) {
+                available.add(bagsFree >= bags);
+                remainingBags.add(Math.max(0, bagsFree));
+            }
+            rows.add(LocationAvailability.builder()
+                    .locationId(id)
+                    .available(available)
+                    .remainingBags(remainingBags)
+                    .build());
+        }
+        return rows;
     }
 
     /**
@@ -322,27 +852,278 @@ public class LocationService {
             throw new ForbiddenException("You don't have permission to update this location");
         }
 
+        LocationSnapshot previous = LocationSnapshot.of(location);
         location.setIsActive(isActive);
         Location updatedLocation = locationRepo.save(location);
-        return convertToResponse(updatedLocation, null, null);
+        eventPublisher.publishEvent(LocationChangedEvent.updated(previous, LocationSnapshot.of(updatedLocation)));
+        return convertToResponse(updatedLocation, null);
+    }
+
+    /**
+     * Builds the price/capacity predicate used against index snapshots.
+     * Mirrors the optional filters of findActiveLocationsWithinRadiusAndFilters.
+     */
+    private Predicate<LocationSnapshot> priceAndCapacityFilter(
+            BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity) {
+        if (minPrice == null && maxPrice == null && minCapacity == null) {
+            return null;
+        }
+        return location -> (minPrice == null
+                || (location.pricePerHour() != null && location.pricePerHour().compareTo(minPrice) >= 0))
+                && (maxPrice == null
+                        || (location.pricePerHour() != null && location.pricePerHour().compareTo(maxPrice) <= 0))
+                && (minCapacity == null || location.capacity() >= minCapacity);
+    }
+
+    /**
+     * Nearby matches with filters, through the result cache.
+     */
+    private List<LocationSpatialIndex.Match> nearbyMatches(double latitude, double longitude, double radiusKm,
+            BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity) {
+        return nearbyResultCache.findWithinRadius(
+                latitude, longitude, radiusKm,
+                new NearbyResultCache.Filters(minPrice, maxPrice, minCapacity),
+                (lat, lng, radius) -> loadCandidates(lat, lng, radius, minPrice, maxPrice, minCapacity));
+    }
+
+    /**
+     * Adds walking times from the user to the closest results when the
+     * offline walking router is loaded. Results stay in distance order.
+     */
+    private List<LocationResponse> withWalkingTimes(double latitude, double longitude,
+            List<LocationResponse> responses) {
+        if (!walkingRouter.isReady() || responses.isEmpty()) {
+            return responses;
+        }
+        List<LocationResponse> closest = responses.subList(0, Math.min(MAX_WALKING_TIMES, responses.size()));
+        Double[] minutes = walkingRouter.walkingMinutes(latitude, longitude, closest.stream()
+                .map(response -> new double[] {response.getLatitude(), response.getLongitude()})
+                .toList());
+        for (int i = 0; i < minutes.length; i++) {
+            closest.get(i).setWalkingMinutes(minutes[i]);
+        }
+        return responses;
+    }
+
+    /**
+     * Loads every active location matching the filters within radiusKm,
+     * from the spatial index once it is ready and from the database before.
+     */
+    private List<LocationSnapshot> loadCandidates(double latitude, double longitude, double radiusKm,
+            BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity) {
+        if (!spatialIndex.isReady()) {
+            return locationRepo.findActiveLocationsWithinRadiusAndFilters(
+                    latitude, longitude, radiusKm, minPrice, maxPrice, minCapacity).stream()
+                    .map(LocationSnapshot::of)
+                    .toList();
+        }
+        return spatialIndex.findWithinRadius(
+                latitude, longitude, radiusKm, priceAndCapacityFilter(minPrice, maxPrice, minCapacity)).stream()
+                .map(LocationSpatialIndex.Match::location)
+                .toList();
+    }
+
+    /**
+     * Database fallback for paging before the spatial index is ready: runs
+     * the full radius query and skips up to the cursor in memory.
+     */
+    private Iterator<LocationSpatialIndex.Match> databaseMatchesAfter(
+            double latitude, double longitude, double radiusKm,
+            BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity, PageCursor after) {
+        List<LocationSnapshot> locations = loadCandidates(latitude, longitude, radiusKm, minPrice, maxPrice, minCapacity);
+        CoordinateColumns coordinates = new CoordinateColumns(locations.size());
+        locations.forEach(location -> coordinates.add(location.lat(), location.lng()));
+        double[] distances = DistanceEngine.distancesKm(latitude, longitude, coordinates);
+
+        List<LocationSpatialIndex.Match> matches = new ArrayList<>(locations.size());
+        for (int i = 0; i < distances.length; i++) {
+            LocationSnapshot location = locations.get(i);
+            if (distances[i] > radiusKm) {
+                continue;
+            }
+            if (after != null && (distances[i] < after.distanceKm()
+                    || (distances[i] == after.distanceKm() && location.id().compareTo(after.id()) <= 0))) {
+                continue;
+            }
+            matches.add(new LocationSpatialIndex.Match(location, distances[i]));
+        }
+        matches.sort(LocationSpatialIndex.BY_DISTANCE);
+        return matches.iterator();
+    }
+
+    /**
+     * Loads the entities for index matches in one query and converts them in
+     * match order, carrying over the distance computed by the index.
+     */
+    private List<LocationResponse> toResponses(List<LocationSpatialIndex.Match> matches) {
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Location> byId = findAllWithHostById(matches.stream().map(match -> match.location().id()).toList());
+
+        return matches.stream()
+                .map(match -> {
+                    Location location = byId.get(match.location().id());
+                    if (location == null) {
+                        // Deleted after the index was read
+                        return null;
+                    }
+                    return convertToResponse(location, match.distanceKm());
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Initializes the lazy host of every location with a single query, so
+     * converting them does not query the users table once per location.
+     */
+    private void loadHosts(List<Location> locations) {
+        Set<UUID> hostIds = locations.stream()
+                .map(Location::getHost)
+                .filter(host -> host != null && !Hibernate.isInitialized(host))
+                .map(Users::getId)
+                .collect(Collectors.toSet());
+        if (!hostIds.isEmpty()) {
+            usersRepo.findAllById(hostIds);
+        }
+    }
+
+    /**
+     * Loads locations with their hosts in one query, in the given order.
+     * Locations deleted in the meantime are skipped.
+     */
+    private List<Location> findAllInOrder(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Location> byId = findAllWithHostById(ids);
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Loads locations with their hosts by ID, one query per MAX_IN_LIST IDs.
+     * Locations deleted in the meantime are missing from the result.
+     */
+    private Map<UUID, Location> findAllWithHostById(List<UUID> ids) {
+        Map<UUID, Location> byId = new HashMap<>();
+        // Chunked to stay well below the bind parameter limit on huge radii
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+            locationRepo.findAllWithHostByIdIn(ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size())))
+                    .forEach(location -> byId.put(location.getId(), location));
+        }
+        return byId;
+    }
+
+    /**
+     * Loads search hits in rank order, with the distance from the user when
+     * a position was given.
+     */
+    private List<LocationResponse> toSearchResponses(List<LocationSearchIndex.Hit> hits,
+            Double latitude, Double longitude) {
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Location> byId = findAllWithHostById(hits.stream().map(LocationSearchIndex.Hit::locationId).toList());
+
+        List<LocationResponse> responses = new ArrayList<>(hits.size());
+        for (LocationSearchIndex.Hit hit : hits) {
+            Location location = byId.get(hit.locationId());
+            if (location == null) {
+                // Deleted after the index was read
+                continue;
+            }
+            Double distanceKm = latitude != null && longitude != null
+                    ? Geo.haversineKm(latitude, longitude, location.getLat(), location.getLng())
+                    : null;
+            responses.add(convertToResponse(location, distanceKm));
+        }
+        return responses;
+    }
+
+    private static List<LocationSearchResponse.FacetCount> toFacetCounts(List<LocationSearchIndex.Bucket> buckets) {
+        return buckets.stream()
+                .map(bucket -> new LocationSearchResponse.FacetCount(bucket.label(), bucket.count()))
+                .toList();
+    }
+
+    /**
+     * Converts database results in order, computing all distances from the
+     * user in one batch. Native queries cannot fetch the host, so all hosts
+     * are loaded up front in one query.
+     */
+    private List<LocationResponse> toResponses(List<Location> locations, Double latitude, Double longitude) {
+        loadHosts(locations);
+        CoordinateColumns coordinates = new CoordinateColumns(locations.size());
+        locations.forEach(location -> coordinates.add(location.getLat(), location.getLng()));
+        double[] distances = DistanceEngine.distancesKm(latitude, longitude, coordinates);
+
+        List<LocationResponse> responses = new ArrayList<>(locations.size());
+        for (int i = 0; i < locations.size(); i++) {
+            responses.add(convertToResponse(locations.get(i), distances[i]));
+        }
+        return responses;
+    }
+
+    /**
+     * Re-runs a nearby search against the database and logs any difference
+     * from what the spatial index returned.
+     */
+    private void verifyAgainstDatabase(List<LocationSpatialIndex.Match> matches,
+            Double latitude, Double longitude, Double radiusKm,
+            BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity) {
+        Set<UUID> fromIndex = matches.stream()
+                .map(match -> match.location().id())
+                .collect(Collectors.toSet());
+        Set<UUID> fromDatabase = locationRepo.findActiveLocationsWithinRadiusAndFilters(
+                latitude, longitude, radiusKm, minPrice, maxPrice, minCapacity).stream()
+                .map(Location::getId)
+                .collect(Collectors.toSet());
+
+        if (!fromIndex.equals(fromDatabase)) {
+            Set<UUID> missing = new HashSet<>(fromDatabase);
+            missing.removeAll(fromIndex);
+            Set<UUID> extra = new HashSet<>(fromIndex);
+            extra.removeAll(fromDatabase);
+            log.warn("Spatial index disagrees with database near ({}, {}) r={}km: missing={}, extra={}",
+                    latitude, longitude, radiusKm, missing, extra);
+        }
+    }
+
+    /**
+     * Derives the daily opening window from the free-text hours.
+     */
+    private static void applyOpeningHours(Location location) {
+        OpeningHours parsed = OpeningHours.parse(location.getHours());
+        location.setOpensAt(parsed != null ? parsed.opens() : null);
+        location.setClosesAt(parsed != null ? parsed.closes() : null);
+    }
+
+    /**
+     * Parses the opening hours of locations saved before they were derived
+     * on write. Hours that cannot be parsed are left empty.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillOpeningHours() {
+        List<Location> missing = locationRepo.findByHoursIsNotNullAndOpensAtIsNull();
+        missing.forEach(LocationService::applyOpeningHours);
+        long parsed = missing.stream().filter(location -> location.getOpensAt() != null).count();
+        if (parsed > 0) {
+            log.info("Parsed opening hours of {} locations", parsed);
+        }
     }
 
     /**
      * Converts Location entity to LocationResponse DTO.
-     * If user coordinates are provided, calculates the distance.
+     * Distances are computed in batches by the caller (see DistanceEngine).
      *
-     * @param location The location entity
-     * @param userLat  User's latitude (nullable)
-     * @param userLng  User's longitude (nullable)
+     * @param location   The location entity
+     * @param distanceKm Distance from the user's location (nullable)
      * @return LocationResponse DTO
      */
     @Transactional(readOnly = true)
-    private LocationResponse convertToResponse(Location location, Double userLat, Double userLng) {
-        Double distance = null;
-        if (userLat != null && userLng != null) {
-            distance = calculateDistance(userLat, userLng, location.getLat(), location.getLng());
-        }
-
+    private LocationResponse convertToResponse(Location location, Double distanceKm) {
         LocationResponse.HostInfo hostInfo = null;
         if (location.getHost() != null) {
             hostInfo = LocationResponse.HostInfo.builder()
@@ -363,37 +1144,10 @@ public class LocationService {
                 .capacity(location.getCapacity())
                 .hours(location.getHours())
                 .isActive(location.getIsActive())
-                .distanceKm(distance)
+                .distanceKm(distanceKm)
                 .host(hostInfo)
                 .rating(0.0)
                 .reviews(java.util.Collections.emptyList())
                 .build();
     }
-
-    /**
-     * Calculates the distance between two points on Earth using the Haversine
-     * formula.
-     * This gives the great-circle distance (shortest distance on the surface of a
-     * sphere).
-     *
-     * @param lat1 Latitude of first point
-     * @param lng1 Longitude of first point
-     * @param lat2 Latitude of second point
-     * @param lng2 Longitude of second point
-     * @return Distance in kilometers
-     */
-    private Double calculateDistance(Double lat1, Double lng1, Double lat2, Double lng2) {
-        final int EARTH_RADIUS_KM = 6371;
-
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lngDistance = Math.toRadians(lng2 - lng1);
-
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                        * Math.sin(lngDistance / 2) * Math.sin(lngDistance / 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-
-        return EARTH_RADIUS_KM * c;
-    }
 }
@@ -0,0 +1,46 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Model.Location;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Immutable copy of the searchable fields of a location.
+ * Held by the in-memory search structures so they never touch managed
+ * entities after the transaction that produced them has finished.
+ */
+public record LocationSnapshot(
+        UUID id,
+        UUID hostId,
+        String name,
+        String address,
+        String city,
+        double lat,
+        double lng,
+        BigDecimal pricePerHour,
+        int capacity,
+        String hours,
+        boolean active) {
+
+    /**
+     * Copies the current state of a location entity.
+     *
+     * @param location The location entity
+     * @return Snapshot of the location
+     */
+    public static LocationSnapshot of(Location location) {
+        return new LocationSnapshot(
+                location.getId(),
+                location.getHost() != null ? location.getHost().getId() : null,
+                location.getName(),
+                location.getAddress(),
+                location.getCity(),
+                location.getLat() != null ? location.getLat() : 0.0,
+                location.getLng() != null ? location.getLng() : 0.0,
+                location.getPricePerHour(),
+                location.getCapacity() != null ? location.getCapacity() : 0,
+                location.getHours(),
+                Boolean.TRUE.equals(location.getIsActive()));
+    }
+}
@@ -0,0 +1,992 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Repo.LocationRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Node-local spatial index over active locations.
+ * Locations are bucketed into a uniform lat/lng grid so a radius query only
+ * has to look at the cells covering the search circle instead of every row
+ * in the locations table.
+ *
+ * Reads are lock-free: each cell is an immutable array that writers replace
+ * wholesale. Writes are serialized and are kept up to date from
+ * {@link LocationChangedEvent}s once the surrounding transaction commits.
+ */
+@Component
+public class LocationSpatialIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationSpatialIndex.class);
+
+
+    static final Comparator<Match> BY_DISTANCE = Comparator
+            .comparingDouble(Match::distanceKm)
+            .thenComparing(match -> match.location().id());
+
+    @Autowired
+    private LocationRepo locationRepo;
+
+    private final double cellSizeDeg;
+    private final int rows;
+    private final int columns;
+
+    private volatile Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    private volatile Map<UUID, LocationSnapshot> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean ready;
+
+    public LocationSpatialIndex(@Value("${locations.spatial-index.cell-size-deg:0.02}") double cellSizeDeg) {
+        if (cellSizeDeg <= 0 || cellSizeDeg > 10) {
+            throw new IllegalArgumentException("Cell size must be between 0 and 10 degrees");
+        }
+        this.cellSizeDeg = cellSizeDeg;
+        this.rows = (int) Math.ceil(180.0 / cellSizeDeg);
+        this.columns = (int) Math.ceil(360.0 / cellSizeDeg);
+    }
+
+    /**
+     * Loads every active location once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        long started = System.nanoTime();
+        List<LocationSnapshot> snapshots = locationRepo.findByIsActiveTrue().stream()
+                .map(LocationSnapshot::of)
+                .toList();
+        rebuild(snapshots);
+        log.info("Spatial index loaded {} active locations in {} ms",
+                snapshots.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Replaces the whole index content. Inactive locations are ignored.
+     *
+     * @param locations Locations to index
+     */
+    public synchronized void rebuild(Collection<LocationSnapshot> locations) {
+        Map<Long, List<LocationSnapshot>> grouped = new HashMap<>();
+        Map<UUID, LocationSnapshot> newEntries = new ConcurrentHashMap<>();
+        for (LocationSnapshot location : locations) {
+            if (!location.active()) {
+                continue;
+            }
+            newEntries.put(location.id(), location);
+            grouped.computeIfAbsent(cellKey(location.lat(), location.lng()), k -> new ArrayList<>()).add(location);
+        }
+
+        Map<Long, Cell> newCells = new ConcurrentHashMap<>();
+        grouped.forEach((key, list) -> newCells.put(key, Cell.of(list)));
+
+        this.cells = newCells;
+        this.entries = newEntries;
+        version.incrementAndGet();
+        ready = true;
+    }
+
+    /**
+     * Keeps the index in sync with committed location writes.
+     * Runs before every other listener so caches derived from the index
+     * invalidate only after the index already reflects the change.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(LocationChangedEvent event) {
+        if (event.current() == null) {
+            remove(event.previous().id());
+        } else {
+            upsert(event.current());
+        }
+    }
+
+    /**
+     * Adds or moves a location. Inactive locations are removed from the index.
+     *
+     * @param location Latest state of the location
+     */
+    public synchronized void upsert(LocationSnapshot location) {
+        LocationSnapshot existing = entries.get(location.id());
+        if (existing != null) {
+            removeFromCell(existing);
+            entries.remove(existing.id());
+        }
+        if (location.active()) {
+            addToCell(location);
+            entries.put(location.id(), location);
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Removes a location from the index if present.
+     *
+     * @param locationId Location ID
+     */
+    public synchronized void remove(UUID locationId) {
+        LocationSnapshot existing = entries.remove(locationId);
+        if (existing != null) {
+            removeFromCell(existing);
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Finds indexed locations within a radius, ordered by distance (closest
+     * first). Only the grid cells overlapping the bounding box of the search
+     * circle are visited, or every indexed location when that box spans more
+     * cells than there are locations.
+     *
+     * @param latitude  Search origin latitude
+     * @param longitude Search origin longitude
+     * @param radiusKm  Search radius in kilometers
+     * @param filter    Extra predicate on candidates (nullable)
+     * @return Matches ordered by distance
+     */
+    public List<Match> findWithinRadius(double latitude, double longitude, double radiusKm,
+            Predicate<LocationSnapshot> filter) {
+        Candidates candidates = new Candidates();
+        Map<Long, Cell> grid = cells;
+        CellRange range = cellsWithin(latitude, longitude, radiusKm);
+        if (range.cellCount() > size()) {
+            grid.values().forEach(candidates::add);
+        } else {
+            forEachKey(range, key -> {
+                Cell cell = grid.get(key);
+                if (cell != null) {
+                    candidates.add(cell);
+                }
+            });
+        }
+
+        List<Match> matches = new ArrayList<>();
+        candidates.forEachWithin(latitude, longitude, radiusKm, filter, matches::add);
+        matches.sort(BY_DISTANCE);
+        return matches;
+    }
+
+    /**
+     * Finds indexed locations within the radius of any of several origins in
+     * one pass over the grid. Cells shared by several search circles are read
+     * once, and distances are only computed to the origins whose circle
+     * overlaps the cell. Each location appears once, with its distance to
+     * every origin it is within range of.
+     *
+     * @param origins Search origins, each with its own radius
+     * @param filter  Extra predicate on candidates (nullable)
+     * @return Matches ordered by distance to their closest origin
+     */
+    public List<MultiMatch> findNearAny(List<Origin> origins, Predicate<LocationSnapshot> filter) {
+        Map<Long, Cell> grid = cells;
+        Map<Long, BitSet> originsByCell = new HashMap<>();
+        for (int i = 0; i < origins.size(); i++) {
+            Origin origin = origins.get(i);
+            int index = i;
+            CellRange range = cellsWithin(origin.latitude(), origin.longitude(), origin.radiusKm());
+            if (range.cellCount() > grid.size()) {
+                grid.keySet().forEach(key ->
+                        originsByCell.computeIfAbsent(key, k -> new BitSet(origins.size())).set(index));
+            } else {
+                forEachKey(range, key -> {
+                    if (grid.containsKey(key)) {
+                        originsByCell.computeIfAbsent(key, k -> new BitSet(origins.size())).set(index);
+                    }
+                });
+            }
+        }
+
+        Map<UUID, MultiMatch> matches = new HashMap<>();
+        for (Map.Entry<Long, BitSet> entry : originsByCell.entrySet()) {
+            Cell cell = grid.get(entry.getKey());
+            if (cell == null) {
+                continue;
+            }
+            BitSet overlapping = entry.getValue();
+            for (int i = overlapping.nextSetBit(0); i >= 0; i = overlapping.nextSetBit(i + 1)) {
+                Origin origin = origins.get(i);
+                double[] distances = DistanceEngine.distancesKm(
+                        origin.latitude(), origin.longitude(), cell.coordinates());
+                for (int j = 0; j < distances.length; j++) {
+                    if (distances[j] > origin.radiusKm()) {
+                        continue;
+                    }
+                    LocationSnapshot location = cell.locations()[j];
+                    MultiMatch match = matches.get(location.id());
+                    if (match == null) {
+                        if (filter != null && !filter.test(location)) {
+                            continue;
+                        }
+                        double[] perOrigin = new double[origins.size()];
+                        Arrays.fill(perOrigin, Double.NaN);
+                        match = new MultiMatch(location, perOrigin);
+                        matches.put(location.id(), match);
+                    }
+                    match.distancesKm()[i] = distances[j];
+                }
+            }
+        }
+
+        List<MultiMatch> ordered = new ArrayList<>(matches.values());
+        ordered.sort(Comparator.comparingDouble(MultiMatch::nearestDistanceKm)
+                .thenComparing(match -> match.location().id()));
+        return ordered;
+    }
+
+    /**
+     * Finds indexed locations within bufferKm of a route, ordered by how far
+     * along the route they are first reached. The grid cells near each
+     * segment are found by walking the segment cell by cell, and a location
+     * is only compared with the segments passing near its cell.
+     *
+     * @param route    Route points in travel order
+     * @param bufferKm Maximum distance from the route in kilometers
+     * @param filter   Extra predicate on candidates (nullable)
+     * @return Matches ordered by distance along the route
+     */
+    public List<CorridorMatch> findAlongRoute(List<Polyline.Point> route, double bufferKm,
+            Predicate<LocationSnapshot> filter) {
+        Map<Long, Cell> grid = cells;
+        Map<Long, BitSet> segmentsByCell = new HashMap<>();
+        double[] routeKm = new double[route.size()];
+        for (int i = 0; i + 1 < route.size(); i++) {
+            Polyline.Point from = route.get(i);
+            Polyline.Point to = route.get(i + 1);
+            routeKm[i + 1] = routeKm[i] + Geo.haversineKm(from.latitude(), from.longitude(),
+                    to.latitude(), to.longitude());
+            int segment = i;
+            forEachCellKeyNearSegment(from, to, bufferKm, key -> {
+                if (grid.containsKey(key)) {
+                    segmentsByCell.computeIfAbsent(key, k -> new BitSet()).set(segment);
+                }
+            });
+        }
+
+        List<CorridorMatch> matches = new ArrayList<>();
+        for (Map.Entry<Long, BitSet> entry : segmentsByCell.entrySet()) {
+            Cell cell = grid.get(entry.getKey());
+            if (cell == null) {
+                continue;
+            }
+            BitSet segments = entry.getValue();
+            for (LocationSnapshot location : cell.locations()) {
+                if (filter != null && !filter.test(location)) {
+                    continue;
+                }
+                // Segments are tried in route order, so the first hit is
+                // where the route first passes the location
+                for (int s = segments.nextSetBit(0); s >= 0; s = segments.nextSetBit(s + 1)) {
+                    double[] projection = projectOntoSegment(location.lat(), location.lng(),
+                            route.get(s), route.get(s + 1));
+                    if (projection[0] <= bufferKm) {
+                        double alongKm = routeKm[s] + projection[1] * (routeKm[s + 1] - routeKm[s]);
+                        matches.add(new CorridorMatch(location, alongKm, projection[0]));
+                        break;
+                    }
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparingDouble(CorridorMatch::alongRouteKm)
+                .thenComparing(match -> match.location().id()));
+        return matches;
+    }
+
+    /**
+     * Distance in km from a point to a route segment and the fraction of the
+     * segment at which the closest point lies. Uses a local equirectangular
+     * projection, which is accurate for walking-scale segments.
+     */
+    private static double[] projectOntoSegment(double lat, double lng, Polyline.Point from, Polyline.Point to) {
+        double kmPerLngDegree = Geo.KM_PER_DEGREE * Math.cos(Math.toRadians((from.latitude() + to.latitude()) / 2));
+        double segmentX = wrapLongitude(to.longitude() - from.longitude()) * kmPerLngDegree;
+        double segmentY = (to.latitude() - from.latitude()) * Geo.KM_PER_DEGREE;
+        double pointX = wrapLongitude(lng - from.longitude()) * kmPerLngDegree;
+        double pointY = (lat - from.latitude()) * Geo.KM_PER_DEGREE;
+
+        double lengthSquared = segmentX * segmentX + segmentY * segmentY;
+        double t = lengthSquared == 0 ? 0
+                : Math.max(0, Math.min(1, (pointX * segmentX + pointY * segmentY) / lengthSquared));
+        double dx = pointX - t * segmentX;
+        double dy = pointY - t * segmentY;
+        return new double[] {Math.sqrt(dx * dx + dy * dy), t};
+    }
+
+    private static double wrapLongitude(double degrees) {
+        return degrees > 180 ? degrees - 360 : degrees < -180 ? degrees + 360 : degrees;
+    }
+
+    /**
+     * Calls the consumer with the key of every grid cell within bufferKm of a
+     * segment (possibly more than once). The segment is sampled at most one
+     * cell apart, so a box of bufferKm plus half a cell around each sample
+     * covers it.
+     */
+    private void forEachCellKeyNearSegment(Polyline.Point from, Polyline.Point to, double bufferKm,
+            LongConsumer consumer) {
+        double maxAbsLat = Math.min(89.0, Math.max(Math.abs(from.latitude()), Math.abs(to.latitude()))
+                + bufferKm / Geo.KM_PER_DEGREE);
+        double dLat = bufferKm / Geo.KM_PER_DEGREE + cellSizeDeg / 2;
+        double dLng = bufferKm / (Geo.KM_PER_DEGREE * Math.cos(Math.toRadians(maxAbsLat))) + cellSizeDeg / 2;
+        double spanLat = to.latitude() - from.latitude();
+        double spanLng = wrapLongitude(to.longitude() - from.longitude());
+        int steps = Math.max(1, (int) Math.ceil(Math.max(Math.abs(spanLat), Math.abs(spanLng)) / cellSizeDeg));
+
+        for (int step = 0; step <= steps; step++) {
+            double lat = from.latitude() + spanLat * step / steps;
+            double lng = from.longitude() + spanLng * step / steps;
+            long fromCol = (long) Math.floor((lng - dLng + 180.0) / cellSizeDeg);
+            long toCol = (long) Math.floor((lng + dLng + 180.0) / cellSizeDeg);
+            for (int row = rowOf(lat - dLat); row <= rowOf(lat + dLat); row++) {
+                for (long col = fromCol; col <= toCol; col++) {
+                    consumer.accept(key(row, (int) Math.floorMod(col, (long) columns)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Grid cells overlapping the bounding box of a search circle.
+     */
+    private CellRange cellsWithin(double latitude, double longitude, double radiusKm) {
+        double dLat = radiusKm / Geo.KM_PER_DEGREE;
+        double minLat = latitude - dLat;
+        double maxLat = latitude + dLat;
+        int fromRow = rowOf(minLat);
+        int toRow = rowOf(maxLat);
+
+        long fromCol;
+        long toCol;
+        double dLng = longitudeSpan(latitude, radiusKm, minLat, maxLat);
+        if (dLng >= 180.0) {
+            fromCol = 0;
+            toCol = columns - 1;
+        } else {
+            fromCol = (long) Math.floor((longitude - dLng + 180.0) / cellSizeDeg);
+            toCol = (long) Math.floor((longitude + dLng + 180.0) / cellSizeDeg);
+            if (toCol - fromCol + 1 >= columns) {
+                fromCol = 0;
+                toCol = columns - 1;
+            }
+        }
+        return new CellRange(fromRow, toRow, fromCol, toCol);
+    }
+
+    /**
+     * Calls the consumer with the key of every grid cell in a range.
+     */
+    private void forEachKey(CellRange range, LongConsumer consumer) {
+        for (int row = range.fromRow(); row <= range.toRow(); row++) {
+            for (long col = range.fromCol(); col <= range.toCol(); col++) {
+                consumer.accept(key(row, (int) Math.floorMod(col, (long) columns)));
+            }
+        }
+    }
+
+    /**
+     * Finds indexed locations inside a lat/lng bounding box such as a map
+     * viewport. A box whose west edge is greater than its east edge is taken
+     * to cross the antimeridian. Boxes spanning more grid cells than there
+     * are indexed locations, such as zoomed-out viewports, are answered by
+     * checking every location instead.
+     *
+     * @param south Southern latitude
+     * @param west  Western longitude
+     * @param north Northern latitude
+     * @param east  Eastern longitude
+     * @return Locations inside the box, in no particular order
+     */
+    public List<LocationSnapshot> findWithinBounds(double south, double west, double north, double east) {
+        List<LocationSnapshot> found = new ArrayList<>();
+        Map<Long, Cell> grid = cells;
+        boolean wraps = west > east;
+        Predicate<LocationSnapshot> inside = location -> {
+            boolean inLng = wraps
+                    ? location.lng() >= west || location.lng() <= east
+                    : location.lng() >= west && location.lng() <= east;
+            return inLng && location.lat() >= south && location.lat() <= north;
+        };
+
+        long fromCol = (long) Math.floor((west + 180.0) / cellSizeDeg);
+        long toCol = (long) Math.floor((east + 180.0) / cellSizeDeg) + (wraps ? columns : 0);
+        if (toCol - fromCol + 1 >= columns) {
+            fromCol = 0;
+            toCol = columns - 1;
+        }
+        CellRange range = new CellRange(rowOf(south), rowOf(north), fromCol, toCol);
+
+        if (range.cellCount() > size()) {
+            for (Cell cell : grid.values()) {
+                for (LocationSnapshot location : cell.locations()) {
+                    if (inside.test(location)) {
+                        found.add(location);
+                    }
+                }
+            }
+            return found;
+        }
+
+        forEachKey(range, key -> {
+            Cell cell = grid.get(key);
+            if (cell == null) {
+                return;
+            }
+            for (LocationSnapshot location : cell.locations()) {
+                if (inside.test(location)) {
+                    found.add(location);
+                }
+            }
+        });
+        return found;
+    }
+
+    /**
+     * Finds the k indexed locations closest to a point, ordered by distance.
+     * The grid is walked ring by ring outwards from the origin's cell while
+     * a bounded max-heap keeps the k best candidates; the walk stops as soon
+     * as no unvisited cell can hold anything closer than the current k-th
+     * result, or the rings have passed maxRadiusKm. When the next ring would
+     * take more cell lookups than there are indexed locations, such as on a
+     * sparse index with a large radius, every location is checked instead.
+     *
+     * @param latitude    Search origin latitude
+     * @param longitude   Search origin longitude
+     * @param k           Number of locations wanted
+     * @param maxRadiusKm Radius beyond which the search gives up
+     * @param filter      Extra predicate on candidates (nullable)
+     * @return Up to k matches ordered by distance
+     */
+    public List<Match> findNearest(double latitude, double longitude, int k, double maxRadiusKm,
+            Predicate<LocationSnapshot> filter) {
+        PriorityQueue<Match> best = new PriorityQueue<>(k + 1, BY_DISTANCE.reversed());
+        RingWalk walk = new RingWalk(latitude, longitude);
+        Candidates ring = new Candidates();
+
+        while (walk.hasMoreRings()) {
+            ring.clear();
+            if (walk.cheaperToScan()) {
+                // Visited cells are read again, so start over
+                best.clear();
+                walk.visitAll(ring::add);
+            } else {
+                walk.visitNextRing(ring::add);
+            }
+            ring.forEachWithin(latitude, longitude, maxRadiusKm, filter, match -> {
+                if (best.size() < k) {
+                    best.add(match);
+                } else if (BY_DISTANCE.compare(match, best.peek()) < 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            });
+
+            double bound = walk.lowerBoundKm();
+            if (bound > maxRadiusKm || (best.size() == k && best.peek().distanceKm() <= bound)) {
+                break;
+            }
+        }
+
+        List<Match> nearest = new ArrayList<>(best);
+        nearest.sort(BY_DISTANCE);
+        return nearest;
+    }
+
+    /**
+     * Lazily iterates indexed locations within maxRadiusKm in distance order.
+     * Rings of cells are only visited when the caller asks for more results
+     * than the rings seen so far can guarantee, so the first results are
+     * available before the whole radius has been searched and memory is
+     * limited to the not-yet-returned candidates of the visited rings. Like
+     * {@link #findNearest}, the walk gives way to checking every location
+     * once its cell lookups would outnumber them.
+     *
+     * @param latitude    Search origin latitude
+     * @param longitude   Search origin longitude
+     * @param maxRadiusKm Search radius in kilometers
+     * @param filter      Extra predicate on candidates (nullable)
+     * @return Iterator over matches, closest first
+     */
+    public Iterator<Match> iterateNearest(double latitude, double longitude, double maxRadiusKm,
+            Predicate<LocationSnapshot> filter) {
+        return new NearestIterator(latitude, longitude, maxRadiusKm, filter, 0.0, null);
+    }
+
+    /**
+     * Resumes a nearest-first iteration after a previously returned match,
+     * identified by its distance and ID. Rings of cells that lie entirely
+     * closer than afterDistanceKm are skipped without being read, so resuming
+     * deep into the results costs about the same as starting.
+     *
+     * @param latitude        Search origin latitude
+     * @param longitude       Search origin longitude
+     * @param maxRadiusKm     Search radius in kilometers
+     * @param filter          Extra predicate on candidates (nullable)
+     * @param afterDistanceKm Distance of the last match already returned
+     * @param afterId         ID of the last match already returned
+     * @return Iterator over the matches ordered after the given one
+     */
+    public Iterator<Match> iterateNearestAfter(double latitude, double longitude, double maxRadiusKm,
+            Predicate<LocationSnapshot> filter, double afterDistanceKm, UUID afterId) {
+        return new NearestIterator(latitude, longitude, maxRadiusKm, filter, afterDistanceKm, afterId);
+    }
+
+    /**
+     * Whether the index has been loaded and can answer queries.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Monotonic counter bumped on every change to the indexed set.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Number of indexed (active) locations.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Looks up an indexed location by ID.
+     *
+     * @param locationId Location ID
+     * @return Snapshot, or null if not indexed
+     */
+    public LocationSnapshot get(UUID locationId) {
+        return entries.get(locationId);
+    }
+
+    private void addToCell(LocationSnapshot location) {
+        long key = cellKey(location.lat(), location.lng());
+        Cell cell = cells.get(key);
+        cells.put(key, cell == null ? Cell.of(List.of(location)) : cell.with(location));
+    }
+
+    private void removeFromCell(LocationSnapshot location) {
+        long key = cellKey(location.lat(), location.lng());
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            return;
+        }
+        Cell shrunk = cell.without(location.id());
+        if (shrunk.locations().length == 0) {
+            cells.remove(key);
+        } else {
+            cells.put(key, shrunk);
+        }
+    }
+
+    /**
+     * Half-width in degrees of longitude of the bounding box of a spherical
+     * cap. Returns 180 when the cap reaches a pole or wraps all the way round.
+     */
+    private static double longitudeSpan(double latitude, double radiusKm, double minLat, double maxLat) {
+        if (minLat <= -90.0 || maxLat >= 90.0) {
+            return 180.0;
+        }
+        double ratio = Math.sin(radiusKm / Geo.EARTH_RADIUS_KM) / Math.cos(Math.toRadians(latitude));
+        if (ratio >= 1.0) {
+            return 180.0;
+        }
+        return Math.toDegrees(Math.asin(ratio));
+    }
+
+    private long cellKey(double lat, double lng) {
+        return key(rowOf(lat), columnOf(lng));
+    }
+
+    private int rowOf(double lat) {
+        int row = (int) Math.floor((lat + 90.0) / cellSizeDeg);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    private int columnOf(double lng) {
+        return (int) Math.floorMod((long) Math.floor((lng + 180.0) / cellSizeDeg), (long) columns);
+    }
+
+    private long key(int row, int col) {
+        return (long) row * columns + col;
+    }
+
+    /**
+     * Walks the grid in square rings of cells centred on the cell holding the
+     * origin. After ring r has been visited, every unvisited location lies
+     * outside the (2r+1) x (2r+1) block of cells, which gives a lower bound
+     * on its distance from the origin. Ring r takes 8r cell lookups, so
+     * reaching a radius costs the square of the rings walked, however few
+     * locations there are.
+     */
+    private final class RingWalk {
+
+        private final double latitude;
+        private final double longitude;
+        private final int originRow;
+        private final int originCol;
+        private final Map<Long, Cell> grid = cells;
+        private int ring = -1;
+        private long lookups;
+
+        RingWalk(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.originRow = rowOf(latitude);
+            this.originCol = (int) Math.floor((longitude + 180.0) / cellSizeDeg);
+        }
+
+        boolean hasMoreRings() {
+            return ring < 0 || lowerBoundKm() != Double.POSITIVE_INFINITY;
+        }
+
+        void visitNextRing(Consumer<Cell> visitor) {
+            ring++;
+            if (ring == 0) {
+                visitCell(originRow, originCol, visitor);
+                return;
+            }
+            for (int col = originCol - ring; col <= originCol + ring; col++) {
+                visitCell(originRow - ring, col, visitor);
+                visitCell(originRow + ring, col, visitor);
+            }
+            for (int row = originRow - ring + 1; row <= originRow + ring - 1; row++) {
+                visitCell(row, originCol - ring, visitor);
+                visitCell(row, originCol + ring, visitor);
+            }
+        }
+
+        /**
+         * Whether visiting the next ring would take the cell lookups past the
+         * number of indexed locations, making {@link #visitAll} cheaper.
+         */
+        boolean cheaperToScan() {
+            int next = ring + 1;
+            return lookups + (next == 0 ? 1 : 8L * next) > size();
+        }
+
+        /**
+         * Visits every non-empty cell, visited or not, and ends the walk.
+         */
+        void visitAll(Consumer<Cell> visitor) {
+            grid.values().forEach(visitor);
+            ring = Math.max(rows, columns);
+        }
+
+        /**
+         * Moves past the next ring without reading its cells.
+         */
+        void skipRing() {
+            ring++;
+        }
+
+        /**
+         * Largest possible distance from the origin to a location in the
+         * block of cells up to and including the next ring, or infinity when
+         * the block is too wide for its corners to bound it.
+         */
+        double nextRingUpperBoundKm() {
+            int next = ring + 1;
+            double west = (originCol - next) * cellSizeDeg - 180.0;
+            double east = (originCol + next + 1) * cellSizeDeg - 180.0;
+            if (east - longitude >= 180.0 || longitude - west >= 180.0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double south = Math.max(-90.0, (originRow - next) * cellSizeDeg - 90.0);
+            double north = Math.min(90.0, (originRow + next + 1) * cellSizeDeg - 90.0);
+            return Math.max(
+                    Math.max(Geo.haversineKm(latitude, longitude, south, west),
+                            Geo.haversineKm(latitude, longitude, south, east)),
+                    Math.max(Geo.haversineKm(latitude, longitude, north, west),
+                            Geo.haversineKm(latitude, longitude, north, east)));
+        }
+
+        /**
+         * Smallest possible distance from the origin to a location in a cell
+         * that has not been visited yet, or infinity once the whole grid has
+         * been covered.
+         */
+        double lowerBoundKm() {
+            double bound = Double.POSITIVE_INFINITY;
+
+            int northRow = originRow + ring + 1;
+            if (northRow < rows) {
+                bound = Math.min(bound, (northRow * cellSizeDeg - 90.0 - latitude) * Geo.KM_PER_DEGREE);
+            }
+            int southRow = originRow - ring;
+            if (southRow > 0) {
+                bound = Math.min(bound, (latitude - (southRow * cellSizeDeg - 90.0)) * Geo.KM_PER_DEGREE);
+            }
+
+            if (2 * ring + 1 < columns) {
+                double eastGap = (originCol + ring + 1) * cellSizeDeg - 180.0 - longitude;
+                double westGap = longitude - ((originCol - ring) * cellSizeDeg - 180.0);
+                bound = Math.min(bound, distanceToMeridianKm(Math.min(eastGap, westGap)));
+            }
+            return Math.max(0.0, bound);
+        }
+
+        /**
+         * Great-circle distance from the origin to the meridian lngGap
+         * degrees away, which bounds the distance to anything beyond it.
+         */
+        private double distanceToMeridianKm(double lngGap) {
+            double gap = Math.toRadians(Math.min(Math.max(lngGap, 0.0), 90.0));
+            double sine = Math.cos(Math.toRadians(latitude)) * Math.sin(gap);
+            return Geo.EARTH_RADIUS_KM * Math.asin(Math.min(1.0, sine));
+        }
+
+        private void visitCell(int row, int col, Consumer<Cell> visitor) {
+            if (row < 0 || row >= rows) {
+                return;
+            }
+            lookups++;
+            Cell cell = grid.get(key(row, Math.floorMod(col, columns)));
+            if (cell != null) {
+                visitor.accept(cell);
+            }
+        }
+    }
+
+    /**
+     * Incremental nearest-first traversal on top of {@link RingWalk}.
+     * A candidate is only returned once no unvisited cell can hold anything
+     * closer.
+     */
+    private final class NearestIterator implements Iterator<Match> {
+
+        private final double latitude;
+        private final double longitude;
+        private final double maxRadiusKm;
+        private final Predicate<LocationSnapshot> filter;
+        private final double afterDistanceKm;
+        private final UUID afterId;
+        private final RingWalk walk;
+        private final Candidates ring = new Candidates();
+        private final PriorityQueue<Match> frontier = new PriorityQueue<>(BY_DISTANCE);
+        private double bound;
+        private boolean exhausted;
+        private Match last;
+
+        NearestIterator(double latitude, double longitude, double maxRadiusKm, Predicate<LocationSnapshot> filter,
+                double afterDistanceKm, UUID afterId) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.maxRadiusKm = maxRadiusKm;
+            this.walk = new RingWalk(latitude, longitude);
+            if (afterId == null) {
+                this.filter = filter;
+            } else {
+                Predicate<LocationSnapshot> base = filter != null ? filter : location -> true;
+                this.filter = location -> !location.id().equals(afterId) && base.test(location);
+                while (walk.nextRingUpperBoundKm() < afterDistanceKm) {
+                    walk.skipRing();
+                }
+            }
+            this.afterDistanceKm = afterDistanceKm;
+            this.afterId = afterId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            advance();
+            return !frontier.isEmpty();
+        }
+
+        @Override
+        public Match next() {
+            advance();
+            if (frontier.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            last = frontier.poll();
+            return last;
+        }
+
+        private void advance() {
+            while (!exhausted && (frontier.isEmpty() || frontier.peek().distanceKm() > bound)) {
+                if (!walk.hasMoreRings()) {
+                    exhausted = true;
+                    return;
+                }
+                ring.clear();
+                boolean scan = walk.cheaperToScan();
+                if (scan) {
+                    // Visited cells are read again; keep only what was not returned yet
+                    frontier.clear();
+                    walk.visitAll(ring::add);
+                } else {
+                    walk.visitNextRing(ring::add);
+                }
+                ring.forEachWithin(latitude, longitude, maxRadiusKm, filter, match -> {
+                    if (isAfterCursor(match) && (!scan || last == null || BY_DISTANCE.compare(match, last) > 0)) {
+                        frontier.add(match);
+                    }
+                });
+                bound = walk.lowerBoundKm();
+                if (bound > maxRadiusKm) {
+                    exhausted = true;
+                }
+            }
+        }
+
+        private boolean isAfterCursor(Match match) {
+            if (afterId == null || match.distanceKm() > afterDistanceKm) {
+                return true;
+            }
+            return match.distanceKm() == afterDistanceKm && match.location().id().compareTo(afterId) > 0;
+        }
+    }
+
+    /**
+     * Rectangle of grid cells, bounds inclusive. Columns may run past the
+     * last one, wrapping round the antimeridian.
+     */
+    private record CellRange(int fromRow, int toRow, long fromCol, long toCol) {
+
+        long cellCount() {
+            return (long) (toRow - fromRow + 1) * (toCol - fromCol + 1);
+        }
+    }
+
+    /**
+     * Immutable content of one grid cell: the locations plus their
+     * coordinates laid out for the batch distance kernel.
+     */
+    private record Cell(LocationSnapshot[] locations, CoordinateColumns coordinates) {
+
+        static Cell of(List<LocationSnapshot> locations) {
+            CoordinateColumns coordinates = new CoordinateColumns(locations.size());
+            for (LocationSnapshot location : locations) {
+                coordinates.add(location.lat(), location.lng());
+            }
+            return new Cell(locations.toArray(new LocationSnapshot[0]), coordinates);
+        }
+
+        Cell with(LocationSnapshot location) {
+            LocationSnapshot[] grown = Arrays.copyOf(locations, locations.length + 1);
+            grown[locations.length] = location;
+            CoordinateColumns grownCoordinates = new CoordinateColumns(grown.length);
+            grownCoordinates.addAll(coordinates);
+            grownCoordinates.add(location.lat(), location.lng());
+            return new Cell(grown, grownCoordinates);
+        }
+
+        Cell without(UUID locationId) {
+            for (int i = 0; i < locations.length; i++) {
+                if (locations[i].id().equals(locationId)) {
+                    LocationSnapshot[] shrunk = new LocationSnapshot[locations.length - 1];
+                    System.arraycopy(locations, 0, shrunk, 0, i);
+                    System.arraycopy(locations, i + 1, shrunk, i, locations.length - i - 1);
+                    return new Cell(shrunk, coordinates.without(i));
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Candidate locations gathered from several cells, so their distances
+     * can be computed in one batch.
+     */
+    private static final class Candidates {
+
+        private final List<LocationSnapshot> locations = new ArrayList<>();
+        private final CoordinateColumns coordinates = new CoordinateColumns(64);
+
+        void add(Cell cell) {
+            locations.addAll(Arrays.asList(cell.locations()));
+            coordinates.addAll(cell.coordinates());
+        }
+
+        void clear() {
+            locations.clear();
+            coordinates.clear();
+        }
+
+        void forEachWithin(double latitude, double longitude, double radiusKm,
+                Predicate<LocationSnapshot> filter, Consumer<Match> consumer) {
+            if (locations.isEmpty()) {
+                return;
+            }
+            double[] distances = DistanceEngine.distancesKm(latitude, longitude, coordinates);
+            for (int i = 0; i < distances.length; i++) {
+                LocationSnapshot location = locations.get(i);
+                if (distances[i] <= radiusKm && (filter == null || filter.test(location))) {
+                    consumer.accept(new Match(location, distances[i]));
+                }
+            }
+        }
+    }
+
+    /**
+     * A location found by a spatial query together with its distance from
+     * the query origin.
+     */
+    public record Match(LocationSnapshot location, double distanceKm) {
+    }
+
+    /**
+     * A location found by a corridor search, with how far along the route it
+     * is first reached and how far off the route it lies.
+     */
+    public record CorridorMatch(LocationSnapshot location, double alongRouteKm, double offRouteKm) {
+    }
+
+    /**
+     * One origin of a multi-origin search.
+     */
+    public record Origin(double latitude, double longitude, double radiusKm) {
+    }
+
+    /**
+     * A location found by a multi-origin search. distancesKm holds the
+     * distance to each origin, in request order, or NaN where the location
+     * is outside that origin's radius.
+     */
+    public record MultiMatch(LocationSnapshot location, double[] distancesKm) {
+
+        /**
+         * Index of the closest origin the location is within range of.
+         */
+        public int nearestOrigin() {
+            int nearest = -1;
+            for (int i = 0; i < distancesKm.length; i++) {
+                if (!Double.isNaN(distancesKm[i]) && (nearest < 0 || distancesKm[i] < distancesKm[nearest])) {
+                    nearest = i;
+                }
+            }
+            return nearest;
+        }
+
+        public double nearestDistanceKm() {
+            return distancesKm[nearestOrigin()];
+        }
+    }
+}
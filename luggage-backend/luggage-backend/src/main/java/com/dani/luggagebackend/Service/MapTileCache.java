@@ -0,0 +1,128 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.DTO.ViewportResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory LRU cache of z/x/y map tiles.
+ * Tiles are built lazily on first request and dropped only when a location
+ * inside them changes, so most map traffic is served without touching the
+ * database or walking the spatial index.
+ */
+@Component
+public class MapTileCache {
+
+    /**
+     * Highest zoom level tiles are served for.
+     */
+    public static final int MAX_TILE_ZOOM = 22;
+
+    @Autowired
+    private LocationMapService locationMapService;
+
+    @Autowired
+    private LocationSpatialIndex spatialIndex;
+
+    private final Map<TileKey, ViewportResponse> tiles;
+
+    /**
+     * Bumped on every invalidation so a tile built while a write was being
+     * applied is served but not cached. Also the version tile URLs embed:
+     * it only moves once the tiles a write touched have been dropped, so a
+     * tile cached before the write is never served under the new version.
+     */
+    private long invalidations;
+
+    /**
+     * Random per-instance prefix of the version. The invalidation count
+     * restarts at 0 on every boot and each node counts its own writes, so the
+     * count alone could name different content on another node or after a
+     * restart while old tiles are still cached downstream.
+     */
+    private final String instanceId = Long.toUnsignedString(new SecureRandom().nextLong(), 36);
+
+    public MapTileCache(@Value("${locations.tiles.cache-size:10000}") int maxTiles) {
+        this.tiles = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TileKey, ViewportResponse> eldest) {
+                return size() > maxTiles;
+            }
+        };
+    }
+
+    /**
+     * Current catalog version. Tile URLs embed it so their content never
+     * changes for a given URL. Unique to this cache instance, so no other node
+     * or later boot ever issues the same version.
+     */
+    public synchronized String currentVersion() {
+        return instanceId + "-" + invalidations;
+    }
+
+    /**
+     * Gets a tile, building and caching it on a miss.
+     *
+     * @param zoom Tile zoom level
+     * @param x    Tile column
+     * @param y    Tile row
+     * @return Markers and clusters inside the tile
+     */
+    public ViewportResponse getTile(int zoom, long x, long y) {
+        TileKey key = new TileKey(zoom, x, y);
+        long versionBefore;
+        long invalidationsBefore;
+        synchronized (this) {
+            ViewportResponse cached = tiles.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            versionBefore = spatialIndex.version();
+            invalidationsBefore = invalidations;
+        }
+
+        ViewportResponse tile = locationMapService.buildTile(zoom, x, y);
+
+        synchronized (this) {
+            if (invalidations == invalidationsBefore && spatialIndex.version() == versionBefore) {
+                tiles.put(key, tile);
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Drops the tiles holding the old and new position of a changed location
+     * at every zoom level. Other tiles stay cached.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(LocationChangedEvent event) {
+        synchronized (this) {
+            invalidations++;
+            for (LocationSnapshot location : new LocationSnapshot[] {event.previous(), event.current()}) {
+                if (location == null) {
+                    continue;
+                }
+                for (int zoom = 0; zoom <= MAX_TILE_ZOOM; zoom++) {
+                    tiles.remove(new TileKey(zoom, Geo.tileX(zoom, location.lng()), Geo.tileY(zoom, location.lat())));
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of tiles currently cached.
+     */
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    private record TileKey(int zoom, long x, long y) {
+    }
+}
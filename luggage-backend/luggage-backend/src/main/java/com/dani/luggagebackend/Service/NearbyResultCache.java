@@ -0,0 +1,227 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.DTO.NearbyCacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of nearby search candidates keyed by a quantized origin.
+ * Searches from the same grid cell with the same radius bucket and filters
+ * share one candidate set: every location matching the filters within the
+ * bucket radius of any point in the cell. Each caller then gets exact
+ * distances from its own position, so cached and uncached answers are
+ * identical.
+ */
+@Component
+public class NearbyResultCache {
+
+    /**
+     * Search radii are rounded up to the next bucket; larger radii bypass
+     * the cache.
+     */
+    private static final double[] RADIUS_BUCKETS_KM = {1, 2, 5, 10, 20, 50, 100, 200, 500};
+
+    private final double cellSizeDeg;
+    private final int maxCandidates;
+    private final Map<CacheKey, CachedCandidates> entries;
+
+    /**
+     * Bumped on every invalidation so candidates loaded while a write was
+     * being applied are used but not cached.
+     */
+    private long invalidations;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidatedEntries = new LongAdder();
+
+    /**
+     * Loads every location matching the filters within radiusKm of a point.
+     */
+    @FunctionalInterface
+    public interface CandidateLoader {
+        List<LocationSnapshot> load(double latitude, double longitude, double radiusKm);
+    }
+
+    /**
+     * Filter tuple of a nearby search. Prices are compared by value, so 5 and
+     * 5.00 share an entry.
+     */
+    public record Filters(BigDecimal minPrice, BigDecimal maxPrice, Integer minCapacity) {
+
+        public Filters {
+            minPrice = minPrice != null ? minPrice.stripTrailingZeros() : null;
+            maxPrice = maxPrice != null ? maxPrice.stripTrailingZeros() : null;
+        }
+    }
+
+    public NearbyResultCache(
+            @Value("${locations.nearby-cache.cell-size-deg:0.005}") double cellSizeDeg,
+            @Value("${locations.nearby-cache.max-entries:5000}") int maxEntries,
+            @Value("${locations.nearby-cache.max-candidates:5000}") int maxCandidates) {
+        this.cellSizeDeg = cellSizeDeg;
+        this.maxCandidates = maxCandidates;
+        this.entries = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedCandidates> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Finds locations within radiusKm of the origin, closest first, using a
+     * cached candidate set when one covers the origin.
+     *
+     * @param latitude  Search origin latitude
+     * @param longitude Search origin longitude
+     * @param radiusKm  Search radius in kilometers
+     * @param filters   Filters applied by the loader
+     * @param loader    Loads candidates on a miss
+     * @return Matches ordered by distance
+     */
+    public List<LocationSpatialIndex.Match> findWithinRadius(double latitude, double longitude, double radiusKm,
+            Filters filters, CandidateLoader loader) {
+        int bucket = bucketOf(radiusKm);
+        if (bucket < 0) {
+            misses.increment();
+            return exactMatches(latitude, longitude, radiusKm, CachedCandidates.of(
+                    latitude, longitude, radiusKm, loader.load(latitude, longitude, radiusKm)));
+        }
+
+        CacheKey key = new CacheKey(cellOf(latitude), cellOf(longitude), bucket, filters);
+        long invalidationsBefore;
+        synchronized (this) {
+            CachedCandidates cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return exactMatches(latitude, longitude, radiusKm, cached);
+            }
+            invalidationsBefore = invalidations;
+        }
+        misses.increment();
+
+        double centerLat = (key.latCell() + 0.5) * cellSizeDeg;
+        double centerLng = (key.lngCell() + 0.5) * cellSizeDeg;
+        // Any origin in the cell is at most one cell size (in km) from its centre
+        double coverRadiusKm = RADIUS_BUCKETS_KM[bucket] + cellSizeDeg * Geo.KM_PER_DEGREE;
+        CachedCandidates loaded = CachedCandidates.of(centerLat, centerLng, coverRadiusKm,
+                loader.load(centerLat, centerLng, coverRadiusKm));
+
+        if (loaded.locations().length <= maxCandidates) {
+            synchronized (this) {
+                if (invalidations == invalidationsBefore) {
+                    entries.put(key, loaded);
+                }
+            }
+        }
+        return exactMatches(latitude, longitude, radiusKm, loaded);
+    }
+
+    /**
+     * Drops the entries whose candidate area holds the old or new position
+     * of a changed location. Entries elsewhere stay cached.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationChanged(LocationChangedEvent event) {
+        synchronized (this) {
+            invalidations++;
+            Iterator<CachedCandidates> it = entries.values().iterator();
+            while (it.hasNext()) {
+                CachedCandidates cached = it.next();
+                if (cached.covers(event.previous()) || cached.covers(event.current())) {
+                    it.remove();
+                    invalidatedEntries.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters since startup.
+     */
+    public NearbyCacheStats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return NearbyCacheStats.builder()
+                .size(size())
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRate(total == 0 ? 0.0 : (double) hitCount / total)
+                .evictions(evictions.sum())
+                .invalidations(invalidatedEntries.sum())
+                .build();
+    }
+
+    /**
+     * Number of cached candidate sets.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private int cellOf(double degrees) {
+        return (int) Math.floor(degrees / cellSizeDeg);
+    }
+
+    private static int bucketOf(double radiusKm) {
+        for (int i = 0; i < RADIUS_BUCKETS_KM.length; i++) {
+            if (radiusKm <= RADIUS_BUCKETS_KM[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<LocationSpatialIndex.Match> exactMatches(double latitude, double longitude,
+            double radiusKm, CachedCandidates candidates) {
+        double[] distances = DistanceEngine.distancesKm(latitude, longitude, candidates.coordinates());
+        List<LocationSpatialIndex.Match> matches = new ArrayList<>();
+        for (int i = 0; i < distances.length; i++) {
+            if (distances[i] <= radiusKm) {
+                matches.add(new LocationSpatialIndex.Match(candidates.locations()[i], distances[i]));
+            }
+        }
+        matches.sort(LocationSpatialIndex.BY_DISTANCE);
+        return matches;
+    }
+
+    private record CacheKey(int latCell, int lngCell, int radiusBucket, Filters filters) {
+    }
+
+    /**
+     * Candidates within coverRadiusKm of a centre point, with their
+     * coordinates laid out for the batch distance kernel.
+     */
+    private record CachedCandidates(double centerLat, double centerLng, double coverRadiusKm,
+            LocationSnapshot[] locations, CoordinateColumns coordinates) {
+
+        static CachedCandidates of(double centerLat, double centerLng, double coverRadiusKm,
+                List<LocationSnapshot> locations) {
+            CoordinateColumns coordinates = new CoordinateColumns(locations.size());
+            locations.forEach(location -> coordinates.add(location.lat(), location.lng()));
+            return new CachedCandidates(centerLat, centerLng, coverRadiusKm,
+                    locations.toArray(LocationSnapshot[]::new), coordinates);
+        }
+
+        boolean covers(LocationSnapshot location) {
+            return location != null
+                    && Geo.haversineKm(centerLat, centerLng, location.lat(), location.lng()) <= coverRadiusKm;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.dani.luggagebackend.Service;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from node ID to distance, sized to the part of the
+ * graph a search touches rather than to the whole graph, so concurrent
+ * searches stay cheap.
+ */
+final class NodeDistances {
+
+    private static final int EMPTY = -1;
+
+    private int[] nodes;
+    private double[] distances;
+    private boolean[] settled;
+    private int size;
+
+    NodeDistances() {
+        this(64);
+    }
+
+    NodeDistances(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+        nodes = new int[capacity];
+        Arrays.fill(nodes, EMPTY);
+        distances = new double[capacity];
+        settled = new boolean[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Distance recorded for a node, or infinity if it has not been reached.
+     */
+    double get(int node) {
+        int slot = find(node);
+        return nodes[slot] == EMPTY ? Double.POSITIVE_INFINITY : distances[slot];
+    }
+
+    boolean isSettled(int node) {
+        int slot = find(node);
+        return nodes[slot] != EMPTY && settled[slot];
+    }
+
+    void settle(int node) {
+        int slot = find(node);
+        if (nodes[slot] != EMPTY) {
+            settled[slot] = true;
+        }
+    }
+
+    /**
+     * Records a distance if it improves on the known one.
+     *
+     * @return true if the distance was improved
+     */
+    boolean offer(int node, double distance) {
+        int slot = find(node);
+        if (nodes[slot] != EMPTY) {
+            if (distance >= distances[slot]) {
+                return false;
+            }
+            distances[slot] = distance;
+            return true;
+        }
+        nodes[slot] = node;
+        distances[slot] = distance;
+        if (++size * 2 > nodes.length) {
+            grow();
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    interface Visitor {
+        void visit(int node, double distance);
+    }
+
+    private int find(int node) {
+        int mask = nodes.length - 1;
+        int slot = (node * 0x9E3779B9) >>> 7 & mask;
+        while (nodes[slot] != EMPTY && nodes[slot] != node) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldNodes = nodes;
+        double[] oldDistances = distances;
+        boolean[] oldSettled = settled;
+        nodes = new int[oldNodes.length * 2];
+        Arrays.fill(nodes, EMPTY);
+        distances = new double[nodes.length];
+        settled = new boolean[nodes.length];
+        for (int i = 0; i < oldNodes.length; i++) {
+            if (oldNodes[i] != EMPTY) {
+                int slot = find(oldNodes[i]);
+                nodes[slot] = oldNodes[i];
+                distances[slot] = oldDistances[i];
+                settled[slot] = oldSettled[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Model.Booking;
+import com.dani.luggagebackend.Repo.BookingRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-location capacity ledgers in bags, for admitting bookings without
+ * overbooking and for answering availability checks without loading a
+ * location's booking history.
+ *
+ * Time is cut into fixed slots. A ledger holds the bags taken up over time
+ * by the location's PENDING and CONFIRMED bookings; a booking takes up
+ * every slot it touches. A booking is admitted only if every slot it
+ * touches still has room for its bags, and the check and the hold happen
+ * under the location's lock, so two requests for the last bags cannot both
+ * get them. Locks are striped: locations share a fixed set of locks, so
+ * admissions at different locations rarely wait on each other.
+ *
+ * Ledgers are loaded on first use, follow {@link BookingChangedEvent}s
+ * once the surrounding transaction commits, and are dropped once unused
+ * for a while, unless a booking admitted on them is still uncommitted.
+ * Admission is node-local: it relies on bookings being written through
+ * one application instance.
+ */
+@Component
+public class OccupancyIndex {
+
+    // Bookings that take up a slot at a location
+    static final Set<Booking.BookingStatus> OCCUPYING_STATUSES =
+            Set.of(Booking.BookingStatus.PENDING, Booking.BookingStatus.CONFIRMED);
+
+    private static final int STRIPES = 64;
+
+    private static final List<String> OCCUPYING_STATUS_NAMES =
+            OCCUPYING_STATUSES.stream().map(Enum::name).toList();
+
+    // Bookings that ended this long ago are forgotten
+    private static final Duration RETENTION = Duration.ofDays(1);
+
+    private final long slotMillis;
+    private final long idleNanos;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final Map<UUID, Ledger> ledgers = new ConcurrentHashMap<>();
+    private volatile long lastSweep = System.nanoTime();
+
+    /**
+     * Loads the occupying bookings of one location.
+     */
+    @FunctionalInterface
+    public interface HoldLoader {
+        List<Hold> load(UUID locationId);
+    }
+
+    /**
+     * Loads the occupying bookings of several locations at once.
+     */
+    @FunctionalInterface
+    public interface BatchHoldLoader {
+        Map<UUID, List<Hold>> load(Collection<UUID> locationIds);
+    }
+
+    /**
+     * Bags a booking takes up over a half-open time interval.
+     */
+    public record Hold(UUID bookingId, Instant start, Instant end, int bags) {
+    }
+
+    /**
+     * Loader reading the intervals and bag counts of the bookings a ledger
+     * still remembers from the database.
+     */
+    public static HoldLoader loaderOf(BookingRepo bookingRepo) {
+        return locationId -> bookingRepo.findIntervalsByLocation(
+                        locationId, OCCUPYING_STATUS_NAMES, Instant.now().minus(RETENTION)).stream()
+                .map(row -> new Hold(row.getId(), row.getStartTime(), row.getEndTime(), row.getBags()))
+                .toList();
+    }
+
+    /**
+     * Half-open time window to check for free bags.
+     */
+    public record Window(Instant start, Instant end) {
+    }
+
+    /**
+     * Batch loader reading the intervals and bag counts of the bookings
+     * the ledgers still remember from the database, in one query.
+     */
+    public static BatchHoldLoader batchLoaderOf(BookingRepo bookingRepo) {
+        return locationIds -> {
+            Map<UUID, List<Hold>> holds = new HashMap<>();
+            bookingRepo.findIntervalsByLocationIn(locationIds, OCCUPYING_STATUS_NAMES, Instant.now().minus(RETENTION))
+                    .forEach(row -> holds.computeIfAbsent(row.getLocationId(), id -> new ArrayList<>())
+                            .add(new Hold(row.getId(), row.getStartTime(), row.getEndTime(), row.getBags())));
+            return holds;
+        };
+    }
+
+    public OccupancyIndex(
+            @Value("${locations.occupancy.slot-minutes:15}") int slotMinutes,
+            @Value("${locations.occupancy.idle-minutes:30}") int idleMinutes) {
+        this.slotMillis = Duration.ofMinutes(slotMinutes).toMillis();
+        this.idleNanos = Duration.ofMinutes(idleMinutes).toNanos();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Holds bags for a booking if every slot it touches has room for them.
+     * A hold the booking already has is replaced, or kept as it was when
+     * the new one does not fit. Every call must be followed by
+     * {@link #settle} once its transaction has finished.
+     *
+     * @param locationId Location ID
+     * @param hold       Booking, interval and bags to hold
+     * @param capacity   Location capacity in bags
+     * @param loader     Loads the location's bookings when its ledger is not held
+     * @return Whether the booking was admitted
+     */
+    public boolean tryAdmit(UUID locationId, Hold hold, int capacity, HoldLoader loader) {
+        sweepIfDue();
+        ReentrantLock lock = lockOf(locationId);
+        lock.lock();
+        try {
+            Ledger ledger = ledgerOf(locationId, loader);
+            ledger.unsettled++;
+            ledger.forgetBefore(slotOf(Instant.now().minus(RETENTION)));
+            Held previous = ledger.remove(hold.bookingId());
+            Held held = heldOf(hold);
+            if (hold.bags() > capacity - ledger.peak(held.first(), held.end())) {
+                if (previous != null) {
+                    ledger.add(hold.bookingId(), previous);
+                }
+                return false;
+            }
+            ledger.add(hold.bookingId(), held);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks an admission's transaction as finished, letting its ledger be
+     * dropped again.
+     */
+    public void settle(UUID locationId) {
+        ReentrantLock lock = lockOf(locationId);
+        lock.lock();
+        try {
+            Ledger ledger = ledgers.get(locationId);
+            if (ledger != null && ledger.unsettled > 0) {
+                ledger.unsettled--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back the bags of a booking, e.g. when its admission was rolled
+     * back.
+     */
+    public void release(UUID locationId, UUID bookingId) {
+        ReentrantLock lock = lockOf(locationId);
+        lock.lock();
+        try {
+            Ledger ledger = ledgers.get(locationId);
+            if (ledger != null) {
+                ledger.remove(bookingId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts back a hold without checking capacity, e.g. when moving a
+     * booking was rolled back.
+     */
+    public void restore(UUID locationId, Hold hold) {
+        ReentrantLock lock = lockOf(locationId);
+        lock.lock();
+        try {
+            Ledger ledger = ledgers.get(locationId);
+            if (ledger != null) {
+                ledger.remove(hold.bookingId());
+                ledger.add(hold.bookingId(), heldOf(hold));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bags still free in the fullest slot of a time window.
+     *
+     * @param locationId Location ID
+     * @param start      Window start
+     * @param end        Window end
+     * @param capacity   Location capacity in bags
+     * @param loader     Loads the location's bookings when its ledger is not held
+     * @return Free bags (negative when overbooked)
+     */
+    public long remaining(UUID locationId, Instant start, Instant end, int capacity, HoldLoader loader) {
+        sweepIfDue();
+        ReentrantLock lock = lockOf(locationId);
+        lock.lock();
+        try {
+            return capacity - ledgerOf(locationId, loader).peak(slotOf(start), endSlotOf(end));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bags still free in the fullest slot of each of several windows, for
+     * several locations. Ledgers not held yet are loaded with a single
+     * call to the loader, so answering costs at most one query.
+     *
+     * @param capacities Location capacity in bags per location ID
+     * @param windows    Time windows
+     * @param loader     Loads the bookings of the locations whose ledgers are not held
+     * @return Free bags per location ID, one per window in order (negative when overbooked)
+     */
+    public Map<UUID, long[]> remaining(Map<UUID, Integer> capacities, List<Window> windows, BatchHoldLoader loader) {
+        sweepIfDue();
+        loadMissing(capacities.keySet(), loader);
+        HoldLoader single = locationId -> loader.load(List.of(locationId)).getOrDefault(locationId, List.of());
+        Map<UUID, long[]> remaining = new HashMap<>();
+        capacities.forEach((locationId, capacity) -> {
+            long[] free = new long[windows.size()];
+            ReentrantLock lock = lockOf(locationId);
+            lock.lock();
+            try {
+                Ledger ledger = ledgerOf(locationId, single);
+                for (int i = 0; i < free.length; i++) {
+                    Window window = windows.get(i);
+                    free[i] = capacity - ledger.peak(slotOf(window.start()), endSlotOf(window.end()));
+                }
+            } finally {
+                lock.unlock();
+            }
+            remaining.put(locationId, free);
+        });
+        return remaining;
+    }
+
+    /**
+     * Follows a committed booking write on the location's ledger, if held:
+     * bookings leaving PENDING/CONFIRMED give their bags back, and holds
+     * not made through {@link #tryAdmit} are picked up.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        BookingSnapshot current = event.current();
+        ReentrantLock lock = lockOf(current.locationId());
+        lock.lock();
+        try {
+            Ledger ledger = ledgers.get(current.locationId());
+            if (ledger == null) {
+                return;
+            }
+            if (!OCCUPYING_STATUSES.contains(current.status())) {
+                ledger.remove(current.id());
+                return;
+            }
+            Held held = heldOf(new Hold(current.id(), current.startTime(), current.endTime(), current.bags()));
+            if (!held.equals(ledger.holds.get(current.id()))) {
+                ledger.remove(current.id());
+                ledger.add(current.id(), held);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of ledgers held.
+     */
+    public int size() {
+        return ledgers.size();
+    }
+
+    private ReentrantLock lockOf(UUID locationId) {
+        return locks[stripeOf(locationId)];
+    }
+
+    private static int stripeOf(UUID locationId) {
+        return (locationId.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    /**
+     * Loads the ledgers of several locations that are not held, with one
+     * call to the loader. Their locks are held meanwhile, so no booking
+     * write can slip between the load and the ledgers being held; they are
+     * taken in stripe order, so two batches cannot deadlock.
+     */
+    private void loadMissing(Collection<UUID> locationIds, BatchHoldLoader loader) {
+        List<UUID> absent = locationIds.stream().filter(id -> !ledgers.containsKey(id)).toList();
+        if (absent.isEmpty()) {
+            return;
+        }
+        int[] stripes = absent.stream().mapToInt(OccupancyIndex::stripeOf).distinct().sorted().toArray();
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        try {
+            List<UUID> missing = absent.stream().filter(id -> !ledgers.containsKey(id)).toList();
+            if (missing.isEmpty()) {
+                return;
+            }
+            Map<UUID, List<Hold>> loaded = loader.load(missing);
+            long now = System.nanoTime();
+            for (UUID locationId : missing) {
+                Ledger ledger = new Ledger();
+                for (Hold hold : loaded.getOrDefault(locationId, List.of())) {
+                    ledger.add(hold.bookingId(), heldOf(hold));
+                }
+                ledger.lastUsed = now;
+                ledgers.put(locationId, ledger);
+            }
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                locks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * The location's ledger, loaded if not held. Called under its lock.
+     */
+    private Ledger ledgerOf(UUID locationId, HoldLoader loader) {
+        Ledger ledger = ledgers.get(locationId);
+        if (ledger == null) {
+            ledger = new Ledger();
+            for (Hold hold : loader.load(locationId)) {
+                ledger.add(hold.bookingId(), heldOf(hold));
+            }
+            ledgers.put(locationId, ledger);
+        }
+        ledger.lastUsed = System.nanoTime();
+        return ledger;
+    }
+
+    /**
+     * Drops idle ledgers, at most a few times per idle timeout.
+     */
+    private void sweepIfDue() {
+        long now = System.nanoTime();
+        if (now - lastSweep < idleNanos / 4) {
+            return;
+        }
+        lastSweep = now;
+        for (UUID locationId : ledgers.keySet()) {
+            ReentrantLock lock = lockOf(locationId);
+            if (!lock.tryLock()) {
+                continue;
+            }
+            try {
+                Ledger ledger = ledgers.get(locationId);
+                if (ledger != null && ledger.unsettled == 0 && now - ledger.lastUsed > idleNanos) {
+                    ledgers.remove(locationId);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private Held heldOf(Hold hold) {
+        return new Held(slotOf(hold.start()), endSlotOf(hold.end()), hold.bags());
+    }
+
+    private long slotOf(Instant time) {
+        return Math.floorDiv(time.toEpochMilli(), slotMillis);
+    }
+
+    /**
+     * First slot after an interval ending at the given time.
+     */
+    private long endSlotOf(Instant time) {
+        return Math.floorDiv(time.toEpochMilli() - 1, slotMillis) + 1;
+    }
+
+    /**
+     * Slots [first, end) taken up by a booking, and its bags.
+     */
+    private record Held(long first, long end, int bags) {
+    }
+
+    /**
+     * Bags taken up over time at one location, kept as the change in bags at
+     * each slot where a booking starts or ends, so a hold costs two entries
+     * however long it is. Guarded by the location's lock.
+     */
+    private static final class Ledger {
+
+        private final Map<UUID, Held> holds = new HashMap<>();
+        // Bags added (or, where bookings end, taken away) at each slot; no zeros
+        private final NavigableMap<Long, Integer> deltas = new TreeMap<>();
+        // Admissions whose transaction has not finished yet
+        private int unsettled;
+        private long lastUsed;
+
+        void add(UUID bookingId, Held held) {
+            holds.put(bookingId, held);
+            shift(held.first(), held.bags());
+            shift(held.end(), -held.bags());
+        }
+
+        Held remove(UUID bookingId) {
+            Held held = holds.remove(bookingId);
+            if (held != null) {
+                shift(held.first(), -held.bags());
+                shift(held.end(), held.bags());
+            }
+            return held;
+        }
+
+        private void shift(long slot, int bags) {
+            if (deltas.merge(slot, bags, Integer::sum) == 0) {
+                deltas.remove(slot);
+            }
+        }
+
+        /**
+         * Most bags taken up in any slot of [first, end).
+         */
+        long peak(long first, long end) {
+            long level = 0;
+            for (int bags : deltas.headMap(first, true).values()) {
+                level += bags;
+            }
+            long peak = level;
+            for (int bags : deltas.subMap(first, false, end, false).values()) {
+                level += bags;
+                peak = Math.max(peak, level);
+            }
+            return peak;
+        }
+
+        /**
+         * Forgets the holds that ended by the given slot.
+         */
+        void forgetBefore(long slot) {
+            holds.entrySet().removeIf(entry -> {
+                Held held = entry.getValue();
+                if (held.end() > slot) {
+                    return false;
+                }
+                shift(held.first(), -held.bags());
+                shift(held.end(), held.bags());
+                return true;
+            });
+        }
+    }
+}
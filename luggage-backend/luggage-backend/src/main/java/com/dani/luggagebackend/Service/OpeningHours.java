@@ -0,0 +1,75 @@
+package com.dani.luggagebackend.Service;
+
+import java.time.LocalTime;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Daily opening window parsed from a location's free-text hours, so
+ * "open now" can be answered by the database. Equal opening and closing
+ * times mean open all day; a closing time before the opening time means
+ * the window runs past midnight.
+ */
+public record OpeningHours(LocalTime opens, LocalTime closes) {
+
+    private static final String TIME = "(\\d{1,2})(?:[:.](\\d{2}))?\\s*([AaPp]\\.?[Mm]\\.?)?";
+    private static final Pattern RANGE = Pattern.compile(TIME + "\\s*(?:-|–|to)\\s*" + TIME);
+
+    public static final OpeningHours ALL_DAY = new OpeningHours(LocalTime.MIDNIGHT, LocalTime.MIDNIGHT);
+
+    /**
+     * Parses the common formats: "24/7", "24h", "6:00 AM - 11:00 PM",
+     * "Mon-Sun: 8AM-10PM" and "08:00-20:00". Day ranges are ignored.
+     *
+     * @param hours Free-text hours
+     * @return Daily window, or null if the text is not understood
+     */
+    public static OpeningHours parse(String hours) {
+        if (hours == null) {
+            return null;
+        }
+        String text = hours.trim().toLowerCase(Locale.ROOT);
+        if (text.equals("24/7") || text.equals("24h") || text.equals("24 hours") || text.equals("open 24 hours")) {
+            return ALL_DAY;
+        }
+        Matcher matcher = RANGE.matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        LocalTime opens = time(matcher.group(1), matcher.group(2), matcher.group(3));
+        LocalTime closes = time(matcher.group(4), matcher.group(5), matcher.group(6));
+        return opens != null && closes != null ? new OpeningHours(opens, closes) : null;
+    }
+
+    /**
+     * Whether the location is open at a time of day.
+     */
+    public boolean isOpenAt(LocalTime time) {
+        if (opens.equals(closes)) {
+            return true;
+        }
+        if (opens.isBefore(closes)) {
+            return !time.isBefore(opens) && time.isBefore(closes);
+        }
+        return !time.isBefore(opens) || time.isBefore(closes);
+    }
+
+    private static LocalTime time(String hourText, String minuteText, String meridiem) {
+        int hour = Integer.parseInt(hourText);
+        int minute = minuteText != null ? Integer.parseInt(minuteText) : 0;
+        if (meridiem != null) {
+            if (hour < 1 || hour > 12) {
+                return null;
+            }
+            boolean pm = meridiem.charAt(0) == 'p';
+            hour = hour % 12 + (pm ? 12 : 0);
+        } else if (hour == 24 && minute == 0) {
+            hour = 0;
+        }
+        if (hour > 23 || minute > 59) {
+            return null;
+        }
+        return LocalTime.of(hour, minute);
+    }
+}
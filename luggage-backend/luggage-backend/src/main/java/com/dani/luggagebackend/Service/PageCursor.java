@@ -0,0 +1,57 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Exception.BadRequestException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last item of a keyset-paginated result: its distance from
+ * the search origin (nearby searches only) and its ID. Clients get it as an
+ * opaque URL-safe string and send it back to fetch the next page.
+ *
+ * @param distanceKm Distance of the last item, or NaN when results are
+ *                   ordered by ID only
+ * @param id         ID of the last item
+ */
+public record PageCursor(double distanceKm, UUID id) {
+
+    private static final int ENCODED_BYTES = Double.BYTES + 2 * Long.BYTES;
+
+    public static PageCursor afterId(UUID id) {
+        return new PageCursor(Double.NaN, id);
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putDouble(distanceKm)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decodes a cursor sent by a client.
+     *
+     * @param cursor Encoded cursor (nullable)
+     * @return Decoded cursor, or null when none was sent
+     * @throws BadRequestException if the cursor is malformed
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        if (bytes.length != ENCODED_BYTES) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new PageCursor(buffer.getDouble(), new UUID(buffer.getLong(), buffer.getLong()));
+    }
+}
@@ -0,0 +1,193 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Model.Booking;
+import com.dani.luggagebackend.Repo.BookingRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Expiry deadlines of PENDING bookings, so abandoned checkouts give their
+ * bags back without anything scanning the bookings table.
+ *
+ * Deadlines sit in a hashed timing wheel: a ring of buckets, one per tick,
+ * where a deadline goes into the bucket of its tick modulo the ring size.
+ * Every tick visits only the buckets passed since the last one and expires
+ * their due deadlines; deadlines more than one turn away stay in their
+ * bucket until a later turn. Scheduling and cancelling cost O(1), and a
+ * tick costs as much as the deadlines sharing its buckets.
+ *
+ * Due bookings are cancelled in batches, each one multi-row UPDATE that
+ * skips bookings confirmed or cancelled in the meantime, so several
+ * instances expiring the same booking is harmless. Rebuilt from the
+ * deadlines still pending at startup and kept up to date from
+ * {@link BookingChangedEvent}s once the surrounding transaction commits.
+ */
+@Component
+public class PendingExpiry {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingExpiry.class);
+
+    private static final int WHEEL_SIZE = 512;
+
+    @Autowired
+    private BookingRepo bookingRepo;
+
+    @Autowired
+    private BookingsService bookingsService;
+
+    private final long tickMillis;
+    private final int batchSize;
+    private final List<Set<UUID>> buckets = new ArrayList<>(WHEEL_SIZE);
+    // Deadline of every scheduled booking
+    private final Map<UUID, Deadline> deadlines = new HashMap<>();
+    // Last tick whose bucket has been visited
+    private long currentTick;
+
+    public PendingExpiry(
+            @Value("${bookings.pending-expiry.tick-millis:1000}") long tickMillis,
+            @Value("${bookings.pending-expiry.batch-size:500}") int batchSize) {
+        this.tickMillis = tickMillis;
+        this.batchSize = batchSize;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets.add(new HashSet<>());
+        }
+        this.currentTick = tickOf(Instant.now());
+    }
+
+    /**
+     * Schedules the deadlines still pending once the application has
+     * started. Deadlines passed while the application was down expire on
+     * the first tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromDatabase() {
+        long started = System.nanoTime();
+        List<BookingRepo.PendingDeadline> pending = bookingRepo.findPendingDeadlines();
+        pending.forEach(deadline -> schedule(deadline.getId(), deadline.getExpiresAt()));
+        log.info("Pending expiry loaded {} deadlines in {} ms",
+                pending.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Follows committed booking writes: PENDING bookings with a deadline
+     * are scheduled, any other booking is dropped.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        BookingSnapshot current = event.current();
+        if (current.status() == Booking.BookingStatus.PENDING && current.expiresAt() != null) {
+            schedule(current.id(), current.expiresAt());
+        } else {
+            cancel(current.id());
+        }
+    }
+
+    /**
+     * Cancels the bookings that are due, in batches.
+     */
+    @Scheduled(fixedDelayString = "${bookings.pending-expiry.tick-millis:1000}")
+    public void tick() {
+        tick(Instant.now());
+    }
+
+    void tick(Instant now) {
+        List<UUID> due = advance(now);
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<UUID> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                int expired = bookingsService.expirePendingBookings(batch);
+                log.debug("Expired {} of {} due pending bookings", expired, batch.size());
+            } catch (RuntimeException e) {
+                // Retried on the next tick
+                log.warn("Could not expire {} pending bookings", batch.size(), e);
+                batch.forEach(bookingId -> schedule(bookingId, now));
+            }
+        }
+    }
+
+    /**
+     * Schedules or moves the deadline of a booking. Deadlines already
+     * passed are due on the next tick.
+     */
+    public synchronized void schedule(UUID bookingId, Instant expiresAt) {
+        cancel(bookingId);
+        long tick = tickOf(expiresAt);
+        int bucket = bucketOf(Math.max(tick, currentTick + 1));
+        deadlines.put(bookingId, new Deadline(tick, bucket));
+        buckets.get(bucket).add(bookingId);
+    }
+
+    /**
+     * Drops the deadline of a booking, if scheduled.
+     */
+    public synchronized void cancel(UUID bookingId) {
+        Deadline deadline = deadlines.remove(bookingId);
+        if (deadline != null) {
+            buckets.get(deadline.bucket()).remove(bookingId);
+        }
+    }
+
+    /**
+     * Number of deadlines scheduled.
+     */
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Moves the wheel up to the given time and takes out the deadlines due
+     * by then.
+     *
+     * @return IDs of the bookings due
+     */
+    synchronized List<UUID> advance(Instant now) {
+        long nowTick = tickOf(now);
+        List<UUID> due = new ArrayList<>();
+        // After a full turn every bucket has been visited
+        long last = Math.min(nowTick, currentTick + WHEEL_SIZE);
+        for (long tick = currentTick + 1; tick <= last; tick++) {
+            Iterator<UUID> bucket = buckets.get(bucketOf(tick)).iterator();
+            while (bucket.hasNext()) {
+                UUID bookingId = bucket.next();
+                if (deadlines.get(bookingId).tick() <= nowTick) {
+                    bucket.remove();
+                    deadlines.remove(bookingId);
+                    due.add(bookingId);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return due;
+    }
+
+    private long tickOf(Instant time) {
+        return Math.floorDiv(time.toEpochMilli(), tickMillis);
+    }
+
+    private static int bucketOf(long tick) {
+        return (int) Math.floorMod(tick, (long) WHEEL_SIZE);
+    }
+
+    /**
+     * Tick a booking expires at and the bucket it waits in.
+     */
+    private record Deadline(long tick, int bucket) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.dani.luggagebackend.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decoder for the encoded polyline format used by Google, Mapbox and OSRM
+ * route responses (precision 5).
+ */
+public final class Polyline {
+
+    private static final double PRECISION = 1e5;
+
+    private Polyline() {
+    }
+
+    /**
+     * Decodes an encoded polyline.
+     *
+     * @param encoded Encoded polyline
+     * @return Route points in order
+     * @throws IllegalArgumentException if the polyline is malformed
+     */
+    public static List<Point> decode(String encoded) {
+        List<Point> points = new ArrayList<>();
+        int index = 0;
+        long lat = 0;
+        long lng = 0;
+        while (index < encoded.length()) {
+            long[] value = new long[1];
+            index = next(encoded, index, value);
+            lat += value[0];
+            index = next(encoded, index, value);
+            lng += value[0];
+
+            double latitude = lat / PRECISION;
+            double longitude = lng / PRECISION;
+            if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+                throw new IllegalArgumentException("Polyline point out of range");
+            }
+            points.add(new Point(latitude, longitude));
+        }
+        return points;
+    }
+
+    /**
+     * Reads one zig-zag encoded value starting at index into value[0] and
+     * returns the index after it.
+     */
+    private static int next(String encoded, int index, long[] value) {
+        long result = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            if (index >= encoded.length() || shift > 60) {
+                throw new IllegalArgumentException("Truncated polyline");
+            }
+            chunk = encoded.charAt(index++) - 63;
+            if (chunk < 0 || chunk > 63) {
+                throw new IllegalArgumentException("Invalid polyline character");
+            }
+            result |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        value[0] = (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+        return index;
+    }
+
+    /**
+     * A decoded route point.
+     */
+    public record Point(double latitude, double longitude) {
+    }
+}
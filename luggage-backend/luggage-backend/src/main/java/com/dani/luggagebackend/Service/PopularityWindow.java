@@ -0,0 +1,42 @@
+package com.dani.luggagebackend.Service;
+
+import java.time.Duration;
+
+/**
+ * Time window over which location popularity is counted.
+ */
+public enum PopularityWindow {
+    DAY("24h", Duration.ofHours(24)),
+    WEEK("7d", Duration.ofDays(7)),
+    ALL_TIME("all", null);
+
+    private final String param;
+    private final Duration length;
+
+    PopularityWindow(String param, Duration length) {
+        this.param = param;
+        this.length = length;
+    }
+
+    /**
+     * Window length, or null for all time.
+     */
+    public Duration length() {
+        return length;
+    }
+
+    /**
+     * Parses a request parameter value ("24h", "7d" or "all").
+     *
+     * @param param Parameter value
+     * @return The window, or null if the value is unknown
+     */
+    public static PopularityWindow fromParam(String param) {
+        for (PopularityWindow window : values()) {
+            if (window.param.equalsIgnoreCase(param)) {
+                return window;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,267 @@
+package com.dani.luggagebackend.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Immutable walking network held in primitive arrays: node coordinates and
+ * an adjacency list in compressed sparse row form. Edges are undirected.
+ *
+ * <p>Graph files are plain text (optionally gzip-compressed, ending in
+ * {@code .gz}), whitespace separated, with {@code #} comments:
+ * <pre>
+ * nodes &lt;N&gt;
+ * &lt;lat&gt; &lt;lng&gt;              N lines, node i is the i-th line
+ * edges &lt;M&gt;
+ * &lt;from&gt; &lt;to&gt; &lt;meters&gt;      M lines, walkable segment between two nodes
+ * </pre>
+ * Such a file can be exported from an OpenStreetMap extract by keeping the
+ * footway-accessible ways and writing one edge per way segment.
+ */
+public final class RoadGraph {
+
+    private static final double SNAP_CELL_DEG = 0.005;
+
+    private final double[] lat;
+    private final double[] lng;
+    private final int[] firstEdge;
+    private final int[] edgeTarget;
+    private final float[] edgeMeters;
+
+    // Nodes bucketed by grid cell for snapping coordinates to the graph
+    private final long[] cellKeys;
+    private final int[] cellStart;
+    private final int[] cellNodes;
+
+    RoadGraph(double[] lat, double[] lng, int[] from, int[] to, float[] meters) {
+        int nodes = lat.length;
+        this.lat = lat;
+        this.lng = lng;
+
+        // Each undirected edge is stored in both directions
+        this.firstEdge = new int[nodes + 1];
+        for (int i = 0; i < from.length; i++) {
+            firstEdge[from[i] + 1]++;
+            firstEdge[to[i] + 1]++;
+        }
+        for (int v = 0; v < nodes; v++) {
+            firstEdge[v + 1] += firstEdge[v];
+        }
+        this.edgeTarget = new int[from.length * 2];
+        this.edgeMeters = new float[from.length * 2];
+        int[] next = Arrays.copyOf(firstEdge, nodes);
+        for (int i = 0; i < from.length; i++) {
+            edgeTarget[next[from[i]]] = to[i];
+            edgeMeters[next[from[i]]++] = meters[i];
+            edgeTarget[next[to[i]]] = from[i];
+            edgeMeters[next[to[i]]++] = meters[i];
+        }
+
+        Integer[] order = new Integer[nodes];
+        long[] keys = new long[nodes];
+        for (int v = 0; v < nodes; v++) {
+            order[v] = v;
+            keys[v] = snapCellKey(snapRow(lat[v]), snapColumn(lng[v]));
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        this.cellNodes = new int[nodes];
+        long[] distinctKeys = new long[nodes];
+        int[] starts = new int[nodes + 1];
+        int cells = 0;
+        for (int i = 0; i < nodes; i++) {
+            cellNodes[i] = order[i];
+            if (i == 0 || keys[order[i]] != keys[order[i - 1]]) {
+                distinctKeys[cells] = keys[order[i]];
+                starts[cells++] = i;
+            }
+        }
+        starts[cells] = nodes;
+        this.cellKeys = Arrays.copyOf(distinctKeys, cells);
+        this.cellStart = Arrays.copyOf(starts, cells + 1);
+    }
+
+    /**
+     * Reads a graph file in the format described on this class.
+     *
+     * @param file Graph file, gzip-compressed if its name ends in .gz
+     * @return Loaded graph
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static RoadGraph read(Path file) throws IOException {
+        try (InputStream raw = Files.newInputStream(file);
+             InputStream in = file.toString().endsWith(".gz") ? new GZIPInputStream(raw, 1 << 16) : raw;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII), 1 << 16)) {
+            Tokens tokens = new Tokens(reader);
+
+            int nodes = tokens.header("nodes");
+            double[] lat = new double[nodes];
+            double[] lng = new double[nodes];
+            for (int v = 0; v < nodes; v++) {
+                lat[v] = tokens.nextDouble();
+                lng[v] = tokens.nextDouble();
+            }
+
+            int edges = tokens.header("edges");
+            int[] from = new int[edges];
+            int[] to = new int[edges];
+            float[] meters = new float[edges];
+            for (int i = 0; i < edges; i++) {
+                from[i] = tokens.nextNode(nodes);
+                to[i] = tokens.nextNode(nodes);
+                meters[i] = (float) tokens.nextDouble();
+                if (!(meters[i] >= 0)) {
+                    throw new IOException("Negative edge length on edge " + i);
+                }
+            }
+            return new RoadGraph(lat, lng, from, to, meters);
+        }
+    }
+
+    public int nodeCount() {
+        return lat.length;
+    }
+
+    public double latitude(int node) {
+        return lat[node];
+    }
+
+    public double longitude(int node) {
+        return lng[node];
+    }
+
+    int firstEdge(int node) {
+        return firstEdge[node];
+    }
+
+    int edgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    float edgeMeters(int edge) {
+        return edgeMeters[edge];
+    }
+
+    /**
+     * Finds the graph node closest to a point.
+     *
+     * @param latitude  Point latitude
+     * @param longitude Point longitude
+     * @param maxMeters Maximum snapping distance
+     * @return Closest node, or -1 if none is within maxMeters
+     */
+    public int nearestNode(double latitude, double longitude, double maxMeters) {
+        double maxKm = maxMeters / 1000.0;
+        int rowSpan = (int) Math.ceil(maxKm / Geo.KM_PER_DEGREE / SNAP_CELL_DEG);
+        double cosLat = Math.max(0.01, Math.cos(Math.toRadians(Math.min(89.0, Math.abs(latitude)))));
+        int colSpan = (int) Math.ceil(maxKm / (Geo.KM_PER_DEGREE * cosLat) / SNAP_CELL_DEG);
+        int row = snapRow(latitude);
+        int col = snapColumn(longitude);
+
+        int best = -1;
+        double bestKm = maxKm;
+        for (int r = row - rowSpan; r <= row + rowSpan; r++) {
+            for (int c = col - colSpan; c <= col + colSpan; c++) {
+                int cell = Arrays.binarySearch(cellKeys, snapCellKey(r, c));
+                if (cell < 0) {
+                    continue;
+                }
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int node = cellNodes[i];
+                    double km = Geo.haversineKm(latitude, longitude, lat[node], lng[node]);
+                    if (km <= bestKm) {
+                        bestKm = km;
+                        best = node;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int snapRow(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / SNAP_CELL_DEG);
+    }
+
+    private static int snapColumn(double longitude) {
+        return (int) Math.floor((longitude + 180.0) / SNAP_CELL_DEG);
+    }
+
+    private static long snapCellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    /**
+     * Minimal whitespace tokenizer that skips # comments.
+     */
+    private static final class Tokens {
+
+        private final BufferedReader reader;
+        private String[] line = new String[0];
+        private int position;
+        private long lineNumber;
+
+        Tokens(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        String next() throws IOException {
+            while (position >= line.length) {
+                String raw = reader.readLine();
+                if (raw == null) {
+                    throw new IOException("Unexpected end of graph file");
+                }
+                lineNumber++;
+                int comment = raw.indexOf('#');
+                String content = (comment >= 0 ? raw.substring(0, comment) : raw).trim();
+                line = content.isEmpty() ? new String[0] : content.split("\\s+");
+                position = 0;
+            }
+            return line[position++];
+        }
+
+        int header(String name) throws IOException {
+            String token = next();
+            if (!token.equals(name)) {
+                throw new IOException("Expected '" + name + "' on line " + lineNumber + " but found '" + token + "'");
+            }
+            int count = nextInt();
+            if (count < 0) {
+                throw new IOException("Negative " + name + " count on line " + lineNumber);
+            }
+            return count;
+        }
+
+        int nextInt() throws IOException {
+            String token = next();
+            try {
+                return Integer.parseInt(token);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid integer '" + token + "' on line " + lineNumber);
+            }
+        }
+
+        int nextNode(int nodes) throws IOException {
+            int node = nextInt();
+            if (node < 0 || node >= nodes) {
+                throw new IOException("Unknown node " + node + " on line " + lineNumber);
+            }
+            return node;
+        }
+
+        double nextDouble() throws IOException {
+            String token = next();
+            try {
+                return Double.parseDouble(token);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid number '" + token + "' on line " + lineNumber);
+            }
+        }
+    }
+}
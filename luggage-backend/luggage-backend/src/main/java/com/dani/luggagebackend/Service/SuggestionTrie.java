@@ -0,0 +1,271 @@
+package com.dani.luggagebackend.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Weighted prefix trie for autocomplete. Nodes live in parallel primitive
+ * arrays (first-child / next-sibling layout), so the structure costs a few
+ * dozen bytes per character instead of an object per node.
+ *
+ * <p>Every node stores the highest weight found in its subtree. A top-k
+ * query walks down to the prefix node and then expands the heaviest
+ * subtrees first, so it only touches the few nodes on the way to the
+ * answers however many keys share the prefix.
+ *
+ * <p>Entries are the things suggested; one entry can be reachable under
+ * several keys. Not thread-safe.
+ */
+final class SuggestionTrie {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int[] NO_INTS = new int[0];
+
+    // Nodes
+    private char[] label;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private long[] maxWeight;
+    private int[][] entriesAt;
+    private int nodeCount;
+
+    // Entries
+    private long[] entryWeight;
+    private int[][] entryNodes;
+    private int entryCount;
+    private int[] freeEntries = NO_INTS;
+    private int freeCount;
+
+    SuggestionTrie() {
+        label = new char[64];
+        parent = new int[64];
+        firstChild = new int[64];
+        nextSibling = new int[64];
+        maxWeight = new long[64];
+        entriesAt = new int[64][];
+        entryWeight = new long[16];
+        entryNodes = new int[16][];
+        nodeCount = 1;
+        parent[ROOT] = NONE;
+        firstChild[ROOT] = NONE;
+        nextSibling[ROOT] = NONE;
+        maxWeight[ROOT] = EMPTY;
+    }
+
+    /**
+     * Creates an entry that is not yet reachable under any key.
+     *
+     * @param weight Ranking weight, higher first
+     * @return Entry ID, reused after {@link #removeEntry}
+     */
+    int addEntry(long weight) {
+        int entry;
+        if (freeCount > 0) {
+            entry = freeEntries[--freeCount];
+        } else {
+            if (entryCount == entryWeight.length) {
+                entryWeight = Arrays.copyOf(entryWeight, entryCount * 2);
+                entryNodes = Arrays.copyOf(entryNodes, entryCount * 2);
+            }
+            entry = entryCount++;
+        }
+        entryWeight[entry] = weight;
+        entryNodes[entry] = NO_INTS;
+        return entry;
+    }
+
+    /**
+     * Makes an entry reachable under a key.
+     *
+     * @param key   Normalized key
+     * @param entry Entry ID
+     */
+    void link(String key, int entry) {
+        int node = ROOT;
+        for (int i = 0; i < key.length(); i++) {
+            int next = child(node, key.charAt(i));
+            node = next != NONE ? next : addChild(node, key.charAt(i));
+        }
+        int[] here = entriesAt[node] != null ? entriesAt[node] : NO_INTS;
+        for (int existing : here) {
+            if (existing == entry) {
+                return;
+            }
+        }
+        entriesAt[node] = append(here, entry);
+        entryNodes[entry] = append(entryNodes[entry], node);
+        raise(node, entryWeight[entry]);
+    }
+
+    /**
+     * Changes the weight of an entry under all of its keys.
+     */
+    void setWeight(int entry, long weight) {
+        long old = entryWeight[entry];
+        entryWeight[entry] = weight;
+        for (int node : entryNodes[entry]) {
+            if (weight > old) {
+                raise(node, weight);
+            } else {
+                recompute(node);
+            }
+        }
+    }
+
+    long weight(int entry) {
+        return entryWeight[entry];
+    }
+
+    /**
+     * Unlinks an entry from all of its keys and frees its ID. Nodes left
+     * without entries stay in place until the trie is rebuilt.
+     */
+    void removeEntry(int entry) {
+        int[] nodes = entryNodes[entry];
+        entryNodes[entry] = NO_INTS;
+        entryWeight[entry] = EMPTY;
+        for (int node : nodes) {
+            entriesAt[node] = without(entriesAt[node], entry);
+            recompute(node);
+        }
+        if (freeCount == freeEntries.length) {
+            freeEntries = Arrays.copyOf(freeEntries, Math.max(16, freeCount * 2));
+        }
+        freeEntries[freeCount++] = entry;
+    }
+
+    /**
+     * Heaviest entries reachable under keys starting with a prefix.
+     *
+     * @param prefix Normalized prefix
+     * @param limit  Maximum number of entries
+     * @return Entry IDs, heaviest first
+     */
+    int[] top(String prefix, int limit) {
+        int node = ROOT;
+        for (int i = 0; i < prefix.length() && node != NONE; i++) {
+            node = child(node, prefix.charAt(i));
+        }
+        if (node == NONE || maxWeight[node] == EMPTY || limit <= 0) {
+            return NO_INTS;
+        }
+
+        // Queue items are {weight, 1 for an entry or 0 for a node, id};
+        // at equal weight entries come out before subtrees
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> a[0] != b[0]
+                ? Long.compare(b[0], a[0])
+                : a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(a[2], b[2]));
+        queue.add(new long[] {maxWeight[node], 0, node});
+        List<Integer> result = new ArrayList<>(limit);
+        while (!queue.isEmpty() && result.size() < limit) {
+            long[] head = queue.poll();
+            int id = (int) head[2];
+            if (head[1] == 1) {
+                if (!result.contains(id)) {
+                    result.add(id);
+                }
+                continue;
+            }
+            if (entriesAt[id] != null) {
+                for (int entry : entriesAt[id]) {
+                    queue.add(new long[] {entryWeight[entry], 1, entry});
+                }
+            }
+            for (int c = firstChild[id]; c != NONE; c = nextSibling[c]) {
+                if (maxWeight[c] != EMPTY) {
+                    queue.add(new long[] {maxWeight[c], 0, c});
+                }
+            }
+        }
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Number of nodes, including ones left empty by removals.
+     */
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    private int child(int node, char c) {
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            if (label[child] == c) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    private int addChild(int node, char c) {
+        if (nodeCount == label.length) {
+            int capacity = nodeCount * 2;
+            label = Arrays.copyOf(label, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            maxWeight = Arrays.copyOf(maxWeight, capacity);
+            entriesAt = Arrays.copyOf(entriesAt, capacity);
+        }
+        int child = nodeCount++;
+        label[child] = c;
+        parent[child] = node;
+        firstChild[child] = NONE;
+        nextSibling[child] = firstChild[node];
+        firstChild[node] = child;
+        maxWeight[child] = EMPTY;
+        return child;
+    }
+
+    private void raise(int node, long weight) {
+        for (; node != NONE && maxWeight[node] < weight; node = parent[node]) {
+            maxWeight[node] = weight;
+        }
+    }
+
+    /**
+     * Recomputes subtree maxima upwards after a weight went down; stops as
+     * soon as a node's maximum is unchanged.
+     */
+    private void recompute(int node) {
+        for (; node != NONE; node = parent[node]) {
+            long max = EMPTY;
+            if (entriesAt[node] != null) {
+                for (int entry : entriesAt[node]) {
+                    max = Math.max(max, entryWeight[entry]);
+                }
+            }
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                max = Math.max(max, maxWeight[child]);
+            }
+            if (max == maxWeight[node]) {
+                return;
+            }
+            maxWeight[node] = max;
+        }
+    }
+
+    private static int[] append(int[] values, int value) {
+        int[] grown = Arrays.copyOf(values, values.length + 1);
+        grown[values.length] = value;
+        return grown;
+    }
+
+    private static int[] without(int[] values, int value) {
+        if (values == null) {
+            return null;
+        }
+        int[] kept = new int[values.length];
+        int count = 0;
+        for (int v : values) {
+            if (v != value) {
+                kept[count++] = v;
+            }
+        }
+        return count == 0 ? null : Arrays.copyOf(kept, count);
+    }
+}
@@ -0,0 +1,45 @@
+package com.dani.luggagebackend.Service;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API body of {@link DistanceEngine}. Kept in its own class so it is
+ * only loaded when jdk.incubator.vector is available at runtime.
+ */
+final class VectorDistanceKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private static final double DIAMETER_KM = 2 * Geo.EARTH_RADIUS_KM;
+
+    private VectorDistanceKernel() {
+    }
+
+    /**
+     * Computes full vector lanes of [from, to) and returns the index of the
+     * first point left for the scalar tail loop.
+     */
+    static int haversineKm(double originLat, double originLng, double originCos,
+            double[] latRad, double[] lngRad, double[] cosLat, double[] out, int from, int to) {
+        int upper = from + SPECIES.loopBound(to - from);
+        int i = from;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector sinLat = DoubleVector.fromArray(SPECIES, latRad, i)
+                    .sub(originLat).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector sinLng = DoubleVector.fromArray(SPECIES, lngRad, i)
+                    .sub(originLng).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector a = sinLng.mul(sinLng)
+                    .mul(DoubleVector.fromArray(SPECIES, cosLat, i))
+                    .mul(originCos)
+                    .add(sinLat.mul(sinLat))
+                    .min(1.0);
+            a.lanewise(VectorOperators.SQRT)
+                    .lanewise(VectorOperators.ASIN)
+                    .mul(DIAMETER_KM)
+                    .intoArray(out, i);
+        }
+        return i;
+    }
+}
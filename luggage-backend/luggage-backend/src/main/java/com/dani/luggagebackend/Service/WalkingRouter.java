@@ -0,0 +1,215 @@
+package com.dani.luggagebackend.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Optional offline walking router over a local road graph file (see
+ * {@link RoadGraph} for the format). Disabled unless
+ * {@code routing.graph-file} is set. Point-to-point times come from a
+ * contraction hierarchy; isochrones from a bounded Dijkstra search.
+ *
+ * <p>Coordinates are snapped to the closest graph node, and the straight
+ * line to that node is walked at the same speed.
+ */
+@Component
+public class WalkingRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(WalkingRouter.class);
+
+    private final String graphFile;
+    private final double metersPerMinute;
+    private final double maxSnapMeters;
+
+    private volatile RoadGraph graph;
+    private volatile ContractionHierarchy hierarchy;
+
+    public WalkingRouter(
+            @Value("${routing.graph-file:}") String graphFile,
+            @Value("${routing.walking-speed-kmh:4.8}") double walkingSpeedKmh,
+            @Value("${routing.max-snap-distance-m:250}") double maxSnapMeters) {
+        this.graphFile = graphFile;
+        this.metersPerMinute = walkingSpeedKmh * 1000.0 / 60.0;
+        this.maxSnapMeters = maxSnapMeters;
+    }
+
+    /**
+     * Loads and contracts the graph once the application has started, so
+     * startup is not delayed. Routing stays disabled if the file is missing
+     * or malformed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadGraph() {
+        if (graphFile == null || graphFile.isBlank()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            RoadGraph loaded = RoadGraph.read(Path.of(graphFile));
+            load(loaded);
+            log.info("Walking router loaded {} nodes and contracted to {} upward edges in {} ms",
+                    loaded.nodeCount(), hierarchy.upwardEdgeCount(), (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.error("Walking router disabled: could not load road graph {}", graphFile, e);
+        }
+    }
+
+    /**
+     * Replaces the routing graph.
+     *
+     * @param loaded Walking network
+     */
+    public void load(RoadGraph loaded) {
+        ContractionHierarchy contracted = ContractionHierarchy.build(loaded);
+        this.graph = loaded;
+        this.hierarchy = contracted;
+    }
+
+    /**
+     * Whether a graph has been loaded and walking times are available.
+     */
+    public boolean isReady() {
+        return hierarchy != null;
+    }
+
+    /**
+     * Walking times from one point to several destinations.
+     *
+     * @param latitude     Start latitude
+     * @param longitude    Start longitude
+     * @param destinations Destination coordinates as {lat, lng} pairs
+     * @return Minutes per destination, null where the router is not loaded,
+     * a point is too far from the graph or no path exists
+     */
+    public Double[] walkingMinutes(double latitude, double longitude, List<double[]> destinations) {
+        Double[] minutes = new Double[destinations.size()];
+        RoadGraph currentGraph = graph;
+        ContractionHierarchy currentHierarchy = hierarchy;
+        if (currentHierarchy == null || destinations.isEmpty()) {
+            return minutes;
+        }
+        int source = currentGraph.nearestNode(latitude, longitude, maxSnapMeters);
+        if (source < 0) {
+            return minutes;
+        }
+        double sourceSnap = snapMeters(currentGraph, latitude, longitude, source);
+
+        int[] targets = new int[destinations.size()];
+        for (int i = 0; i < targets.length; i++) {
+            double[] destination = destinations.get(i);
+            targets[i] = currentGraph.nearestNode(destination[0], destination[1], maxSnapMeters);
+        }
+        double[] meters = currentHierarchy.distances(source, targets);
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] >= 0 && meters[i] != Double.POSITIVE_INFINITY) {
+                double[] destination = destinations.get(i);
+                double total = sourceSnap + meters[i]
+                        + snapMeters(currentGraph, destination[0], destination[1], targets[i]);
+                minutes[i] = total / metersPerMinute;
+            }
+        }
+        return minutes;
+    }
+
+    /**
+     * Walking times from a point to every graph node reachable within a time
+     * budget, for "within N minutes' walk" searches.
+     *
+     * @param latitude   Start latitude
+     * @param longitude  Start longitude
+     * @param maxMinutes Time budget
+     * @return Reachable area, or null if the router is not loaded or the
+     * start is too far from the graph
+     */
+    public Isochrone isochrone(double latitude, double longitude, double maxMinutes) {
+        RoadGraph currentGraph = graph;
+        if (currentGraph == null) {
+            return null;
+        }
+        int source = currentGraph.nearestNode(latitude, longitude, maxSnapMeters);
+        if (source < 0) {
+            return null;
+        }
+        double budget = maxMinutes * metersPerMinute;
+        double start = snapMeters(currentGraph, latitude, longitude, source);
+
+        NodeDistances reached = new NodeDistances(1024);
+        NodeHeap heap = new NodeHeap();
+        reached.offer(source, start);
+        heap.push(start, source);
+        while (!heap.isEmpty()) {
+            double distance = heap.peekKey();
+            int node = heap.peekNode();
+            heap.pop();
+            if (distance > budget) {
+                break;
+            }
+            if (reached.isSettled(node)) {
+                continue;
+            }
+            reached.settle(node);
+            for (int e = currentGraph.firstEdge(node); e < currentGraph.firstEdge(node + 1); e++) {
+                double next = distance + currentGraph.edgeMeters(e);
+                if (next <= budget && reached.offer(currentGraph.edgeTarget(e), next)) {
+                    heap.push(next, currentGraph.edgeTarget(e));
+                }
+            }
+        }
+        return new Isochrone(currentGraph, reached, budget);
+    }
+
+    /**
+     * Nodes reachable within a walking budget.
+     */
+    public final class Isochrone {
+
+        private final RoadGraph graph;
+        private final NodeDistances reached;
+        private final double budgetMeters;
+
+        private Isochrone(RoadGraph graph, NodeDistances reached, double budgetMeters) {
+            this.graph = graph;
+            this.reached = reached;
+            this.budgetMeters = budgetMeters;
+        }
+
+        /**
+         * Straight-line radius that contains the whole reachable area.
+         */
+        public double radiusKm() {
+            return budgetMeters / 1000.0;
+        }
+
+        /**
+         * Walking minutes to a point, or null if it is not reachable within
+         * the budget.
+         */
+        public Double minutesTo(double latitude, double longitude) {
+            int node = graph.nearestNode(latitude, longitude, maxSnapMeters);
+            if (node < 0 || !reached.isSettled(node)) {
+                return null;
+            }
+            double total = reached.get(node) + snapMeters(graph, latitude, longitude, node);
+            return total <= budgetMeters ? total / metersPerMinute : null;
+        }
+
+        /**
+         * Number of graph nodes inside the reachable area.
+         */
+        public int nodeCount() {
+            return reached.size();
+        }
+    }
+
+    private static double snapMeters(RoadGraph graph, double latitude, double longitude, int node) {
+        return Geo.haversineKm(latitude, longitude, graph.latitude(node), graph.longitude(node)) * 1000.0;
+    }
+}
@@ -0,0 +1,11 @@
+-- Daily opening window derived from the free-text hours, for "open now" filtering
+ALTER TABLE locations ADD COLUMN IF NOT EXISTS opens_at TIME;
+ALTER TABLE locations ADD COLUMN IF NOT EXISTS closes_at TIME;
+
+-- /api/locations/filter pages through locations in ID order; the partial
+-- indexes cover the public (active-only) searches without inactive rows
+CREATE INDEX IF NOT EXISTS idx_locations_active_city ON locations (lower(city), id) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_locations_active_price ON locations (price_per_hour, id) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_locations_active_capacity ON locations (capacity, id) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_locations_active_opening ON locations (opens_at, closes_at) WHERE is_active;
+CREATE INDEX IF NOT EXISTS idx_locations_host ON locations (host_id, id);
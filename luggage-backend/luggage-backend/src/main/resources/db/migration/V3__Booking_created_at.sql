@@ -0,0 +1,5 @@
+-- Creation time of a booking, for the sliding-window popularity counters
+-- (older rows stay null and only count towards all-time popularity)
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS created_at TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX IF NOT EXISTS idx_bookings_created_at ON bookings (created_at);
@@ -0,0 +1,3 @@
+-- Bags stored by a booking, counted against the location's capacity
+-- (existing bookings count as one bag)
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS bags INTEGER NOT NULL DEFAULT 1;
@@ -0,0 +1,23 @@
+-- Booking interval as a half-open range, so overlap questions are answered
+-- by a GiST range scan over (location_id, period) instead of loading rows.
+-- The range is a tstzrange, which a generated column can only build from
+-- timestamptz columns. Tables created by Hibernate already store Instants
+-- that way; tables created by V1 have TIMESTAMP columns holding times in
+-- the session time zone, which is how the conversion reads them.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'bookings'
+               AND column_name = 'start_time' AND data_type = 'timestamp without time zone') THEN
+        ALTER TABLE bookings
+            ALTER COLUMN start_time TYPE TIMESTAMP WITH TIME ZONE,
+            ALTER COLUMN end_time TYPE TIMESTAMP WITH TIME ZONE;
+    END IF;
+END $$;
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS period tstzrange
+    GENERATED ALWAYS AS (tstzrange(start_time, end_time, '[)')) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_bookings_location_period ON bookings USING gist (location_id, period);
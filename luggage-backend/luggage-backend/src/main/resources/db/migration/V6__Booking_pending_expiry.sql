@@ -0,0 +1,7 @@
+-- Deadline after which a PENDING booking is cancelled and its bags released
+-- (bookings made before this stay pending until a host or user acts on them)
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP WITH TIME ZONE;
+
+-- Deadlines still to enforce, read back at startup without scanning bookings
+CREATE INDEX IF NOT EXISTS idx_bookings_pending_expiry ON bookings (expires_at)
+    WHERE status = 'PENDING' AND expires_at IS NOT NULL;
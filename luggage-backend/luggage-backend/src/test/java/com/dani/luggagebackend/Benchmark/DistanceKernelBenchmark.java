@@ -0,0 +1,114 @@
+package com.dani.luggagebackend.Benchmark;
+
+import com.dani.luggagebackend.Service.CoordinateColumns;
+import com.dani.luggagebackend.Service.DistanceEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the batch distance kernels of DistanceEngine with the previous
+ * per-object LocationService.calculateDistance (boxed Doubles, radians and
+ * cosines recomputed for every pair).
+ *
+ * Run main() from the IDE, or after mvn test-compile:
+ * java --add-modules jdk.incubator.vector -cp target/test-classes:target/classes:&lt;test classpath&gt;
+ * org.openjdk.jmh.Main DistanceKernel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class DistanceKernelBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int points;
+
+    private Double[] lats;
+    private Double[] lngs;
+    private CoordinateColumns columns;
+    private double[] out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(11);
+        lats = new Double[points];
+        lngs = new Double[points];
+        columns = new CoordinateColumns(points);
+        for (int i = 0; i < points; i++) {
+            lats[i] = -60 + random.nextDouble() * 130;
+            lngs[i] = -180 + random.nextDouble() * 360;
+            columns.add(lats[i], lngs[i]);
+        }
+        out = new double[points];
+    }
+
+    @Benchmark
+    public double[] perObject() {
+        Double userLat = 40.7580;
+        Double userLng = -73.9855;
+        for (int i = 0; i < points; i++) {
+            out[i] = calculateDistance(userLat, userLng, lats[i], lngs[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] scalarBatch() {
+        DistanceEngine.scalarKm(40.7580, -73.9855, columns, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] vectorBatch() {
+        DistanceEngine.vectorKm(40.7580, -73.9855, columns, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] engine() {
+        DistanceEngine.distancesKm(40.7580, -73.9855, columns, out);
+        return out;
+    }
+
+    /**
+     * Copy of the former LocationService.calculateDistance.
+     */
+    private static Double calculateDistance(Double lat1, Double lng1, Double lat2, Double lng2) {
+        final int EARTH_RADIUS_KM = 6371;
+
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lngDistance = Math.toRadians(lng2 - lng1);
+
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(lngDistance / 2) * Math.sin(lngDistance / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return EARTH_RADIUS_KM * c;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DistanceKernelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
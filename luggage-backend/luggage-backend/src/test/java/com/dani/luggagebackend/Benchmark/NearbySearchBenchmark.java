@@ -0,0 +1,115 @@
+package com.dani.luggagebackend.Benchmark;
+
+import com.dani.luggagebackend.Service.LocationSnapshot;
+import com.dani.luggagebackend.Service.LocationSpatialIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the grid spatial index with a full scan that evaluates the same
+ * spherical-law-of-cosines predicate as LocationRepo.findLocationsWithinRadius
+ * for every row, at 10k, 100k and 1M locations spread around 50 cities.
+ *
+ * Run main() from the IDE, or after mvn test-compile:
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main NearbySearch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NearbySearchBenchmark {
+
+    private static final int CITIES = 50;
+    private static final double RADIUS_KM = 5.0;
+
+    @Param({"10000", "100000", "1000000"})
+    public int locations;
+
+    private LocationSpatialIndex index;
+    private double[] lats;
+    private double[] lngs;
+    private double[][] cityCentres;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new Random(7);
+        cityCentres = new double[CITIES][];
+        for (int i = 0; i < CITIES; i++) {
+            cityCentres[i] = new double[] {-50 + random.nextDouble() * 110, -180 + random.nextDouble() * 360};
+        }
+
+        List<LocationSnapshot> snapshots = new ArrayList<>(locations);
+        lats = new double[locations];
+        lngs = new double[locations];
+        for (int i = 0; i < locations; i++) {
+            double[] centre = cityCentres[i % CITIES];
+            lats[i] = centre[0] + random.nextGaussian() * 0.15;
+            lngs[i] = centre[1] + random.nextGaussian() * 0.15;
+            snapshots.add(new LocationSnapshot(UUID.randomUUID(), null, "Storage " + i, "Address", "City",
+                    lats[i], lngs[i], BigDecimal.valueOf(5), 20, "24/7", true));
+        }
+
+        index = new LocationSpatialIndex(0.02);
+        index.rebuild(snapshots);
+    }
+
+    private double[] origin() {
+        double[] centre = cityCentres[random.nextInt(CITIES)];
+        return new double[] {centre[0] + random.nextGaussian() * 0.05, centre[1] + random.nextGaussian() * 0.05};
+    }
+
+    @Benchmark
+    public int gridIndex() {
+        double[] origin = origin();
+        return index.findWithinRadius(origin[0], origin[1], RADIUS_KM, null).size();
+    }
+
+    @Benchmark
+    public int fullScan() {
+        double[] origin = origin();
+        double latRad = Math.toRadians(origin[0]);
+        double lngRad = Math.toRadians(origin[1]);
+        List<double[]> matches = new ArrayList<>();
+        for (int i = 0; i < lats.length; i++) {
+            double rowLat = Math.toRadians(lats[i]);
+            double distance = 6371 * Math.acos(Math.min(1.0,
+                    Math.cos(latRad) * Math.cos(rowLat) * Math.cos(Math.toRadians(lngs[i]) - lngRad)
+                            + Math.sin(latRad) * Math.sin(rowLat)));
+            if (distance <= RADIUS_KM) {
+                matches.add(new double[] {distance, i});
+            }
+        }
+        matches.sort(Comparator.comparingDouble(match -> match[0]));
+        return matches.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NearbySearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
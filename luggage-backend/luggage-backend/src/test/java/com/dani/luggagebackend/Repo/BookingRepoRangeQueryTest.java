@@ -0,0 +1,200 @@
+package com.dani.luggagebackend.Repo;
+
+import com.dani.luggagebackend.Model.Booking;
+import com.dani.luggagebackend.Model.Location;
+import com.dani.luggagebackend.Model.Users;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Overlap queries on the bookings' generated time range. They need
+ * Postgres (tstzrange, GiST), so they run only when PLAN_TEST_DB_URL points
+ * at a scratch Postgres database, e.g. the docker-compose one:
+ * PLAN_TEST_DB_URL=jdbc:postgresql://localhost:5432/luggage-backend.
+ * The schema comes from the Flyway migrations; test rows are rolled back.
+ */
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_DB_URL", matches = ".+")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {
+        "spring.datasource.url=${PLAN_TEST_DB_URL}",
+        "spring.datasource.username=${PLAN_TEST_DB_USERNAME:luggo}",
+        "spring.datasource.password=${PLAN_TEST_DB_PASSWORD:luggo}",
+        "spring.flyway.enabled=true",
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.jpa.hibernate.ddl-auto=update"
+})
+class BookingRepoRangeQueryTest {
+
+    private static final Instant DAY = Instant.now().plus(Duration.ofDays(2)).truncatedTo(ChronoUnit.DAYS);
+    private static final List<String> OCCUPYING = List.of("PENDING", "CONFIRMED");
+
+    @Autowired
+    private BookingRepo bookingRepo;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Users customer;
+    private Location location;
+    private Booking morning;
+    private Booking afternoon;
+    private Booking cancelled;
+
+    private static Instant at(int hour) {
+        return DAY.plus(Duration.ofHours(hour));
+    }
+
+    @BeforeEach
+    void setUp() {
+        Users host = user("host", Users.Role.HOST);
+        customer = user("customer", Users.Role.USER);
+        location = entityManager.persist(Location.builder()
+                .host(host)
+                .name("Storage")
+                .address("Via Roma 1")
+                .city("Roma")
+                .lat(41.90)
+                .lng(12.49)
+                .pricePerHour(BigDecimal.valueOf(5))
+                .capacity(10)
+                .hours("24/7")
+                .build());
+
+        morning = booking(at(10), at(12), Booking.BookingStatus.CONFIRMED, 2);
+        // Starts when the morning booking ends, so never overlaps it
+        afternoon = booking(at(12), at(14), Booking.BookingStatus.PENDING, 1);
+        cancelled = booking(at(10), at(12), Booking.BookingStatus.CANCELLED, 5);
+        // Ended three days before DAY
+        booking(at(-72), at(-70), Booking.BookingStatus.CONFIRMED, 3);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findsBookingsOverlappingAWindowInAnyStatus() {
+        List<Booking> found = bookingRepo.findOverlappingByLocation(location.getId(), at(11), at(12));
+
+        assertThat(found).extracting(Booking::getId)
+                .containsExactlyInAnyOrder(morning.getId(), cancelled.getId());
+    }
+
+    @Test
+    void findsTheBookingsOfADayEarliestFirst() {
+        List<Booking> found = bookingRepo.findOverlappingByLocation(location.getId(), at(0), at(24));
+
+        assertThat(found).extracting(Booking::getStartTime)
+                .containsExactly(at(10), at(10), at(12));
+    }
+
+    @Test
+    void loadsTheIntervalsOfSeveralLocationsAtOnce() {
+        List<BookingRepo.LocatedBookingInterval> intervals = bookingRepo.findIntervalsByLocationIn(
+                List.of(location.getId(), UUID.randomUUID()), OCCUPYING, at(-24));
+
+        assertThat(intervals).extracting(BookingRepo.BookingInterval::getId)
+                .containsExactlyInAnyOrder(morning.getId(), afternoon.getId());
+        assertThat(intervals).extracting(BookingRepo.LocatedBookingInterval::getLocationId)
+                .containsOnly(location.getId());
+    }
+
+    @Test
+    void loadsOnlyIntervalsEndingAfterTheCutoff() {
+        List<BookingRepo.BookingInterval> intervals =
+                bookingRepo.findIntervalsByLocation(location.getId(), OCCUPYING, at(-24));
+
+        assertThat(intervals).extracting(BookingRepo.BookingInterval::getId)
+                .containsExactlyInAnyOrder(morning.getId(), afternoon.getId());
+        assertThat(intervals).filteredOn(interval -> interval.getId().equals(morning.getId()))
+                .singleElement()
+                .satisfies(interval -> {
+                    assertThat(interval.getStartTime()).isEqualTo(at(10));
+                    assertThat(interval.getEndTime()).isEqualTo(at(12));
+                    assertThat(interval.getBags()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    void overlapQueriesAreIndexRangeScans() {
+        assertRangeScan("""
+                SELECT b.* FROM bookings b
+                WHERE b.location_id = :locationId
+                AND b.period && tstzrange(CAST(:startTime AS timestamptz), CAST(:endTime AS timestamptz), '[)')
+                ORDER BY b.start_time
+                """, Map.of("locationId", location.getId(), "startTime", at(0), "endTime", at(24)));
+
+        assertRangeScan("""
+                SELECT b.location_id, b.id, b.start_time, b.end_time, b.bags FROM bookings b
+                WHERE b.location_id IN (:locationIds)
+                AND b.status IN (:statuses)
+                AND b.period && tstzrange(CAST(:since AS timestamptz), NULL, '()')
+                """, Map.of("locationIds", List.of(location.getId(), UUID.randomUUID()),
+                "statuses", OCCUPYING, "since", at(-24)));
+
+        assertRangeScan("""
+                SELECT b.id, b.start_time, b.end_time, b.bags FROM bookings b
+                WHERE b.location_id = :locationId
+                AND b.status IN (:statuses)
+                AND b.period && tstzrange(CAST(:since AS timestamptz), NULL, '()')
+                """, Map.of("locationId", location.getId(), "statuses", OCCUPYING, "since", at(-24)));
+    }
+
+    /**
+     * Asserts the overlap test of a BookingRepo query is an index condition
+     * rather than a filter applied to scanned rows. Sequential scans are
+     * switched off for the transaction, since the planner would rightly
+     * prefer them on a table this small.
+     */
+    private void assertRangeScan(String sql, Map<String, Object> parameters) {
+        entityManager.getEntityManager()
+                .createNativeQuery("SELECT set_config('enable_seqscan', 'off', true)")
+                .getSingleResult();
+        Query explain = entityManager.getEntityManager().createNativeQuery("EXPLAIN " + sql);
+        parameters.forEach(explain::setParameter);
+        String plan = ((List<?>) explain.getResultList()).stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining("\n"));
+
+        assertThat(plan).doesNotContain("Seq Scan");
+        assertThat(plan.lines())
+                .as(plan)
+                .anyMatch(line -> line.contains("Index Cond") && line.contains("period &&"));
+    }
+
+    private Users user(String name, Users.Role role) {
+        return entityManager.persist(Users.builder()
+                .email(name + "-" + UUID.randomUUID() + "@example.com")
+                .passwordHash("hash")
+                .fullName(name)
+                .role(role)
+                .build());
+    }
+
+    private Booking booking(Instant start, Instant end, Booking.BookingStatus status, int bags) {
+        return entityManager.persist(Booking.builder()
+                .user(customer)
+                .location(location)
+                .startTime(start)
+                .endTime(end)
+                .priceCents(1000L)
+                .status(status)
+                .bags(bags)
+                .build());
+    }
+}
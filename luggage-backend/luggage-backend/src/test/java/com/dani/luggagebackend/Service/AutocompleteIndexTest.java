@@ -0,0 +1,116 @@
+package com.dani.luggagebackend.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AutocompleteIndexTest {
+
+    private AutocompleteIndex index;
+    private LocationSnapshot navona;
+    private LocationSnapshot nazionale;
+    private LocationSnapshot milan;
+
+    private static LocationSnapshot location(String name, String address, String city) {
+        return new LocationSnapshot(UUID.randomUUID(), null, name, address, city,
+                41.9, 12.49, BigDecimal.valueOf(5), 10, "24/7", true);
+    }
+
+    private List<String> texts(String prefix, int limit) {
+        return index.suggest(prefix, limit).stream().map(AutocompleteIndex.Suggestion::text).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        navona = location("Café Navona Storage", "Piazza Navona 12", "Roma");
+        nazionale = location("Nazionale Bags", "Via Nazionale 50", "Roma");
+        milan = location("Navigli Deposit", "Ripa di Porta Ticinese 7", "Milano");
+        index = new AutocompleteIndex();
+        index.rebuild(List.of(navona, nazionale, milan), List.of("Milano", "Napoli", "Roma"),
+                Map.of(nazionale.id(), 20L, navona.id(), 5L));
+    }
+
+    @Test
+    void suggestsFromAnyWordByPopularity() {
+        assertThat(texts("na", 10)).containsExactly(
+                "Nazionale Bags", "Via Nazionale 50", "Café Navona Storage", "Piazza Navona 12",
+                "Napoli", "Navigli Deposit");
+        assertThat(texts("CAFE", 10)).containsExactly("Café Navona Storage");
+        assertThat(texts("ro", 10)).containsExactly("Roma");
+        assertThat(texts("na", 2)).containsExactly("Nazionale Bags", "Via Nazionale 50");
+        assertThat(texts("xyz", 10)).isEmpty();
+    }
+
+    @Test
+    void citiesAreWeightedByTheirLocations() {
+        // Roma has two popular locations, Milano one without bookings
+        assertThat(index.suggest("m", 10))
+                .filteredOn(suggestion -> suggestion.type() == AutocompleteIndex.Type.CITY)
+                .extracting(AutocompleteIndex.Suggestion::text)
+                .containsExactly("Milano");
+        assertThat(index.suggest("r", 1).get(0).text()).isEqualTo("Roma");
+    }
+
+    @Test
+    void followsLocationChanges() {
+        LocationSnapshot renamed = new LocationSnapshot(nazionale.id(), null, "Quirinale Bags", nazionale.address(),
+                nazionale.city(), nazionale.lat(), nazionale.lng(), nazionale.pricePerHour(), nazionale.capacity(),
+                nazionale.hours(), true);
+        index.onLocationChanged(LocationChangedEvent.updated(nazionale, renamed));
+        assertThat(texts("qui", 10)).containsExactly("Quirinale Bags");
+        assertThat(texts("nazionale b", 10)).isEmpty();
+
+        index.onLocationChanged(LocationChangedEvent.deleted(navona));
+        assertThat(texts("navona", 10)).isEmpty();
+        assertThat(texts("nav", 10)).containsExactly("Navigli Deposit");
+    }
+
+    @Test
+    void trieTopMatchesBruteForce() {
+        Random random = new Random(5);
+        SuggestionTrie trie = new SuggestionTrie();
+        Map<Integer, String> keys = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int c = 0, length = 1 + random.nextInt(6); c < length; c++) {
+                key.append((char) ('a' + random.nextInt(4)));
+            }
+            int entry = trie.addEntry(random.nextInt(1000));
+            trie.link(key.toString(), entry);
+            keys.put(entry, key.toString());
+        }
+        for (int i = 0; i < 500; i++) {
+            int entry = random.nextInt(2000);
+            if (keys.containsKey(entry)) {
+                if (random.nextBoolean()) {
+                    trie.removeEntry(entry);
+                    keys.remove(entry);
+                } else {
+                    trie.setWeight(entry, random.nextInt(1000));
+                }
+            }
+        }
+
+        for (String prefix : List.of("a", "ab", "cd", "dddd", "bac")) {
+            List<Integer> expected = new ArrayList<>(keys.keySet().stream()
+                    .filter(entry -> keys.get(entry).startsWith(prefix))
+                    .toList());
+            expected.sort(Comparator.comparingLong(trie::weight).reversed());
+            int[] top = trie.top(prefix, 10);
+            assertThat(top).hasSize(Math.min(10, expected.size()));
+            for (int rank = 0; rank < top.length; rank++) {
+                assertThat(trie.weight(top[rank])).isEqualTo(trie.weight(expected.get(rank)));
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Model.Booking;
+import com.dani.luggagebackend.Repo.BookingRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AvailabilityCalendarTest {
+
+    private static final Instant DAY = Instant.now().plus(Duration.ofDays(2)).truncatedTo(ChronoUnit.DAYS);
+    private static final Duration QUARTER = Duration.ofMinutes(15);
+
+    private final UUID locationId = UUID.randomUUID();
+    private final List<BookingRepo.BookingInterval> bookings = new ArrayList<>();
+    private BookingRepo bookingRepo;
+    private AvailabilityCalendar calendar;
+
+    private static Instant at(int minutes) {
+        return DAY.plus(Duration.ofMinutes(minutes));
+    }
+
+    private record Interval(UUID getId, Instant getStartTime, Instant getEndTime, int getBags)
+            implements BookingRepo.BookingInterval {
+    }
+
+    @BeforeEach
+    void setUp() {
+        bookingRepo = mock(BookingRepo.class);
+        when(bookingRepo.findIntervalsOverlapping(eq(locationId), anyCollection(), any(), any()))
+                .thenAnswer(invocation -> {
+                    Instant start = invocation.getArgument(2);
+                    Instant end = invocation.getArgument(3);
+                    return bookings.stream()
+                            .filter(booking -> booking.getStartTime().isBefore(end) && booking.getEndTime().isAfter(start))
+                            .toList();
+                });
+        calendar = new AvailabilityCalendar(100);
+        ReflectionTestUtils.setField(calendar, "bookingRepo", bookingRepo);
+    }
+
+    @Test
+    void countsTheBagsOfEveryBookingTouchingASlot() {
+        bookings.add(new Interval(UUID.randomUUID(), at(0), at(30), 2));
+        bookings.add(new Interval(UUID.randomUUID(), at(20), at(40), 3));
+        bookings.add(new Interval(UUID.randomUUID(), at(45), at(60), 1));
+
+        int[] used = calendar.usedBags(locationId, at(0), at(75), QUARTER);
+
+        // Slots start at 0, 15, 30, 45 and 60 minutes
+        assertThat(used).containsExactly(2, 5, 3, 1, 0);
+    }
+
+    @Test
+    void clipsBookingsToTheRequestedSlots() {
+        bookings.add(new Interval(UUID.randomUUID(), at(-120), at(1500), 4));
+
+        assertThat(calendar.usedBags(locationId, at(1380), at(1500), Duration.ofHours(1)))
+                .containsExactly(4, 4);
+    }
+
+    @Test
+    void reusesCachedDaysUntilABookingTouchesThem() {
+        bookings.add(new Interval(UUID.randomUUID(), at(60), at(120), 2));
+        calendar.usedBags(locationId, at(0), at(2880), QUARTER);
+        calendar.usedBags(locationId, at(0), at(2880), QUARTER);
+        // Both days came from a single query
+        verify(bookingRepo, times(1)).findIntervalsOverlapping(eq(locationId), anyCollection(), any(), any());
+        assertThat(calendar.size()).isEqualTo(2);
+
+        UUID bookingId = UUID.randomUUID();
+        bookings.add(new Interval(bookingId, at(1500), at(1560), 5));
+        calendar.onBookingChanged(BookingChangedEvent.created(new BookingSnapshot(bookingId, locationId,
+                UUID.randomUUID(), at(1500), at(1560), Booking.BookingStatus.PENDING, 5, DAY, null)));
+        assertThat(calendar.size()).isEqualTo(1);
+
+        int[] used = calendar.usedBags(locationId, at(1440), at(1620), Duration.ofHours(1));
+        assertThat(used).containsExactly(0, 5, 0);
+        verify(bookingRepo, times(2)).findIntervalsOverlapping(eq(locationId), anyCollection(), any(), any());
+    }
+
+    @Test
+    void acceptsOnlySlotsThatTileADay() {
+        assertThat(AvailabilityCalendar.isValidSlot(Duration.ofMinutes(15))).isTrue();
+        assertThat(AvailabilityCalendar.isValidSlot(Duration.ofHours(6))).isTrue();
+        assertThat(AvailabilityCalendar.isValidSlot(Duration.ofMinutes(7))).isFalse();
+        assertThat(AvailabilityCalendar.isValidSlot(Duration.ofHours(48))).isFalse();
+        assertThat(AvailabilityCalendar.isValidSlot(Duration.ZERO)).isFalse();
+    }
+}
@@ -0,0 +1,77 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.DTO.CitySummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CityDirectoryTest {
+
+    private final UUID colosseo = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private final UUID termini = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private final UUID closed = UUID.fromString("00000000-0000-0000-0000-000000000003");
+    private final UUID duomo = UUID.fromString("00000000-0000-0000-0000-000000000004");
+    private CityDirectory directory;
+
+    private static LocationSnapshot location(UUID id, String city, double lat, double lng, boolean active) {
+        return new LocationSnapshot(id, null, "Storage", "Address", city,
+                lat, lng, BigDecimal.valueOf(5), 10, "24/7", active);
+    }
+
+    @BeforeEach
+    void setUp() {
+        directory = new CityDirectory();
+        directory.rebuild(List.of(
+                location(colosseo, "Roma", 41.89, 12.49, true),
+                location(termini, "roma ", 41.90, 12.50, true),
+                location(closed, "Napoli", 40.85, 14.27, false),
+                location(duomo, "Milano", 45.46, 9.19, true),
+                location(UUID.randomUUID(), null, 0, 0, true)));
+    }
+
+    @Test
+    void mergesSpellingsOfTheSameCity() {
+        assertThat(directory.cityNames()).containsExactly("Milano", "Napoli", "Roma");
+        assertThat(directory.activeLocationIds("ROMA")).containsExactly(colosseo, termini);
+        assertThat(directory.activeLocationIds(" roma")).containsExactly(colosseo, termini);
+        assertThat(directory.activeLocationIds("Napoli")).isEmpty();
+        assertThat(directory.activeLocationIds("Torino")).isEmpty();
+    }
+
+    @Test
+    void summarizesActiveLocations() {
+        List<CitySummary> summaries = directory.citySummaries();
+
+        assertThat(summaries).extracting(CitySummary::getName).containsExactly("Milano", "Roma");
+        CitySummary roma = summaries.get(1);
+        assertThat(roma.getActiveLocations()).isEqualTo(2);
+        assertThat(roma.getSouth()).isEqualTo(41.89);
+        assertThat(roma.getNorth()).isEqualTo(41.90);
+        assertThat(roma.getWest()).isEqualTo(12.49);
+        assertThat(roma.getEast()).isEqualTo(12.50);
+    }
+
+    @Test
+    void followsLocationWrites() {
+        LocationSnapshot before = location(termini, "roma ", 41.90, 12.50, true);
+        LocationSnapshot moved = location(termini, "Napoli", 40.84, 14.25, true);
+        directory.onLocationChanged(LocationChangedEvent.updated(before, moved));
+
+        assertThat(directory.activeLocationIds("roma")).containsExactly(colosseo);
+        assertThat(directory.activeLocationIds("napoli")).containsExactly(termini);
+        assertThat(directory.citySummaries()).extracting(CitySummary::getActiveLocations).containsExactly(1, 1, 1);
+
+        directory.onLocationChanged(LocationChangedEvent.deleted(location(duomo, "Milano", 45.46, 9.19, true)));
+        directory.onLocationChanged(LocationChangedEvent.updated(
+                location(closed, "Napoli", 40.85, 14.27, false), location(closed, "Napoli", 40.85, 14.27, true)));
+
+        assertThat(directory.cityNames()).containsExactly("Napoli", "Roma");
+        assertThat(directory.activeLocationIds("napoli")).containsExactly(termini, closed);
+        assertThat(directory.citySummaries().get(0).getSouth()).isEqualTo(40.84);
+    }
+}
@@ -0,0 +1,64 @@
+package com.dani.luggagebackend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DistanceEngineTest {
+
+    private static CoordinateColumns randomPoints(int count, Random random) {
+        CoordinateColumns points = new CoordinateColumns(count);
+        for (int i = 0; i < count; i++) {
+            points.add(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360);
+        }
+        return points;
+    }
+
+    private static double[] expected(double lat, double lng, CoordinateColumns points) {
+        double[] distances = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            distances[i] = Geo.haversineKm(lat, lng,
+                    Math.toDegrees(points.latRad()[i]), Math.toDegrees(points.lngRad()[i]));
+        }
+        return distances;
+    }
+
+    @Test
+    void scalarKernelMatchesHaversine() {
+        Random random = new Random(1);
+        CoordinateColumns points = randomPoints(1_003, random);
+        double[] out = new double[points.size()];
+
+        DistanceEngine.scalarKm(40.7580, -73.9855, points, out);
+
+        assertThat(out).containsExactly(expected(40.7580, -73.9855, points), within(1e-6));
+    }
+
+    @Test
+    void vectorKernelMatchesScalar() {
+        assumeTrue(DistanceEngine.VECTOR_ENABLED, "jdk.incubator.vector not available");
+        Random random = new Random(2);
+        CoordinateColumns points = randomPoints(1_003, random);
+        double[] scalar = new double[points.size()];
+        double[] vector = new double[points.size()];
+
+        DistanceEngine.scalarKm(48.8584, 2.2945, points, scalar);
+        DistanceEngine.vectorKm(48.8584, 2.2945, points, vector);
+
+        assertThat(vector).containsExactly(scalar, within(1e-6));
+    }
+
+    @Test
+    void largeBatchesAreSplitAcrossCores() {
+        Random random = new Random(3);
+        CoordinateColumns points = randomPoints(DistanceEngine.PARALLEL_THRESHOLD * 2 + 17, random);
+
+        double[] out = DistanceEngine.distancesKm(35.6762, 139.6503, points);
+
+        assertThat(out).containsExactly(expected(35.6762, 139.6503, points), within(1e-6));
+    }
+}
@@ -0,0 +1,155 @@
+package com.dani.luggagebackend.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocationCatalogTest {
+
+    private static final List<String> CITIES = List.of("Roma", "roma", "Milano", "Napoli");
+    private static final List<String> HOURS = List.of("24/7", "08:00-20:00", "6:00 PM - 2:00 AM", "by appointment");
+
+    // Postgres UUID order
+    private static final Comparator<UUID> DATABASE_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private final Random random = new Random(11);
+    private final List<UUID> hosts = List.of(UUID.randomUUID(), UUID.randomUUID());
+    private List<LocationSnapshot> locations;
+    private LocationCatalog catalog;
+
+    private LocationSnapshot randomLocation(UUID id) {
+        return new LocationSnapshot(id, hosts.get(random.nextInt(hosts.size())), "Storage", "Via Roma 1",
+                CITIES.get(random.nextInt(CITIES.size())), 41.9, 12.49,
+                BigDecimal.valueOf(100 + random.nextInt(1500), 2), random.nextInt(50),
+                HOURS.get(random.nextInt(HOURS.size())), random.nextInt(10) > 0);
+    }
+
+    private static boolean matches(LocationSnapshot location, LocationFilter filter) {
+        OpeningHours hours = OpeningHours.parse(location.hours());
+        return location.active()
+                && (filter.city() == null || location.city().equalsIgnoreCase(filter.city()))
+                && (filter.minPrice() == null || location.pricePerHour().compareTo(filter.minPrice()) >= 0)
+                && (filter.maxPrice() == null || location.pricePerHour().compareTo(filter.maxPrice()) <= 0)
+                && (filter.minCapacity() == null || location.capacity() >= filter.minCapacity())
+                && (filter.hostId() == null || location.hostId().equals(filter.hostId()))
+                && (filter.openAt() == null || hours != null && hours.isOpenAt(filter.openAt()));
+    }
+
+    private List<UUID> expected(LocationFilter filter) {
+        return locations.stream()
+                .filter(location -> matches(location, filter))
+                .map(LocationSnapshot::id)
+                .sorted(DATABASE_ORDER)
+                .toList();
+    }
+
+    private List<UUID> allPages(LocationFilter filter, int pageSize) {
+        List<UUID> ids = new ArrayList<>();
+        UUID after = null;
+        while (true) {
+            List<UUID> page = catalog.filter(filter, after, pageSize);
+            ids.addAll(page);
+            if (page.size() < pageSize) {
+                return ids;
+            }
+            after = page.get(page.size() - 1);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        locations = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            locations.add(randomLocation(UUID.randomUUID()));
+        }
+        catalog = new LocationCatalog();
+        catalog.rebuild(locations);
+    }
+
+    @Test
+    void filtersLikeTheDatabaseQuery() {
+        List<LocationFilter> filters = List.of(
+                new LocationFilter(null, null, null, null, true, null, null),
+                new LocationFilter("ROMA", null, null, null, true, null, null),
+                new LocationFilter(null, new BigDecimal("4.995"), new BigDecimal("9.5"), 10, true, null, null),
+                new LocationFilter("milano", null, null, null, true, hosts.get(0), null),
+                new LocationFilter(null, null, null, null, true, null, LocalTime.of(1, 30)),
+                new LocationFilter(null, null, null, null, true, null, LocalTime.of(20, 0)),
+                new LocationFilter("Firenze", null, null, null, true, null, null));
+
+        for (LocationFilter filter : filters) {
+            assertThat(allPages(filter, 7)).isEqualTo(expected(filter));
+        }
+    }
+
+    @Test
+    void publishesACopyOnEveryWrite() {
+        LocationCatalog.Columns before = catalog.columns();
+        int size = before.size;
+        LocationSnapshot first = locations.stream().filter(LocationSnapshot::active).findFirst().orElseThrow();
+
+        // Moves a location to a new city, adds one and deletes one
+        LocationSnapshot moved = new LocationSnapshot(first.id(), first.hostId(), first.name(), first.address(),
+                "Torino", first.lat(), first.lng(), first.pricePerHour(), first.capacity(), first.hours(), true);
+        LocationSnapshot added = new LocationSnapshot(UUID.randomUUID(), hosts.get(1), "New", "Via Po 1", "Torino",
+                45.07, 7.69, new BigDecimal("3.50"), 5, "24/7", true);
+        LocationSnapshot deleted = locations.stream()
+                .filter(location -> location.active() && location != first)
+                .findFirst().orElseThrow();
+        catalog.onLocationChanged(LocationChangedEvent.updated(first, moved));
+        catalog.onLocationChanged(LocationChangedEvent.created(added));
+        catalog.onLocationChanged(LocationChangedEvent.deleted(deleted));
+        locations.set(locations.indexOf(first), moved);
+        locations.add(added);
+        locations.remove(deleted);
+
+        assertThat(before.size).isEqualTo(size);
+        assertThat(before.indexOf(deleted.id().getMostSignificantBits(), deleted.id().getLeastSignificantBits()))
+                .isGreaterThanOrEqualTo(0);
+        assertThat(catalog.columns().size).isEqualTo(size);
+        LocationFilter torino = new LocationFilter("torino", null, null, null, true, null, null);
+        assertThat(allPages(torino, 10)).containsExactlyInAnyOrder(moved.id(), added.id());
+        LocationFilter anyOpen = new LocationFilter(null, null, null, null, true, null, LocalTime.NOON);
+        assertThat(allPages(anyOpen, 10)).isEqualTo(expected(anyOpen));
+
+        // Deactivating removes the location
+        LocationSnapshot deactivated = new LocationSnapshot(added.id(), added.hostId(), added.name(),
+                added.address(), added.city(), added.lat(), added.lng(), added.pricePerHour(), added.capacity(),
+                added.hours(), false);
+        catalog.onLocationChanged(LocationChangedEvent.updated(added, deactivated));
+        assertThat(allPages(torino, 10)).containsExactly(moved.id());
+    }
+
+    @Test
+    void ranksByCountsWithTiesInIdOrder() {
+        List<UUID> active = expected(new LocationFilter(null, null, null, null, true, null, null));
+        UUID busiest = active.get(5);
+        UUID second = active.get(9);
+
+        List<UUID> top = catalog.top(Map.of(busiest, 30L, second, 4L), 4);
+
+        assertThat(top).containsExactly(busiest, second, active.get(0), active.get(1));
+    }
+
+    @Test
+    void reportsMemoryFootprint() {
+        long active = locations.stream().filter(LocationSnapshot::active).count();
+
+        assertThat(catalog.stats().getLocations()).isEqualTo((int) active);
+        assertThat(catalog.stats().getCities()).isEqualTo(CITIES.size());
+        // 6 long, 2 double, 2 int and 2 short columns
+        assertThat(catalog.stats().getBytesPerLocation()).isBetween(76L, 100L);
+    }
+}
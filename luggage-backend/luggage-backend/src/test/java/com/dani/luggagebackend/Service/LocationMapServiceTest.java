@@ -0,0 +1,67 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.DTO.MarkerCluster;
+import com.dani.luggagebackend.DTO.ViewportResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocationMapServiceTest {
+
+    private final LocationMapService mapService = new LocationMapService();
+
+    private static LocationSnapshot location(double lat, double lng, String price) {
+        return new LocationSnapshot(UUID.randomUUID(), null, "Storage", "Address", "City",
+                lat, lng, new BigDecimal(price), 10, "24/7", true);
+    }
+
+    @Test
+    void zoomedOutLocationsAreClusteredWithMinPrice() {
+        List<LocationSnapshot> manhattan = new ArrayList<>();
+        manhattan.add(location(40.7580, -73.9855, "5.00"));
+        manhattan.add(location(40.7527, -73.9772, "4.50"));
+        manhattan.add(location(40.7484, -73.9857, "6.00"));
+        LocationSnapshot paris = location(48.8584, 2.2945, "6.00");
+        manhattan.add(paris);
+
+        ViewportResponse response = mapService.cluster(manhattan, 4);
+
+        assertThat(response.getClusters()).hasSize(1);
+        MarkerCluster cluster = response.getClusters().get(0);
+        assertThat(cluster.getCount()).isEqualTo(3);
+        assertThat(cluster.getMinPricePerHour()).isEqualByComparingTo("4.50");
+        assertThat(cluster.getLatitude()).isBetween(40.74, 40.76);
+        assertThat(response.getLocations()).singleElement()
+                .satisfies(marker -> assertThat(marker.getId()).isEqualTo(paris.id()));
+    }
+
+    @Test
+    void zoomedInLocationsAreReturnedIndividually() {
+        List<LocationSnapshot> locations = List.of(
+                location(40.7580, -73.9855, "5.00"),
+                location(40.7581, -73.9856, "4.50"));
+
+        ViewportResponse response = mapService.cluster(locations, LocationMapService.MAX_CLUSTER_ZOOM);
+
+        assertThat(response.getClusters()).isEmpty();
+        assertThat(response.getLocations()).hasSize(2);
+    }
+
+    @Test
+    void countsTheTilesAViewportCoversOnScreen() {
+        // Midtown Manhattan at street level
+        assertThat(LocationMapService.tilesCovered(40.74, -74.00, 40.77, -73.96, 15)).isBetween(4L, 30L);
+        // The whole world fits in one tile at zoom 0 but not in a screen at zoom 22
+        assertThat(LocationMapService.tilesCovered(-85, -180, 85, 180, 0)).isEqualTo(1);
+        assertThat(LocationMapService.tilesCovered(-85, -180, 85, 180, 22)).isGreaterThan(1_000_000L);
+        assertThat(LocationMapService.tilesCovered(1, -180, 2, 180, 4)).isEqualTo(16);
+        // Across the antimeridian, from Fiji to Samoa
+        assertThat(LocationMapService.tilesCovered(-20, 170, -10, -170, 2)).isEqualTo(2);
+        assertThat(LocationMapService.tilesCovered(-20, 10, -10, 5, 2)).isEqualTo(4);
+    }
+}
@@ -0,0 +1,117 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Model.Booking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocationPopularityTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-10T12:30:00Z");
+
+    private final UUID busy = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private final UUID quiet = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private final UUID idle = UUID.fromString("00000000-0000-0000-0000-000000000003");
+    private LocationPopularity popularity;
+
+    private static BookingSnapshot booking(UUID locationId, Booking.BookingStatus status, Instant createdAt) {
+        return new BookingSnapshot(UUID.randomUUID(), locationId, UUID.randomUUID(),
+                createdAt.plus(Duration.ofDays(1)), createdAt.plus(Duration.ofDays(2)), status, 1, createdAt, null);
+    }
+
+    private static BookingSnapshot withStatus(BookingSnapshot booking, Booking.BookingStatus status) {
+        return new BookingSnapshot(booking.id(), booking.locationId(), booking.userId(),
+                booking.startTime(), booking.endTime(), status, booking.bags(), booking.createdAt(), null);
+    }
+
+    private static LocationSnapshot location(UUID id, boolean active) {
+        return new LocationSnapshot(id, null, "Storage", "Address", "City",
+                41.9, 12.49, BigDecimal.valueOf(5), 10, "24/7", active);
+    }
+
+    @BeforeEach
+    void setUp() {
+        popularity = new LocationPopularity();
+        // busy: 5 bookings, 2 of them this week and 1 today; quiet: 3 bookings, all today
+        popularity.rebuild(List.of(busy, quiet, idle), Map.of(busy, 5L, quiet, 3L), List.of(
+                new LocationPopularity.Creation(busy, NOW.minus(Duration.ofHours(2))),
+                new LocationPopularity.Creation(busy, NOW.minus(Duration.ofDays(3))),
+                new LocationPopularity.Creation(quiet, NOW.minus(Duration.ofHours(1))),
+                new LocationPopularity.Creation(quiet, NOW.minus(Duration.ofHours(3))),
+                new LocationPopularity.Creation(quiet, NOW.minus(Duration.ofHours(20)))), NOW);
+    }
+
+    @Test
+    void ranksEachWindowByItsOwnCounts() {
+        assertThat(popularity.top(PopularityWindow.ALL_TIME, 10, NOW)).containsExactly(busy, quiet, idle);
+        assertThat(popularity.top(PopularityWindow.WEEK, 10, NOW)).containsExactly(quiet, busy, idle);
+        assertThat(popularity.top(PopularityWindow.DAY, 2, NOW)).containsExactly(quiet, busy);
+    }
+
+    @Test
+    void bookingsLeaveWindowsAsTimePasses() {
+        Instant later = NOW.plus(Duration.ofHours(20));
+
+        assertThat(popularity.count(PopularityWindow.DAY, quiet, later)).isEqualTo(2);
+        assertThat(popularity.count(PopularityWindow.DAY, busy, later)).isEqualTo(1);
+        assertThat(popularity.count(PopularityWindow.WEEK, busy, later)).isEqualTo(2);
+
+        Instant nextWeek = NOW.plus(Duration.ofDays(8));
+        assertThat(popularity.top(PopularityWindow.DAY, 10, nextWeek)).containsExactly(busy, quiet, idle);
+        assertThat(popularity.count(PopularityWindow.WEEK, busy, nextWeek)).isZero();
+        assertThat(popularity.count(PopularityWindow.ALL_TIME, busy, nextWeek)).isEqualTo(5);
+    }
+
+    @Test
+    void bookingWritesUpdateCounters() {
+        BookingSnapshot created = booking(idle, Booking.BookingStatus.PENDING, NOW);
+        for (int i = 0; i < 4; i++) {
+            popularity.onBookingChanged(BookingChangedEvent.created(booking(idle, Booking.BookingStatus.PENDING, NOW)), NOW);
+        }
+        popularity.onBookingChanged(BookingChangedEvent.created(created), NOW);
+        assertThat(popularity.top(PopularityWindow.DAY, 1, NOW)).containsExactly(idle);
+
+        BookingSnapshot confirmed = withStatus(created, Booking.BookingStatus.CONFIRMED);
+        popularity.onBookingChanged(BookingChangedEvent.updated(created, confirmed), NOW);
+        BookingSnapshot completed = withStatus(confirmed, Booking.BookingStatus.COMPLETED);
+        popularity.onBookingChanged(BookingChangedEvent.updated(confirmed, completed), NOW);
+        assertThat(popularity.count(PopularityWindow.DAY, idle, NOW)).isEqualTo(5);
+
+        BookingSnapshot pending = booking(idle, Booking.BookingStatus.PENDING, NOW);
+        popularity.onBookingChanged(BookingChangedEvent.created(pending), NOW);
+        popularity.onBookingChanged(BookingChangedEvent.updated(
+                pending, withStatus(pending, Booking.BookingStatus.CANCELLED)), NOW);
+        assertThat(popularity.count(PopularityWindow.DAY, idle, NOW)).isEqualTo(5);
+        assertThat(popularity.count(PopularityWindow.ALL_TIME, idle, NOW)).isEqualTo(5);
+    }
+
+    @Test
+    void cancellingAnOldBookingOnlyChangesWindowsItIsIn() {
+        BookingSnapshot old = booking(busy, Booking.BookingStatus.CONFIRMED, NOW.minus(Duration.ofDays(3)));
+        popularity.onBookingChanged(BookingChangedEvent.updated(old, withStatus(old, Booking.BookingStatus.CANCELLED)), NOW);
+
+        assertThat(popularity.count(PopularityWindow.ALL_TIME, busy, NOW)).isEqualTo(4);
+        assertThat(popularity.count(PopularityWindow.WEEK, busy, NOW)).isEqualTo(1);
+        assertThat(popularity.count(PopularityWindow.DAY, busy, NOW)).isEqualTo(1);
+    }
+
+    @Test
+    void inactiveLocationsAreNotRanked() {
+        popularity.onLocationChanged(LocationChangedEvent.updated(location(busy, true), location(busy, false)));
+        assertThat(popularity.top(PopularityWindow.ALL_TIME, 10, NOW)).containsExactly(quiet, idle);
+
+        popularity.onLocationChanged(LocationChangedEvent.updated(location(busy, false), location(busy, true)));
+        assertThat(popularity.top(PopularityWindow.ALL_TIME, 10, NOW)).containsExactly(busy, quiet, idle);
+
+        popularity.onLocationChanged(LocationChangedEvent.deleted(location(quiet, true)));
+        assertThat(popularity.top(PopularityWindow.WEEK, 10, NOW)).containsExactly(busy, idle);
+    }
+}
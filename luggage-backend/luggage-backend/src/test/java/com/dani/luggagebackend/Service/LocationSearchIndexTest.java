@@ -0,0 +1,95 @@
+package com.dani.luggagebackend.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocationSearchIndexTest {
+
+    private LocationSearchIndex index;
+    private LocationSnapshot cafe;
+    private LocationSnapshot termini;
+    private LocationSnapshot milan;
+
+    private static LocationSnapshot location(String name, String address, String city,
+            double lat, double lng, double price, int capacity) {
+        return new LocationSnapshot(UUID.randomUUID(), null, name, address, city,
+                lat, lng, BigDecimal.valueOf(price), capacity, "24/7", true);
+    }
+
+    private static LocationSearchIndex.Criteria text(String text) {
+        return new LocationSearchIndex.Criteria(text, null, null, null, null, null, null, false, 10);
+    }
+
+    private List<UUID> ids(LocationSearchIndex.Criteria criteria) {
+        return index.search(criteria).hits().stream().map(LocationSearchIndex.Hit::locationId).toList();
+    }
+
+    @BeforeEach
+    void setUp() {
+        cafe = location("Café Navona Storage", "Piazza Navona 12", "Roma", 41.8992, 12.4731, 4.0, 8);
+        termini = location("Termini Bags", "Via Marsala 29", "Roma", 41.9010, 12.5010, 6.5, 40);
+        milan = location("Centrale Deposit", "Piazza Duca d'Aosta 1", "Milano", 45.4862, 9.2043, 12.0, 60);
+        index = new LocationSearchIndex();
+        index.rebuild(List.of(cafe, termini, milan));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    void matchesIgnoringAccentsCaseAndSmallTypos() {
+        assertThat(ids(text("cafe navona"))).containsExactly(cafe.id());
+        assertThat(ids(text("TERMNI"))).containsExactly(termini.id());
+        assertThat(ids(text("marsala roma"))).containsExactly(termini.id());
+        assertThat(ids(text("milano"))).containsExactly(milan.id());
+        assertThat(ids(text("florence"))).isEmpty();
+    }
+
+    @Test
+    void combinesTextWithDistanceAndPriceFiltersAndCountsFacets() {
+        LocationSearchIndex.Result result = index.search(new LocationSearchIndex.Criteria(
+                "piazza", 41.9028, 12.4964, 50.0, null, BigDecimal.valueOf(10), null, false, 10));
+
+        assertThat(result.hits()).extracting(LocationSearchIndex.Hit::locationId).containsExactly(cafe.id());
+        assertThat(result.totalHits()).isEqualTo(1);
+        assertThat(result.priceFacets())
+                .extracting(LocationSearchIndex.Bucket::count)
+                .containsExactly(1L, 0L, 0L, 0L);
+    }
+
+    @Test
+    void sortsByDistanceAndReportsAllMatches() {
+        LocationSearchIndex.Result result = index.search(new LocationSearchIndex.Criteria(
+                null, 41.9010, 12.5010, null, null, null, null, true, 2));
+
+        assertThat(result.hits()).extracting(LocationSearchIndex.Hit::locationId)
+                .containsExactly(termini.id(), cafe.id());
+        assertThat(result.totalHits()).isEqualTo(3);
+        assertThat(result.capacityFacets())
+                .extracting(LocationSearchIndex.Bucket::count)
+                .containsExactly(1L, 0L, 1L, 1L);
+    }
+
+    @Test
+    void followsLocationChanges() {
+        LocationSnapshot renamed = new LocationSnapshot(termini.id(), null, "Stazione Bags", termini.address(),
+                termini.city(), termini.lat(), termini.lng(), termini.pricePerHour(), termini.capacity(),
+                termini.hours(), true);
+        index.onLocationChanged(LocationChangedEvent.updated(termini, renamed));
+        assertThat(ids(text("termini"))).isEmpty();
+        assertThat(ids(text("stazione"))).containsExactly(termini.id());
+
+        index.onLocationChanged(LocationChangedEvent.deleted(cafe));
+        assertThat(ids(text("navona"))).isEmpty();
+    }
+}
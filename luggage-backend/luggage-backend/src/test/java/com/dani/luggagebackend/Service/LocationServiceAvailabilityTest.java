@@ -0,0 +1,118 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.DTO.LocationResponse;
+import com.dani.luggagebackend.Model.Location;
+import com.dani.luggagebackend.Repo.BookingRepo;
+import com.dani.luggagebackend.Repo.LocationRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LocationServiceAvailabilityTest {
+
+    private static final Instant DAY = Instant.now().plus(Duration.ofDays(2)).truncatedTo(ChronoUnit.DAYS);
+    private static final Instant START = at(10);
+    private static final Instant END = at(16);
+
+    private LocationService service;
+    private BookingRepo bookingRepo;
+    private LocationSnapshot full;
+    private LocationSnapshot roomy;
+    private LocationSnapshot small;
+
+    private static LocationSnapshot location(double lat, double lng, int capacity) {
+        return new LocationSnapshot(UUID.randomUUID(), null, "Storage", "Address", "Rome",
+                lat, lng, BigDecimal.valueOf(5), capacity, "24/7", true);
+    }
+
+    private static Instant at(int hour) {
+        return DAY.plus(Duration.ofHours(hour));
+    }
+
+    private record Interval(UUID getLocationId, UUID getId, Instant getStartTime, Instant getEndTime, int getBags)
+            implements BookingRepo.LocatedBookingInterval {
+    }
+
+    private static Interval booking(LocationSnapshot location, int fromHour, int toHour, int bags) {
+        return new Interval(location.id(), UUID.randomUUID(), at(fromHour), at(toHour), bags);
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        full = location(41.9028, 12.4964, 5);
+        roomy = location(41.9035, 12.4970, 10);
+        small = location(41.9040, 12.4980, 2);
+        List<LocationSnapshot> all = List.of(full, roomy, small);
+
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        index.rebuild(all);
+
+        LocationRepo locationRepo = mock(LocationRepo.class);
+        when(locationRepo.findAllWithHostByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return all.stream()
+                    .filter(snapshot -> ids.contains(snapshot.id()))
+                    .map(snapshot -> Location.builder()
+                            .id(snapshot.id())
+                            .lat(snapshot.lat())
+                            .lng(snapshot.lng())
+                            .capacity(snapshot.capacity())
+                            .isActive(true)
+                            .build())
+                    .toList();
+        });
+
+        bookingRepo = mock(BookingRepo.class);
+        // Roomy's bookings never overlap, so at most 5 of its 10 bags are taken at once
+        List<BookingRepo.LocatedBookingInterval> bookings = List.of(
+                booking(full, 9, 17, 4),
+                booking(roomy, 10, 12, 5),
+                booking(roomy, 13, 16, 4));
+        when(bookingRepo.findIntervalsByLocationIn(anyCollection(), anyCollection(), any()))
+                .thenAnswer(invocation -> {
+                    Collection<UUID> ids = invocation.getArgument(0);
+                    return bookings.stream().filter(booking -> ids.contains(booking.getLocationId())).toList();
+                });
+
+        service = new LocationService();
+        ReflectionTestUtils.setField(service, "locationRepo", locationRepo);
+        ReflectionTestUtils.setField(service, "bookingRepo", bookingRepo);
+        ReflectionTestUtils.setField(service, "spatialIndex", index);
+        ReflectionTestUtils.setField(service, "occupancyIndex", new OccupancyIndex(15, 30));
+        ReflectionTestUtils.setField(service, "nearbyResultCache", new NearbyResultCache(0.005, 100, 10_000));
+        ReflectionTestUtils.setField(service, "walkingRouter", new WalkingRouter("", 4.8, 250));
+    }
+
+    @Test
+    void returnsOnlyLocationsWithRoomForTheBags() {
+        List<LocationResponse> available = service.findAvailableNearby(
+                41.9028, 12.4964, 5.0, null, null, null, START, END, 3);
+
+        assertThat(available).extracting(LocationResponse::getId).containsExactly(roomy.id());
+    }
+
+    @Test
+    void checksOccupancyOfAllCandidatesInOneQuery() {
+        service.findAvailableNearby(41.9028, 12.4964, 5.0, null, null, null, START, END, 1);
+
+        // Capacity 2 is enough for one bag, so all three are candidates
+        verify(bookingRepo, times(1)).findIntervalsByLocationIn(anyCollection(), anyCollection(), any());
+    }
+}
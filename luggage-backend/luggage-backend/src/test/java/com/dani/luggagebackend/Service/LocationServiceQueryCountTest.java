@@ -0,0 +1,155 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.DTO.LocationResponse;
+import com.dani.luggagebackend.Model.Location;
+import com.dani.luggagebackend.Model.Users;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every location listing must load its hosts in the same statements as
+ * the locations, so the number of SQL statements does not grow with the
+ * number of results. Runs the database paths (in-memory indexes not
+ * loaded) against H2.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({LocationService.class, NearbyResultCache.class})
+class LocationServiceQueryCountTest {
+
+    private static final LocationFilter ACTIVE = new LocationFilter(null, null, null, null, true, null, null);
+
+    @MockitoBean
+    private LocationSpatialIndex spatialIndex;
+
+    @MockitoBean
+    private LocationSearchIndex searchIndex;
+
+    @MockitoBean
+    private LocationCatalog catalog;
+
+    @MockitoBean
+    private WalkingRouter walkingRouter;
+
+    @MockitoBean
+    private LocationPopularity popularity;
+
+    @MockitoBean
+    private CityDirectory cityDirectory;
+
+    @MockitoBean
+    private OccupancyIndex occupancyIndex;
+
+    @MockitoBean
+    private AvailabilityCalendar availabilityCalendar;
+
+    @Autowired
+    private LocationService locationService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Users sharedHost;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        sharedHost = host("shared");
+    }
+
+    private Users host(String name) {
+        return entityManager.persist(Users.builder()
+                .email(name + "-" + UUID.randomUUID() + "@example.com")
+                .passwordHash("hash")
+                .fullName(name)
+                .role(Users.Role.HOST)
+                .build());
+    }
+
+    /**
+     * Adds locations around Rome, each with its own host, plus as many
+     * owned by the shared host.
+     */
+    private void addLocations(int count) {
+        for (int i = 0; i < count; i++) {
+            for (Users owner : new Users[] {host("host " + i), sharedHost}) {
+                entityManager.persist(Location.builder()
+                        .host(owner)
+                        .name("Storage " + i)
+                        .address("Via Roma " + i)
+                        .city("Roma")
+                        .lat(41.90 + i * 0.0001)
+                        .lng(12.49 + i * 0.0001)
+                        .pricePerHour(BigDecimal.valueOf(5))
+                        .capacity(10)
+                        .hours("24/7")
+                        .build());
+            }
+        }
+        entityManager.flush();
+    }
+
+    /**
+     * Statements run by each listing, starting from an empty persistence
+     * context so no host is already loaded. Nearby searches start from
+     * originLat, which must differ between calls to miss the result cache.
+     */
+    private Map<String, Long> statementsPerListing(double originLat) {
+        Map<String, Supplier<Collection<LocationResponse>>> listings = new LinkedHashMap<>();
+        listings.put("all", () -> locationService.getAllLocations(PageRequest.of(0, 500)).getContent());
+        listings.put("byHost", () -> locationService.getLocationsByHost(sharedHost.getId()));
+        listings.put("byCity", () -> locationService.getLocationsByCity("roma"));
+        listings.put("keyword", () -> locationService.searchLocations("storage"));
+        listings.put("popular", () -> locationService.getPopularLocations(500, PopularityWindow.ALL_TIME));
+        listings.put("filter", () -> locationService.filterLocationsPage(ACTIVE, 100, null).items());
+        listings.put("nearby", () -> locationService.findNearbyLocations(originLat, 12.55, 50.0));
+        listings.put("nearest", () -> locationService.findNearestLocations(originLat, 12.55, 500, 50.0));
+
+        Map<String, Long> statements = new LinkedHashMap<>();
+        listings.forEach((name, listing) -> {
+            entityManager.clear();
+            statistics.clear();
+            Collection<LocationResponse> responses = listing.get();
+            assertThat(responses).as(name).isNotEmpty()
+                    .allSatisfy(response -> assertThat(response.getHost().getFullName()).isNotNull());
+            statements.put(name, statistics.getPrepareStatementCount());
+        });
+        return statements;
+    }
+
+    @Test
+    void listingsRunAConstantNumberOfStatements() {
+        addLocations(2);
+        Map<String, Long> few = statementsPerListing(41.95);
+
+        addLocations(40);
+        Map<String, Long> many = statementsPerListing(42.05);
+
+        assertThat(many).isEqualTo(few);
+        assertThat(many.values()).allSatisfy(count -> assertThat(count).isLessThanOrEqualTo(2L));
+    }
+}
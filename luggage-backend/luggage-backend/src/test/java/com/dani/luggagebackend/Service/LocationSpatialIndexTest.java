@@ -0,0 +1,340 @@
+package com.dani.luggagebackend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocationSpatialIndexTest {
+
+    private static LocationSnapshot location(double lat, double lng, boolean active) {
+        return new LocationSnapshot(UUID.randomUUID(), UUID.randomUUID(), "Storage", "Address", "City",
+                lat, lng, BigDecimal.valueOf(5), 10, "24/7", active);
+    }
+
+    private static List<UUID> bruteForce(List<LocationSnapshot> all, double lat, double lng, double radiusKm) {
+        return all.stream()
+                .filter(LocationSnapshot::active)
+                .filter(l -> Geo.haversineKm(lat, lng, l.lat(), l.lng()) <= radiusKm)
+                .sorted((a, b) -> Double.compare(
+                        Geo.haversineKm(lat, lng, a.lat(), a.lng()),
+                        Geo.haversineKm(lat, lng, b.lat(), b.lng())))
+                .map(LocationSnapshot::id)
+                .toList();
+    }
+
+    @Test
+    void radiusQueryMatchesBruteForce() {
+        Random random = new Random(42);
+        List<LocationSnapshot> all = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            all.add(location(40.5 + random.nextDouble(), -74.5 + random.nextDouble(), random.nextInt(10) > 0));
+        }
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        index.rebuild(all);
+
+        for (int q = 0; q < 50; q++) {
+            double lat = 40.5 + random.nextDouble();
+            double lng = -74.5 + random.nextDouble();
+            double radius = 0.5 + random.nextDouble() * 20;
+
+            List<UUID> found = index.findWithinRadius(lat, lng, radius, null).stream()
+                    .map(match -> match.location().id())
+                    .toList();
+
+            assertThat(found).isEqualTo(bruteForce(all, lat, lng, radius));
+        }
+    }
+
+    @Test
+    void radiusWiderThanTheIndexScansEveryLocation() {
+        Random random = new Random(3);
+        List<LocationSnapshot> all = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            all.add(location(-60 + random.nextDouble() * 120, -180 + random.nextDouble() * 360, true));
+        }
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        index.rebuild(all);
+
+        // The bounding box spans millions of cells, far more than the 500 locations
+        List<UUID> found = index.findWithinRadius(10.0, 20.0, 5_000, null).stream()
+                .map(match -> match.location().id())
+                .toList();
+
+        assertThat(found).isNotEmpty().isEqualTo(bruteForce(all, 10.0, 20.0, 5_000));
+    }
+
+    @Test
+    void nearestMatchesBruteForceTopK() {
+        Random random = new Random(7);
+        List<LocationSnapshot> all = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            // A dense centre plus a sparse surrounding region
+            double spread = i % 3 == 0 ? 2.0 : 0.05;
+            all.add(location(48.85 + random.nextGaussian() * spread, 2.35 + random.nextGaussian() * spread, true));
+        }
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        index.rebuild(all);
+
+        for (int q = 0; q < 50; q++) {
+            double lat = 48.85 + random.nextGaussian();
+            double lng = 2.35 + random.nextGaussian();
+            int k = 1 + random.nextInt(20);
+
+            List<UUID> found = index.findNearest(lat, lng, k, 1_000, null).stream()
+                    .map(match -> match.location().id())
+                    .toList();
+
+            List<UUID> expected = bruteForce(all, lat, lng, 1_000);
+            assertThat(found).isEqualTo(expected.subList(0, Math.min(k, expected.size())));
+        }
+    }
+
+    @Test
+    void nearestIteratorMatchesBruteForceOrder() {
+        Random random = new Random(11);
+        List<LocationSnapshot> all = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            all.add(location(51.5 + random.nextGaussian() * 0.3, -0.12 + random.nextGaussian() * 0.3,
+                    random.nextInt(10) > 0));
+        }
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        index.rebuild(all);
+
+        for (int q = 0; q < 20; q++) {
+            double lat = 51.5 + random.nextGaussian() * 0.3;
+            double lng = -0.12 + random.nextGaussian() * 0.3;
+            double radius = 1 + random.nextDouble() * 40;
+
+            List<UUID> found = new ArrayList<>();
+            Iterator<LocationSpatialIndex.Match> matches = index.iterateNearest(lat, lng, radius, null);
+            matches.forEachRemaining(match -> found.add(match.location().id()));
+
+            assertThat(found).isEqualTo(bruteForce(all, lat, lng, radius));
+        }
+    }
+
+    @Test
+    void resumedIterationPagesThroughAllResults() {
+        Random random = new Random(13);
+        List<LocationSnapshot> all = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            all.add(location(52.52 + random.nextGaussian() * 0.2, 13.40 + random.nextGaussian() * 0.2, true));
+        }
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        index.rebuild(all);
+        double lat = 52.52;
+        double lng = 13.40;
+        double radius = 30;
+
+        List<UUID> paged = new ArrayList<>();
+        Iterator<LocationSpatialIndex.Match> matches = index.iterateNearest(lat, lng, radius, null);
+        while (matches.hasNext()) {
+            LocationSpatialIndex.Match last = null;
+            for (int i = 0; i < 25 && matches.hasNext(); i++) {
+                last = matches.next();
+                paged.add(last.location().id());
+            }
+            matches = index.iterateNearestAfter(lat, lng, radius, null, last.distanceKm(), last.location().id());
+        }
+
+        assertThat(paged).isEqualTo(bruteForce(all, lat, lng, radius));
+    }
+
+    @Test
+    void sparseIndexWithLargeRadiusScansInsteadOfWalkingRings() {
+        Random random = new Random(17);
+        List<LocationSnapshot> all = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // A few around the origin, so the walk returns some before giving way to a scan
+            all.add(i % 10 == 0
+                    ? location(10.0 + random.nextGaussian() * 0.05, 20.0 + random.nextGaussian() * 0.05, true)
+                    : location(-60 + random.nextDouble() * 120, -180 + random.nextDouble() * 360, true));
+        }
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        index.rebuild(all);
+        double radius = 5_000;
+        List<UUID> expected = bruteForce(all, 10.0, 20.0, radius);
+
+        // Rings out to 5000 km would take millions of cell lookups for 500 locations
+        assertThat(index.findNearest(10.0, 20.0, 80, radius, null))
+                .extracting(match -> match.location().id())
+                .isEqualTo(expected.subList(0, 80));
+
+        List<UUID> paged = new ArrayList<>();
+        Iterator<LocationSpatialIndex.Match> matches = index.iterateNearest(10.0, 20.0, radius, null);
+        while (matches.hasNext()) {
+            LocationSpatialIndex.Match last = null;
+            for (int i = 0; i < 30 && matches.hasNext(); i++) {
+                last = matches.next();
+                paged.add(last.location().id());
+            }
+            matches = index.iterateNearestAfter(10.0, 20.0, radius, null, last.distanceKm(), last.location().id());
+        }
+        assertThat(paged).isNotEmpty().isEqualTo(expected);
+    }
+
+    @Test
+    void multiOriginSearchMatchesSeparateSearches() {
+        Random random = new Random(17);
+        List<LocationSnapshot> all = new ArrayList<>();
+        for (int i = 0; i < 4_000; i++) {
+            all.add(location(48.86 + random.nextGaussian() * 0.05, 2.35 + random.nextGaussian() * 0.05, true));
+        }
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        index.rebuild(all);
+        List<LocationSpatialIndex.Origin> origins = List.of(
+                new LocationSpatialIndex.Origin(48.8443, 2.3744, 1.0),
+                new LocationSpatialIndex.Origin(48.8606, 2.3376, 2.0),
+                new LocationSpatialIndex.Origin(48.8530, 2.3499, 1.5));
+
+        List<LocationSpatialIndex.MultiMatch> matches = index.findNearAny(origins, null);
+
+        Set<UUID> expected = new HashSet<>();
+        for (int i = 0; i < origins.size(); i++) {
+            LocationSpatialIndex.Origin origin = origins.get(i);
+            List<UUID> single = bruteForce(all, origin.latitude(), origin.longitude(), origin.radiusKm());
+            expected.addAll(single);
+            int originIndex = i;
+            assertThat(matches.stream()
+                    .filter(match -> !Double.isNaN(match.distancesKm()[originIndex]))
+                    .map(match -> match.location().id())
+                    .collect(Collectors.toSet()))
+                    .isEqualTo(new HashSet<>(single));
+        }
+        assertThat(matches).extracting(match -> match.location().id())
+                .doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(matches).isSortedAccordingTo(
+                Comparator.comparingDouble(LocationSpatialIndex.MultiMatch::nearestDistanceKm));
+    }
+
+    @Test
+    void corridorSearchFindsLocationsAlongRouteInOrder() {
+        Random random = new Random(19);
+        List<LocationSnapshot> all = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            all.add(location(45.06 + random.nextDouble() * 0.04, 7.66 + random.nextDouble() * 0.04, true));
+        }
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        index.rebuild(all);
+        List<Polyline.Point> route = List.of(
+                new Polyline.Point(45.062, 7.662),
+                new Polyline.Point(45.070, 7.675),
+                new Polyline.Point(45.068, 7.690),
+                new Polyline.Point(45.095, 7.697));
+        double buffer = 0.25;
+
+        List<LocationSpatialIndex.CorridorMatch> matches = index.findAlongRoute(route, buffer, null);
+        Set<UUID> found = matches.stream().map(match -> match.location().id()).collect(Collectors.toSet());
+
+        for (LocationSnapshot location : all) {
+            // Brute force: distance to the route sampled every metre or so
+            double closest = Double.MAX_VALUE;
+            for (int s = 0; s + 1 < route.size(); s++) {
+                Polyline.Point from = route.get(s);
+                Polyline.Point to = route.get(s + 1);
+                for (int k = 0; k <= 2_000; k++) {
+                    double t = k / 2_000.0;
+                    closest = Math.min(closest, Geo.haversineKm(location.lat(), location.lng(),
+                            from.latitude() + t * (to.latitude() - from.latitude()),
+                            from.longitude() + t * (to.longitude() - from.longitude())));
+                }
+            }
+            if (closest < buffer - 0.005) {
+                assertThat(found).contains(location.id());
+            } else if (closest > buffer + 0.005) {
+                assertThat(found).doesNotContain(location.id());
+            }
+        }
+        assertThat(matches).isSortedAccordingTo(
+                Comparator.comparingDouble(LocationSpatialIndex.CorridorMatch::alongRouteKm));
+        assertThat(matches).allSatisfy(match -> assertThat(match.offRouteKm()).isLessThanOrEqualTo(buffer));
+    }
+
+    @Test
+    void nearestStopsAtMaxRadius() {
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        LocationSnapshot near = location(35.6762, 139.6503, true);
+        LocationSnapshot far = location(35.9, 139.9, true);
+        index.rebuild(List.of(near, far));
+
+        assertThat(index.findNearest(35.6762, 139.6503, 5, 10, null))
+                .extracting(match -> match.location().id())
+                .containsExactly(near.id());
+    }
+
+    @Test
+    void radiusQueryCrossesAntimeridian() {
+        LocationSpatialIndex index = new LocationSpatialIndex(0.5);
+        LocationSnapshot east = location(-17.0, 179.9, true);
+        LocationSnapshot west = location(-17.0, -179.9, true);
+        index.rebuild(List.of(east, west));
+
+        assertThat(index.findWithinRadius(-17.0, 179.95, 50, null))
+                .extracting(match -> match.location().id())
+                .containsExactlyInAnyOrder(east.id(), west.id());
+    }
+
+    @Test
+    void boundsQueryHandlesAntimeridianViewport() {
+        LocationSpatialIndex index = new LocationSpatialIndex(0.5);
+        LocationSnapshot fiji = location(-17.0, 179.9, true);
+        LocationSnapshot samoa = location(-13.8, -171.8, true);
+        LocationSnapshot sydney = location(-33.9, 151.2, true);
+        index.rebuild(List.of(fiji, samoa, sydney));
+
+        assertThat(index.findWithinBounds(-20, 170, -10, -170))
+                .extracting(LocationSnapshot::id)
+                .containsExactlyInAnyOrder(fiji.id(), samoa.id());
+    }
+
+    @Test
+    void worldViewportScansEveryLocation() {
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        LocationSnapshot paris = location(48.8584, 2.2945, true);
+        LocationSnapshot tokyo = location(35.6762, 139.6503, true);
+        LocationSnapshot santiago = location(-33.4489, -70.6693, true);
+        index.rebuild(List.of(paris, tokyo, santiago));
+
+        assertThat(index.findWithinBounds(-85, -180, 85, 180))
+                .extracting(LocationSnapshot::id)
+                .containsExactlyInAnyOrder(paris.id(), tokyo.id(), santiago.id());
+        assertThat(index.findWithinBounds(0, -180, 85, 180))
+                .extracting(LocationSnapshot::id)
+                .containsExactlyInAnyOrder(paris.id(), tokyo.id());
+    }
+
+    @Test
+    void upsertMovesAndDeactivatesLocations() {
+        LocationSpatialIndex index = new LocationSpatialIndex(0.02);
+        LocationSnapshot paris = location(48.8584, 2.2945, true);
+        index.rebuild(List.of(paris));
+        long version = index.version();
+
+        LocationSnapshot moved = new LocationSnapshot(paris.id(), paris.hostId(), paris.name(), paris.address(),
+                paris.city(), 51.5074, -0.1278, paris.pricePerHour(), paris.capacity(), paris.hours(), true);
+        index.onLocationChanged(LocationChangedEvent.updated(paris, moved));
+
+        assertThat(index.findWithinRadius(48.8584, 2.2945, 5, null)).isEmpty();
+        assertThat(index.findWithinRadius(51.5074, -0.1278, 5, null)).hasSize(1);
+        assertThat(index.version()).isGreaterThan(version);
+
+        LocationSnapshot inactive = new LocationSnapshot(moved.id(), moved.hostId(), moved.name(), moved.address(),
+                moved.city(), moved.lat(), moved.lng(), moved.pricePerHour(), moved.capacity(), moved.hours(), false);
+        index.onLocationChanged(LocationChangedEvent.updated(moved, inactive));
+
+        assertThat(index.findWithinRadius(51.5074, -0.1278, 5, null)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+}
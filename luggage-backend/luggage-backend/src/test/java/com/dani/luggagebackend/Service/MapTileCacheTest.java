@@ -0,0 +1,111 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.DTO.ViewportResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MapTileCacheTest {
+
+    private static final int ZOOM = 12;
+
+    private LocationSpatialIndex index;
+    private MapTileCache cache;
+    private LocationSnapshot timesSquare;
+    private LocationSnapshot eiffelTower;
+
+    private static LocationSnapshot location(double lat, double lng) {
+        return new LocationSnapshot(UUID.randomUUID(), null, "Storage", "Address", "City",
+                lat, lng, BigDecimal.valueOf(5), 10, "24/7", true);
+    }
+
+    @BeforeEach
+    void setUp() {
+        timesSquare = location(40.7580, -73.9855);
+        eiffelTower = location(48.8584, 2.2945);
+        index = new LocationSpatialIndex(0.02);
+        index.rebuild(List.of(timesSquare, eiffelTower));
+
+        LocationMapService mapService = new LocationMapService();
+        ReflectionTestUtils.setField(mapService, "spatialIndex", index);
+        cache = new MapTileCache(100);
+        ReflectionTestUtils.setField(cache, "locationMapService", mapService);
+        ReflectionTestUtils.setField(cache, "spatialIndex", index);
+    }
+
+    private ViewportResponse tileOf(LocationSnapshot location) {
+        return cache.getTile(ZOOM, Geo.tileX(ZOOM, location.lng()), Geo.tileY(ZOOM, location.lat()));
+    }
+
+    @Test
+    void tilesAreBuiltOnceAndCached() {
+        ViewportResponse first = tileOf(timesSquare);
+
+        assertThat(first.getLocations()).singleElement()
+                .satisfies(marker -> assertThat(marker.getId()).isEqualTo(timesSquare.id()));
+        assertThat(tileOf(timesSquare)).isSameAs(first);
+    }
+
+    @Test
+    void versionMovesOnlyOnceTouchedTilesAreDropped() {
+        ViewportResponse newYork = tileOf(timesSquare);
+        String version = cache.currentVersion();
+
+        LocationSnapshot moved = new LocationSnapshot(timesSquare.id(), null, "Storage", "Address", "City",
+                eiffelTower.lat(), eiffelTower.lng(), BigDecimal.valueOf(5), 10, "24/7", true);
+        LocationChangedEvent event = LocationChangedEvent.updated(timesSquare, moved);
+        index.onLocationChanged(event);
+
+        // The index has the write but the cache has not dropped the tile yet
+        assertThat(cache.currentVersion()).isEqualTo(version);
+        assertThat(tileOf(timesSquare)).isSameAs(newYork);
+
+        cache.onLocationChanged(event);
+
+        assertThat(cache.currentVersion()).isNotEqualTo(version);
+        assertThat(tileOf(timesSquare).getLocations()).isEmpty();
+    }
+
+    @Test
+    void changeInvalidatesOnlyTouchedTiles() {
+        ViewportResponse newYork = tileOf(timesSquare);
+        ViewportResponse paris = tileOf(eiffelTower);
+
+        LocationSnapshot inactive = new LocationSnapshot(timesSquare.id(), null, "Storage", "Address", "City",
+                timesSquare.lat(), timesSquare.lng(), BigDecimal.valueOf(5), 10, "24/7", false);
+        LocationChangedEvent event = LocationChangedEvent.updated(timesSquare, inactive);
+        index.onLocationChanged(event);
+        cache.onLocationChanged(event);
+
+        assertThat(tileOf(eiffelTower)).isSameAs(paris);
+        ViewportResponse rebuilt = tileOf(timesSquare);
+        assertThat(rebuilt).isNotSameAs(newYork);
+        assertThat(rebuilt.getLocations()).isEmpty();
+    }
+
+    @Test
+    void versionsAreNeverReusedByAnotherInstance() {
+        // Another node, or this one after a restart, with different content
+        LocationSpatialIndex otherIndex = new LocationSpatialIndex(0.02);
+        otherIndex.rebuild(List.of(eiffelTower));
+        MapTileCache other = new MapTileCache(100);
+        ReflectionTestUtils.setField(other, "spatialIndex", otherIndex);
+
+        Set<String> issued = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            assertThat(issued.add(cache.currentVersion())).isTrue();
+            assertThat(issued.add(other.currentVersion())).isTrue();
+            LocationChangedEvent event = LocationChangedEvent.updated(timesSquare, timesSquare);
+            cache.onLocationChanged(event);
+            other.onLocationChanged(event);
+        }
+    }
+}
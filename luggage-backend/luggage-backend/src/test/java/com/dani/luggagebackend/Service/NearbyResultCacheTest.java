@@ -0,0 +1,103 @@
+package com.dani.luggagebackend.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearbyResultCacheTest {
+
+    private static final NearbyResultCache.Filters NO_FILTERS = new NearbyResultCache.Filters(null, null, null);
+
+    private LocationSpatialIndex index;
+    private NearbyResultCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static LocationSnapshot location(double lat, double lng) {
+        return new LocationSnapshot(UUID.randomUUID(), null, "Storage", "Address", "City",
+                lat, lng, BigDecimal.valueOf(5), 10, "24/7", true);
+    }
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(3);
+        List<LocationSnapshot> all = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            all.add(location(41.39 + random.nextGaussian() * 0.05, 2.17 + random.nextGaussian() * 0.05));
+        }
+        index = new LocationSpatialIndex(0.02);
+        index.rebuild(all);
+        cache = new NearbyResultCache(0.005, 100, 10_000);
+    }
+
+    private List<LocationSpatialIndex.Match> search(double lat, double lng, double radiusKm) {
+        return cache.findWithinRadius(lat, lng, radiusKm, NO_FILTERS, (centerLat, centerLng, radius) -> {
+            loads.incrementAndGet();
+            return index.findWithinRadius(centerLat, centerLng, radius, null).stream()
+                    .map(LocationSpatialIndex.Match::location)
+                    .toList();
+        });
+    }
+
+    private static List<UUID> ids(List<LocationSpatialIndex.Match> matches) {
+        return matches.stream().map(match -> match.location().id()).toList();
+    }
+
+    @Test
+    void nearbyOriginsShareCandidatesButGetExactResults() {
+        Random random = new Random(5);
+        for (int q = 0; q < 200; q++) {
+            // All origins fall in the same 0.005 degree cell
+            double lat = 41.3905 + random.nextDouble() * 0.004;
+            double lng = 2.1705 + random.nextDouble() * 0.004;
+            double radius = 0.2 + random.nextDouble() * 0.8;
+
+            assertThat(ids(search(lat, lng, radius))).isEqualTo(ids(index.findWithinRadius(lat, lng, radius, null)));
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().getHits()).isEqualTo(199);
+        assertThat(cache.stats().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void changeInvalidatesOnlyCoveringEntries() {
+        search(41.391, 2.171, 1);
+        search(41.60, 2.50, 1);
+        assertThat(cache.size()).isEqualTo(2);
+
+        LocationSnapshot added = location(41.392, 2.172);
+        index.upsert(added);
+        cache.onLocationChanged(LocationChangedEvent.created(added));
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(search(41.391, 2.171, 1))
+                .extracting(match -> match.location().id())
+                .contains(added.id());
+        assertThat(cache.stats().getInvalidations()).isEqualTo(1);
+    }
+
+    @Test
+    void equalPricesShareAnEntry() {
+        assertThat(new NearbyResultCache.Filters(new BigDecimal("5"), null, 2))
+                .isEqualTo(new NearbyResultCache.Filters(new BigDecimal("5.00"), null, 2));
+    }
+
+    @Test
+    void oldestEntriesAreEvicted() {
+        NearbyResultCache small = new NearbyResultCache(0.005, 2, 10_000);
+        for (int i = 0; i < 5; i++) {
+            small.findWithinRadius(41.0 + i * 0.01, 2.0, 1, NO_FILTERS, (lat, lng, radius) -> List.of());
+        }
+
+        assertThat(small.size()).isEqualTo(2);
+        assertThat(small.stats().getEvictions()).isEqualTo(3);
+    }
+}
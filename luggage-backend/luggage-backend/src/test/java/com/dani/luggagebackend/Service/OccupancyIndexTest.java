@@ -0,0 +1,217 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Model.Booking;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OccupancyIndexTest {
+
+    private static final Instant DAY = Instant.now().plus(Duration.ofDays(2)).truncatedTo(ChronoUnit.DAYS);
+    private static final int CAPACITY = 10;
+
+    private final UUID locationId = UUID.randomUUID();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static Instant at(int minutes) {
+        return DAY.plus(Duration.ofMinutes(minutes));
+    }
+
+    private static OccupancyIndex.Hold hold(int from, int to, int bags) {
+        return new OccupancyIndex.Hold(UUID.randomUUID(), at(from), at(to), bags);
+    }
+
+    private OccupancyIndex.HoldLoader loaderOf(List<OccupancyIndex.Hold> holds) {
+        return id -> {
+            loads.incrementAndGet();
+            return List.copyOf(holds);
+        };
+    }
+
+    private static BookingSnapshot booking(UUID id, int from, int to, int bags, Booking.BookingStatus status,
+                                           UUID locationId) {
+        return new BookingSnapshot(id, locationId, UUID.randomUUID(), at(from), at(to), status, bags, DAY, null);
+    }
+
+    @Test
+    void remainingIsCapacityMinusFullestSlot() {
+        OccupancyIndex index = new OccupancyIndex(15, 30);
+        OccupancyIndex.HoldLoader loader = loaderOf(List.of(hold(60, 120, 3), hold(90, 180, 4), hold(200, 210, 1)));
+
+        // 90-120 holds 7 bags
+        assertThat(index.remaining(locationId, at(0), at(300), CAPACITY, loader)).isEqualTo(3);
+        assertThat(index.remaining(locationId, at(120), at(180), CAPACITY, loader)).isEqualTo(6);
+        // Bookings ending where the window starts do not take up its slots
+        assertThat(index.remaining(locationId, at(180), at(195), CAPACITY, loader)).isEqualTo(CAPACITY);
+        // A booking takes up every slot it touches
+        assertThat(index.remaining(locationId, at(209), at(211), CAPACITY, loader)).isEqualTo(9);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void batchLoadsMissingLedgersInOneCall() {
+        OccupancyIndex index = new OccupancyIndex(15, 30);
+        UUID held = UUID.randomUUID();
+        UUID busy = UUID.randomUUID();
+        UUID empty = UUID.randomUUID();
+        index.remaining(held, at(0), at(60), CAPACITY, loaderOf(List.of(hold(0, 60, 2))));
+        List<Collection<UUID>> batches = new ArrayList<>();
+        OccupancyIndex.BatchHoldLoader loader = ids -> {
+            batches.add(List.copyOf(ids));
+            return Map.of(busy, List.of(hold(60, 120, 6)));
+        };
+        List<OccupancyIndex.Window> windows = List.of(
+                new OccupancyIndex.Window(at(0), at(60)), new OccupancyIndex.Window(at(90), at(180)));
+
+        Map<UUID, long[]> remaining = index.remaining(Map.of(held, CAPACITY, busy, CAPACITY, empty, 4), windows, loader);
+
+        assertThat(remaining.get(held)).containsExactly(8, CAPACITY);
+        assertThat(remaining.get(busy)).containsExactly(CAPACITY, 4);
+        assertThat(remaining.get(empty)).containsExactly(4, 4);
+        assertThat(batches).singleElement().satisfies(ids -> assertThat(ids).containsExactlyInAnyOrder(busy, empty));
+
+        index.remaining(Map.of(held, CAPACITY, busy, CAPACITY, empty, 4), windows, loader);
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    void admitsOnlyWhatFitsInEverySlot() {
+        OccupancyIndex index = new OccupancyIndex(15, 30);
+        OccupancyIndex.HoldLoader loader = loaderOf(List.of(hold(60, 120, 6)));
+
+        assertThat(index.tryAdmit(locationId, hold(0, 90, 5), CAPACITY, loader)).isFalse();
+        assertThat(index.tryAdmit(locationId, hold(0, 90, 4), CAPACITY, loader)).isTrue();
+        assertThat(index.tryAdmit(locationId, hold(0, 60, 6), CAPACITY, loader)).isTrue();
+        assertThat(index.remaining(locationId, at(0), at(120), CAPACITY, loader)).isZero();
+    }
+
+    @Test
+    void holdsCostTheSameHoweverLongTheyAre() {
+        OccupancyIndex index = new OccupancyIndex(15, 30);
+        // Ten years of 15-minute slots
+        OccupancyIndex.Hold decade = new OccupancyIndex.Hold(UUID.randomUUID(), at(0), DAY.plus(Duration.ofDays(3650)), 4);
+        OccupancyIndex.HoldLoader loader = loaderOf(List.of(hold(60, 120, 3)));
+
+        assertThat(index.tryAdmit(locationId, decade, CAPACITY, loader)).isTrue();
+
+        Instant later = DAY.plus(Duration.ofDays(2000));
+        assertThat(index.remaining(locationId, later, later.plus(Duration.ofHours(1)), CAPACITY, loader)).isEqualTo(6);
+        assertThat(index.remaining(locationId, at(0), at(300), CAPACITY, loader)).isEqualTo(3);
+        index.release(locationId, decade.bookingId());
+        assertThat(index.remaining(locationId, later, later.plus(Duration.ofHours(1)), CAPACITY, loader)).isEqualTo(CAPACITY);
+        assertThat(index.remaining(locationId, at(0), at(300), CAPACITY, loader)).isEqualTo(7);
+    }
+
+    @Test
+    void movingABookingDoesNotCountItsOwnBags() {
+        OccupancyIndex index = new OccupancyIndex(15, 30);
+        OccupancyIndex.Hold booked = hold(60, 120, 8);
+        OccupancyIndex.HoldLoader loader = loaderOf(List.of(booked));
+
+        OccupancyIndex.Hold moved = new OccupancyIndex.Hold(booked.bookingId(), at(90), at(150), 8);
+        assertThat(index.tryAdmit(locationId, moved, CAPACITY, loader)).isTrue();
+        assertThat(index.remaining(locationId, at(60), at(90), CAPACITY, loader)).isEqualTo(CAPACITY);
+
+        OccupancyIndex.Hold tooMany = new OccupancyIndex.Hold(booked.bookingId(), at(90), at(150), 11);
+        assertThat(index.tryAdmit(locationId, tooMany, CAPACITY, loader)).isFalse();
+        assertThat(index.remaining(locationId, at(90), at(150), CAPACITY, loader)).isEqualTo(2);
+
+        index.restore(locationId, booked);
+        assertThat(index.remaining(locationId, at(60), at(90), CAPACITY, loader)).isEqualTo(2);
+        assertThat(index.remaining(locationId, at(120), at(150), CAPACITY, loader)).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void followsBookingChanges() {
+        OccupancyIndex index = new OccupancyIndex(15, 30);
+        OccupancyIndex.HoldLoader loader = loaderOf(List.of());
+        UUID bookingId = UUID.randomUUID();
+        assertThat(index.remaining(locationId, at(0), at(1440), CAPACITY, loader)).isEqualTo(CAPACITY);
+
+        BookingSnapshot pending = booking(bookingId, 60, 120, 3, Booking.BookingStatus.PENDING, locationId);
+        index.onBookingChanged(BookingChangedEvent.created(pending));
+        assertThat(index.remaining(locationId, at(90), at(100), CAPACITY, loader)).isEqualTo(7);
+
+        BookingSnapshot confirmed = booking(bookingId, 60, 120, 3, Booking.BookingStatus.CONFIRMED, locationId);
+        index.onBookingChanged(BookingChangedEvent.updated(pending, confirmed));
+        assertThat(index.remaining(locationId, at(90), at(100), CAPACITY, loader)).isEqualTo(7);
+
+        BookingSnapshot completed = booking(bookingId, 60, 120, 3, Booking.BookingStatus.COMPLETED, locationId);
+        index.onBookingChanged(BookingChangedEvent.updated(confirmed, completed));
+        assertThat(index.remaining(locationId, at(0), at(1440), CAPACITY, loader)).isEqualTo(CAPACITY);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void rolledBackAdmissionGivesBagsBack() {
+        OccupancyIndex index = new OccupancyIndex(15, 30);
+        OccupancyIndex.HoldLoader loader = loaderOf(List.of());
+        OccupancyIndex.Hold admitted = hold(0, 60, CAPACITY);
+
+        assertThat(index.tryAdmit(locationId, admitted, CAPACITY, loader)).isTrue();
+        index.release(locationId, admitted.bookingId());
+        index.settle(locationId);
+
+        assertThat(index.tryAdmit(locationId, hold(0, 60, CAPACITY), CAPACITY, loader)).isTrue();
+    }
+
+    @Test
+    void concurrentRequestsNeverOverbook() throws InterruptedException {
+        OccupancyIndex index = new OccupancyIndex(15, 30);
+        OccupancyIndex.HoldLoader loader = loaderOf(List.of());
+        int requests = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<OccupancyIndex.Hold> admitted = new ConcurrentLinkedQueue<>();
+
+        Random random = new Random(13);
+        List<OccupancyIndex.Hold> holds = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            int from = random.nextInt(8) * 15;
+            holds.add(hold(from, from + 15 + random.nextInt(120), 1 + random.nextInt(3)));
+        }
+        for (OccupancyIndex.Hold hold : holds) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    if (index.tryAdmit(locationId, hold, CAPACITY, loader)) {
+                        admitted.add(hold);
+                    }
+                    index.settle(locationId);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(admitted).isNotEmpty();
+        for (int minute = 0; minute < 300; minute++) {
+            Instant moment = at(minute);
+            int bags = admitted.stream()
+                    .filter(hold -> !hold.start().isAfter(moment) && hold.end().isAfter(moment))
+                    .mapToInt(OccupancyIndex.Hold::bags)
+                    .sum();
+            assertThat(bags).as("bags at minute %d", minute).isLessThanOrEqualTo(CAPACITY);
+        }
+        assertThat(loads).hasValue(1);
+    }
+}
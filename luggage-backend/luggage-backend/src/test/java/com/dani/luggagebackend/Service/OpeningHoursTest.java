@@ -0,0 +1,39 @@
+package com.dani.luggagebackend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpeningHoursTest {
+
+    @Test
+    void parsesCommonFormats() {
+        assertThat(OpeningHours.parse("24/7")).isEqualTo(OpeningHours.ALL_DAY);
+        assertThat(OpeningHours.parse("6:00 AM - 11:00 PM"))
+                .isEqualTo(new OpeningHours(LocalTime.of(6, 0), LocalTime.of(23, 0)));
+        assertThat(OpeningHours.parse("Mon-Sun: 8AM-10PM"))
+                .isEqualTo(new OpeningHours(LocalTime.of(8, 0), LocalTime.of(22, 0)));
+        assertThat(OpeningHours.parse("08:30-20:00"))
+                .isEqualTo(new OpeningHours(LocalTime.of(8, 30), LocalTime.of(20, 0)));
+        assertThat(OpeningHours.parse("6:00 AM - 12:00 AM"))
+                .isEqualTo(new OpeningHours(LocalTime.of(6, 0), LocalTime.MIDNIGHT));
+        assertThat(OpeningHours.parse("Ask at the front desk")).isNull();
+        assertThat(OpeningHours.parse("13 PM - 2 AM")).isNull();
+    }
+
+    @Test
+    void handlesWindowsPastMidnight() {
+        OpeningHours evening = OpeningHours.parse("6 PM - 2 AM");
+        assertThat(evening.isOpenAt(LocalTime.of(23, 0))).isTrue();
+        assertThat(evening.isOpenAt(LocalTime.of(1, 59))).isTrue();
+        assertThat(evening.isOpenAt(LocalTime.of(2, 0))).isFalse();
+        assertThat(evening.isOpenAt(LocalTime.of(12, 0))).isFalse();
+
+        OpeningHours untilMidnight = OpeningHours.parse("6:00 AM - 12:00 AM");
+        assertThat(untilMidnight.isOpenAt(LocalTime.of(23, 59))).isTrue();
+        assertThat(untilMidnight.isOpenAt(LocalTime.of(5, 0))).isFalse();
+        assertThat(OpeningHours.ALL_DAY.isOpenAt(LocalTime.of(3, 0))).isTrue();
+    }
+}
@@ -0,0 +1,31 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void roundTripsDistanceAndId() {
+        PageCursor cursor = new PageCursor(1.2345678901234, UUID.randomUUID());
+
+        assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void missingCursorMeansFirstPage() {
+        assertThat(PageCursor.decode(null)).isNull();
+        assertThat(PageCursor.decode("")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> PageCursor.decode("not a cursor!")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> PageCursor.decode("AAAA")).isInstanceOf(BadRequestException.class);
+    }
+}
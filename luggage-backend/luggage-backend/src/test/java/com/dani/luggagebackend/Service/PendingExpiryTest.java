@@ -0,0 +1,128 @@
+package com.dani.luggagebackend.Service;
+
+import com.dani.luggagebackend.Model.Booking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PendingExpiryTest {
+
+    private final Instant now = Instant.now();
+    private PendingExpiry expiry;
+
+    private Instant in(Duration delay) {
+        return now.plus(delay);
+    }
+
+    private static BookingSnapshot booking(UUID id, Booking.BookingStatus status, Instant expiresAt) {
+        return new BookingSnapshot(id, UUID.randomUUID(), UUID.randomUUID(), Instant.now(),
+                Instant.now().plus(Duration.ofHours(2)), status, 1, Instant.now(), expiresAt);
+    }
+
+    @BeforeEach
+    void setUp() {
+        expiry = new PendingExpiry(1000, 2);
+    }
+
+    @Test
+    void expiresDeadlinesOnceDue() {
+        UUID soon = UUID.randomUUID();
+        UUID later = UUID.randomUUID();
+        expiry.schedule(soon, in(Duration.ofSeconds(5)));
+        expiry.schedule(later, in(Duration.ofSeconds(30)));
+
+        assertThat(expiry.advance(in(Duration.ofSeconds(4)))).isEmpty();
+        assertThat(expiry.advance(in(Duration.ofSeconds(6)))).containsExactly(soon);
+        assertThat(expiry.advance(in(Duration.ofSeconds(31)))).containsExactly(later);
+        assertThat(expiry.size()).isZero();
+    }
+
+    @Test
+    void keepsDeadlinesMoreThanOneTurnAwayForLaterTurns() {
+        UUID booking = UUID.randomUUID();
+        // The wheel turns once every 512 one-second ticks
+        expiry.schedule(booking, in(Duration.ofSeconds(600)));
+
+        assertThat(expiry.advance(in(Duration.ofSeconds(100)))).isEmpty();
+        assertThat(expiry.advance(in(Duration.ofSeconds(599)))).isEmpty();
+        assertThat(expiry.advance(in(Duration.ofSeconds(601)))).containsExactly(booking);
+    }
+
+    @Test
+    void catchesUpAfterLongPauses() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        expiry.schedule(first, in(Duration.ofSeconds(10)));
+        expiry.schedule(second, in(Duration.ofHours(2)));
+
+        assertThat(expiry.advance(in(Duration.ofHours(3)))).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    void passedDeadlinesAreDueOnTheNextTick() {
+        UUID overdue = UUID.randomUUID();
+        expiry.schedule(overdue, now.minus(Duration.ofHours(1)));
+
+        assertThat(expiry.advance(in(Duration.ofSeconds(2)))).containsExactly(overdue);
+    }
+
+    @Test
+    void followsBookingChanges() {
+        UUID bookingId = UUID.randomUUID();
+        BookingSnapshot pending = booking(bookingId, Booking.BookingStatus.PENDING, in(Duration.ofSeconds(5)));
+        expiry.onBookingChanged(BookingChangedEvent.created(pending));
+        assertThat(expiry.size()).isEqualTo(1);
+
+        BookingSnapshot confirmed = booking(bookingId, Booking.BookingStatus.CONFIRMED, null);
+        expiry.onBookingChanged(BookingChangedEvent.updated(pending, confirmed));
+
+        assertThat(expiry.size()).isZero();
+        assertThat(expiry.advance(in(Duration.ofSeconds(10)))).isEmpty();
+    }
+
+    @Test
+    void releasesDueBookingsInBatches() {
+        BookingsService bookingsService = mock(BookingsService.class);
+        List<Collection<UUID>> batches = new ArrayList<>();
+        when(bookingsService.expirePendingBookings(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> batch = invocation.getArgument(0);
+            batches.add(List.copyOf(batch));
+            return batch.size();
+        });
+        ReflectionTestUtils.setField(expiry, "bookingsService", bookingsService);
+        for (int i = 0; i < 5; i++) {
+            expiry.schedule(UUID.randomUUID(), now.minus(Duration.ofMinutes(1)));
+        }
+
+        expiry.tick(in(Duration.ofSeconds(2)));
+
+        assertThat(batches).extracting(Collection::size).containsExactly(2, 2, 1);
+        assertThat(expiry.size()).isZero();
+    }
+
+    @Test
+    void retriesBatchesThatFailed() {
+        BookingsService bookingsService = mock(BookingsService.class);
+        when(bookingsService.expirePendingBookings(anyCollection())).thenThrow(new RuntimeException("down"));
+        ReflectionTestUtils.setField(expiry, "bookingsService", bookingsService);
+        UUID booking = UUID.randomUUID();
+        expiry.schedule(booking, now.minus(Duration.ofMinutes(1)));
+
+        expiry.tick(in(Duration.ofSeconds(2)));
+
+        assertThat(expiry.size()).isEqualTo(1);
+        assertThat(expiry.advance(in(Duration.ofSeconds(4)))).containsExactly(booking);
+    }
+}
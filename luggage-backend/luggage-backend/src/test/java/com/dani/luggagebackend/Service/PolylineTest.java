@@ -0,0 +1,23 @@
+package com.dani.luggagebackend.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PolylineTest {
+
+    @Test
+    void decodesReferenceExample() {
+        assertThat(Polyline.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@")).containsExactly(
+                new Polyline.Point(38.5, -120.2),
+                new Polyline.Point(40.7, -120.95),
+                new Polyline.Point(43.252, -126.453));
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        assertThatThrownBy(() -> Polyline.decode("_p~iF")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Polyline.decode("_p~iF~ps|U ")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,162 @@
+package com.dani.luggagebackend.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class WalkingRouterTest {
+
+    private static final int SIDE = 20;
+    private static final double STEP_DEG = 0.001;
+
+    /**
+     * Street grid around Rome with some blocks missing and jittered lengths.
+     */
+    private static RoadGraph randomGrid(Random random) {
+        int nodes = SIDE * SIDE;
+        double[] lat = new double[nodes];
+        double[] lng = new double[nodes];
+        for (int r = 0; r < SIDE; r++) {
+            for (int c = 0; c < SIDE; c++) {
+                lat[r * SIDE + c] = 41.89 + r * STEP_DEG;
+                lng[r * SIDE + c] = 12.48 + c * STEP_DEG;
+            }
+        }
+        int[] from = new int[nodes * 2];
+        int[] to = new int[nodes * 2];
+        float[] meters = new float[nodes * 2];
+        int edges = 0;
+        for (int v = 0; v < nodes; v++) {
+            int[] neighbours = {v % SIDE < SIDE - 1 ? v + 1 : -1, v + SIDE < nodes ? v + SIDE : -1};
+            for (int u : neighbours) {
+                if (u >= 0 && random.nextDouble() < 0.85) {
+                    from[edges] = v;
+                    to[edges] = u;
+                    meters[edges++] = (float) (Geo.haversineKm(lat[v], lng[v], lat[u], lng[u]) * 1000.0
+                            * (1.0 + random.nextDouble()));
+                }
+            }
+        }
+        return new RoadGraph(lat, lng, Arrays.copyOf(from, edges), Arrays.copyOf(to, edges),
+                Arrays.copyOf(meters, edges));
+    }
+
+    private static double[] dijkstra(RoadGraph graph, int source) {
+        double[] distance = new double[graph.nodeCount()];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        distance[source] = 0.0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        queue.add(new double[] {0.0, source});
+        while (!queue.isEmpty()) {
+            double[] head = queue.poll();
+            int node = (int) head[1];
+            if (head[0] > distance[node]) {
+                continue;
+            }
+            for (int e = graph.firstEdge(node); e < graph.firstEdge(node + 1); e++) {
+                double next = head[0] + graph.edgeMeters(e);
+                if (next < distance[graph.edgeTarget(e)]) {
+                    distance[graph.edgeTarget(e)] = next;
+                    queue.add(new double[] {next, graph.edgeTarget(e)});
+                }
+            }
+        }
+        return distance;
+    }
+
+    @Test
+    void contractionHierarchyMatchesDijkstra() {
+        Random random = new Random(7);
+        RoadGraph graph = randomGrid(random);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+
+        int[] targets = new int[graph.nodeCount()];
+        Arrays.setAll(targets, i -> i);
+        for (int trial = 0; trial < 10; trial++) {
+            int source = random.nextInt(graph.nodeCount());
+            double[] expected = dijkstra(graph, source);
+            double[] actual = hierarchy.distances(source, targets);
+            for (int t = 0; t < targets.length; t++) {
+                if (expected[t] == Double.POSITIVE_INFINITY) {
+                    assertThat(actual[t]).isInfinite();
+                } else {
+                    assertThat(actual[t]).isCloseTo(expected[t], within(0.5));
+                }
+            }
+        }
+    }
+
+    @Test
+    void isochroneAgreesWithPointToPointTimes() {
+        WalkingRouter router = new WalkingRouter("", 4.8, 250);
+        RoadGraph graph = randomGrid(new Random(11));
+        router.load(graph);
+
+        double startLat = 41.8995;
+        double startLng = 12.4895;
+        WalkingRouter.Isochrone isochrone = router.isochrone(startLat, startLng, 8.0);
+        assertThat(isochrone).isNotNull();
+        assertThat(isochrone.nodeCount()).isPositive().isLessThan(graph.nodeCount());
+
+        for (int v = 0; v < graph.nodeCount(); v += 7) {
+            double lat = graph.latitude(v);
+            double lng = graph.longitude(v);
+            Double minutes = router.walkingMinutes(startLat, startLng, List.<double[]>of(new double[] {lat, lng}))[0];
+            Double reachable = isochrone.minutesTo(lat, lng);
+            if (reachable != null) {
+                assertThat(minutes).isCloseTo(reachable, within(0.01));
+                assertThat(reachable).isLessThanOrEqualTo(8.0);
+            } else if (minutes != null) {
+                assertThat(minutes).isGreaterThan(8.0 - 0.01);
+            }
+        }
+    }
+
+    @Test
+    void pointsFarFromTheGraphHaveNoWalkingTime() {
+        WalkingRouter router = new WalkingRouter("", 4.8, 250);
+        assertThat(router.isReady()).isFalse();
+        router.load(randomGrid(new Random(3)));
+
+        // Start on a graph node so there is no snapping distance
+        Double[] minutes = router.walkingMinutes(41.899, 12.489,
+                List.of(new double[] {41.899, 12.489}, new double[] {45.0, 9.0}));
+        assertThat(minutes[0]).isCloseTo(0.0, within(0.01));
+        assertThat(minutes[1]).isNull();
+        assertThat(router.isochrone(45.0, 9.0, 10.0)).isNull();
+    }
+
+    @Test
+    void readsGraphFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("graph.txt");
+        Files.writeString(file, """
+                # three nodes on a line
+                nodes 3
+                41.9000 12.4900
+                41.9010 12.4900
+                41.9020 12.4900
+                edges 2
+                0 1 111.2
+                1 2 111.2   # footway
+                """);
+
+        RoadGraph graph = RoadGraph.read(file);
+        assertThat(graph.nodeCount()).isEqualTo(3);
+        assertThat(graph.nearestNode(41.9011, 12.4901, 50)).isEqualTo(1);
+        assertThat(ContractionHierarchy.build(graph).distance(0, 2)).isCloseTo(222.4, within(0.01));
+
+        Files.writeString(file, "nodes 1\n41.9 12.49\nedges 1\n0 5 10\n");
+        assertThatThrownBy(() -> RoadGraph.read(file)).isInstanceOf(IOException.class);
+    }
+}